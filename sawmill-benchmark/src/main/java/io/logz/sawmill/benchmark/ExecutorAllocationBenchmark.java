@@ -0,0 +1,81 @@
+package io.logz.sawmill.benchmark;
+
+import io.logz.sawmill.Doc;
+import io.logz.sawmill.ExecutionResult;
+import io.logz.sawmill.Pipeline;
+import io.logz.sawmill.PipelineExecutor;
+import io.logz.sawmill.ProcessResult;
+import io.logz.sawmill.ProcessorExecutionStep;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+
+/**
+ * JMH based micro-benchmark of the executor bookkeeping, executing a pipeline with a single processor doing nothing.
+ * The benchmark can be launched from the main() method in this class, which runs it with the GC profiler
+ * and fails if an execution allocates more than {@link #MAX_ALLOCATED_BYTES_PER_EXECUTION} bytes on average.
+ *
+ * To enable this micro benchmark, the file must removed from the excludes list in the pom file.
+ * This is intentional, to prevent this utility from slowing down build times.
+ */
+@State(Scope.Thread)
+public class ExecutorAllocationBenchmark {
+    private static final double MAX_ALLOCATED_BYTES_PER_EXECUTION = 1;
+    private static final String ALLOCATION_RATE_NORM = "\u00b7gc.alloc.rate.norm";
+
+    @Param({"false", "true"})
+    public boolean compiled;
+
+    private PipelineExecutor pipelineExecutor;
+    private Pipeline pipeline;
+    private Doc doc;
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(ExecutorAllocationBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .forks(1)
+                .build();
+
+        Collection<RunResult> runResults = new Runner(opt).run();
+        for (RunResult runResult : runResults) {
+            Result allocated = runResult.getSecondaryResults().get(ALLOCATION_RATE_NORM);
+            if (allocated != null && allocated.getScore() > MAX_ALLOCATED_BYTES_PER_EXECUTION) {
+                throw new IllegalStateException(String.format("execution with %s allocates %.2f B/op, expected ~0 B/op",
+                        runResult.getParams(), allocated.getScore()));
+            }
+        }
+    }
+
+    @Setup
+    public void setup() {
+        pipelineExecutor = new PipelineExecutor();
+        pipeline = new Pipeline("noop",
+                Collections.singletonList(new ProcessorExecutionStep("noop1", doc -> ProcessResult.success())), false, compiled);
+        doc = new Doc(new HashMap<>(Collections.singletonMap("message", "hola")));
+    }
+
+    @TearDown
+    public void tearDown() {
+        pipelineExecutor.close();
+    }
+
+    @Benchmark
+    public ExecutionResult execute() {
+        return pipelineExecutor.execute(pipeline, doc);
+    }
+}
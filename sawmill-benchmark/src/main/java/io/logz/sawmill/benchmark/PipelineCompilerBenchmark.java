@@ -0,0 +1,80 @@
+package io.logz.sawmill.benchmark;
+
+import io.logz.sawmill.Doc;
+import io.logz.sawmill.ExecutionResult;
+import io.logz.sawmill.Pipeline;
+import io.logz.sawmill.PipelineExecutor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * JMH based micro-benchmark comparing the interpreted pipeline execution to pipelines compiled into a generated class.
+ * The benchmark can be launched from the main() method in this class.
+ *
+ * To enable this micro benchmark, the file must removed from the excludes list in the pom file.
+ * This is intentional, to prevent this utility from slowing down build times.
+ */
+@State(Scope.Thread)
+public class PipelineCompilerBenchmark {
+    private static final int NUMBER_OF_FIELDS = 20;
+
+    @Param({"false", "true"})
+    public boolean compiled;
+
+    private Map<String, Object> documentTemplate;
+    private PipelineExecutor pipelineExecutor;
+    private Pipeline pipeline;
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(PipelineCompilerBenchmark.class.getSimpleName())
+                .forks(1)
+                .build();
+
+        new Runner(opt).run();
+    }
+
+    @Setup
+    public void setup() {
+        pipelineExecutor = new PipelineExecutor();
+        Pipeline.Factory factory = new Pipeline.Factory();
+        if (compiled) {
+            factory = factory.compiled();
+        }
+
+        String steps = IntStream.range(0, NUMBER_OF_FIELDS).boxed()
+                .map(i -> "{ if: { condition: { exists.field: field" + i + " }," +
+                        " then: [{ upperCase.config.fields: [field" + i + "] }]," +
+                        " else: [{ addField.config: { path: missing" + i + ", value: value } }] } }," +
+                        " { rename.config.renames: { field" + i + ": renamed" + i + " } }")
+                .collect(Collectors.joining(", "));
+        pipeline = factory.create("{ steps: [" + steps + "] }");
+
+        documentTemplate = IntStream.range(0, NUMBER_OF_FIELDS).filter(i -> i % 2 == 0).boxed()
+                .collect(Collectors.toMap(i -> "field" + i, i -> "value" + i));
+    }
+
+    @TearDown
+    public void tearDown() {
+        pipelineExecutor.close();
+    }
+
+    @Benchmark
+    public ExecutionResult benchmarkPipelineExecution() {
+        Doc doc = new Doc(new LinkedHashMap<>(documentTemplate));
+        return pipelineExecutor.execute(pipeline, doc);
+    }
+}
@@ -0,0 +1,41 @@
+package io.logz.sawmill;
+
+/**
+ * Base class of the classes generated by {@link PipelineCompiler}.
+ * It is public only because generated classes might be defined by their own class loader, outside of this package.
+ */
+public abstract class CompiledPipeline {
+    private final String[] processorNames;
+
+    protected CompiledPipeline(String[] processorNames) {
+        this.processorNames = processorNames;
+    }
+
+    public String getProcessorName(int step) {
+        return processorNames[step];
+    }
+
+    /**
+     * Executes the pipeline steps in order, processors are numbered by their order in the pipeline definition.
+     *
+     * @throws InterruptedException if a processor got interrupted by the watchdog
+     */
+    public abstract ExecutionResult execute(Doc doc, StepListener listener) throws InterruptedException;
+
+    public interface StepListener {
+        void processorStarted();
+
+        void processorSucceeded(int step);
+
+        /**
+         * Called before the failure handling of a processor that exceeded its execution budget, the default ignores it
+         */
+        default void processorBudgetExceeded(int step) {
+        }
+
+        /**
+         * @return the execution result if the execution should stop on this failure, otherwise {@code null}
+         */
+        ExecutionResult processorFailed(int step, ProcessResult processResult);
+    }
+}
@@ -1,15 +1,26 @@
 package io.logz.sawmill;
 
 import static com.google.common.base.Preconditions.checkState;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingOutputStream;
+import io.logz.sawmill.utilities.JsonLength;
+import io.logz.sawmill.utilities.JsonUtils;
+import io.logz.sawmill.utilities.ThreadLocalResource;
 import org.apache.commons.collections4.MapUtils;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 
 public class Doc {
+    private static final ThreadLocalResource<ByteBufferOutputStream> BUFFER_STREAMS = new ThreadLocalResource<>(ByteBufferOutputStream::new);
 
     private final Map<String, Object> source;
 
@@ -18,42 +29,146 @@ public class Doc {
         this.source = source;
     }
 
+    /**
+     * Creates a doc over json bytes, a top level field is deserialized only once accessed
+     * and fields never accessed are written back as they are by {@link #toJson()}
+     *
+     * @throws RuntimeException if the json is not an object or is malformed
+     */
+    public static Doc fromJson(byte[] json) {
+        return new Doc(JsonSource.index(json));
+    }
+
     public Map<String, Object> getSource() { return source; }
 
+    /**
+     * @return the source as UTF-8 json
+     */
+    public byte[] toJson() {
+        if (!(source instanceof JsonSource)) {
+            return JsonUtils.toJsonBytes(source);
+        }
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream(((JsonSource) source).length() + 64);
+        try {
+            writeTo(stream);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return stream.toByteArray();
+    }
+
+    /**
+     * @return the length of {@link #toJson()}, counted without writing the json
+     */
+    public int jsonLength() {
+        if (!(source instanceof JsonSource)) {
+            return Math.toIntExact(JsonLength.of(source));
+        }
+
+        CountingOutputStream stream = new CountingOutputStream(ByteStreams.nullOutputStream());
+        try {
+            writeTo(stream);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Math.toIntExact(stream.getCount());
+    }
+
+    /**
+     * Writes the source as UTF-8 json, leaving the stream open
+     */
+    public void writeTo(OutputStream stream) throws IOException {
+        if (source instanceof JsonSource) {
+            ((JsonSource) source).writeTo(stream);
+        } else {
+            JsonUtils.writeJson(stream, source);
+        }
+    }
+
+    /**
+     * Writes the source as UTF-8 json from the position of the buffer, advancing it
+     *
+     * @throws BufferOverflowException if the json doesn't fit the remaining buffer, the position is then left as it was
+     */
+    public void writeTo(ByteBuffer buffer) {
+        int position = buffer.position();
+        ByteBufferOutputStream stream = BUFFER_STREAMS.acquire();
+        stream.buffer = buffer;
+        try {
+            writeTo(stream);
+        } catch (BufferOverflowException e) {
+            buffer.position(position);
+            throw e;
+        } catch (IOException e) {
+            buffer.position(position);
+            throw new UncheckedIOException(e);
+        } finally {
+            stream.buffer = null;
+            BUFFER_STREAMS.release(stream);
+        }
+    }
+
     public boolean hasField(String path) {
-        Optional<Object> field = getByPath(source, path);
-        return field.isPresent();
+        return hasField(FieldPath.of(path));
+    }
+
+    public boolean hasField(FieldPath path) {
+        return resolve(path) != null;
     }
 
     public boolean hasField(String path, Class clazz) {
-        Optional<Object> field = getByPath(source, path);
-        return field.isPresent() && clazz.isInstance(field.get());
+        return hasField(FieldPath.of(path), clazz);
+    }
+
+    public boolean hasField(FieldPath path, Class clazz) {
+        return clazz.isInstance(resolve(path));
     }
 
     public <T> T getField(String path) {
-        Optional<Object> field = getByPath(source, path);
-        checkState(field.isPresent(), "Couldn't resolve field in path [%s]", path);
-        return (T) field.get();
+        return getField(FieldPath.of(path));
+    }
+
+    public <T> T getField(FieldPath path) {
+        Object field = resolve(path);
+        checkState(field != null, "Couldn't resolve field in path [%s]", path);
+        return (T) field;
+    }
+
+    /**
+     * @return the field value, or {@code null} if the field doesn't exist
+     */
+    public <T> T getFieldOrNull(FieldPath path) {
+        return (T) resolve(path);
     }
 
     public void addField(String path, Object value) {
-        Map<String, Object> context = source;
-        List<String> pathElements = tokenizePath(path);
+        addField(FieldPath.of(path), value);
+    }
 
-        String leafKey = pathElements.get(pathElements.size() - 1);
+    public void addField(FieldPath path, Object value) {
+        createParent(path).put(path.getLeaf(), value);
+    }
 
-        for (String pathElement : pathElements.subList(0, pathElements.size() - 1)) {
-            Object pathValue = context.get(pathElement);
-            if (pathValue != null && pathValue instanceof Map) {
-                context = (Map) pathValue;
-            } else {
-                Map<String, Object> newMap = new HashMap<>();
-                context.put(pathElement, newMap);
-                context = newMap;
-            }
+    /**
+     * adds field to source only if it doesn't exist yet
+     * @param path
+     * @param value
+     * @return {@code true} if field has been added
+     *         {@code false} if field already exists
+     */
+    public boolean addFieldIfAbsent(FieldPath path, Object value) {
+        Map<String, Object> context = createParent(path);
+        String leafKey = path.getLeaf();
+        if (context instanceof JsonSource) {
+            return ((JsonSource) context).addIfAbsent(leafKey, value);
+        }
+        if (context.get(leafKey) != null) {
+            return false;
         }
 
         context.put(leafKey, value);
+        return true;
     }
 
     /**
@@ -63,38 +178,67 @@ public class Doc {
      *         {@code false} if field wasn't exist
      */
     public boolean removeField(String path) {
-        if (!hasField(path)) {
+        return removeField(FieldPath.of(path));
+    }
+
+    public boolean removeField(FieldPath path) {
+        Map<String, Object> context = resolveParent(path);
+        if (context == null) {
             return false;
         }
-        Map<String, Object> context = source;
-        List<String> pathElements = tokenizePath(path);
 
-        List<String> pathElementsWithoutLeaf = pathElements.subList(0, pathElements.size() - 1);
-        String leafKey = pathElements.get(pathElements.size() - 1);
-
-        for (String currElement : pathElementsWithoutLeaf) {
-            context = (Map<String, Object>) context.get(currElement);
+        String leafKey = path.getLeaf();
+        if (context instanceof JsonSource) {
+            return ((JsonSource) context).delete(leafKey);
+        }
+        if (context.get(leafKey) == null) {
+            return false;
         }
 
         context.remove(leafKey);
-
         return true;
     }
 
-    public void appendList(String path, Object value) {
-        List<Object> list;
-        if (!hasField(path)) {
-            addField(path, new ArrayList<>());
+    /**
+     * removes field from source
+     * @param path
+     * @return the removed value, or {@code null} if field wasn't exist
+     */
+    public <T> T removeAndGetField(FieldPath path) {
+        Map<String, Object> context = resolveParent(path);
+        if (context == null) {
+            return null;
+        }
+
+        String leafKey = path.getLeaf();
+        Object value = context.get(leafKey);
+        if (value == null) {
+            return null;
         }
 
-        Object field = getField(path);
+        context.remove(leafKey);
+        return (T) value;
+    }
+
+    public void appendList(String path, Object value) {
+        appendList(FieldPath.of(path), value);
+    }
+
+    public void appendList(FieldPath path, Object value) {
+        Map<String, Object> context = createParent(path);
+        String leafKey = path.getLeaf();
+
+        List<Object> list;
+        Object field = context.get(leafKey);
         if (field instanceof List) {
             list = (List) field;
         } else {
             list = new ArrayList<>();
-            list.add(field);
-            removeField(path);
-            addField(path, list);
+            if (field != null) {
+                list.add(field);
+                context.remove(leafKey);
+            }
+            context.put(leafKey, list);
         }
         if (value instanceof List) {
             list.addAll((List)value);
@@ -111,11 +255,11 @@ public class Doc {
      *         {@code false} otherwise
      */
     public boolean removeFromList(String path, Object value) {
-        if (!hasField(path)) {
-            return false;
-        }
+        return removeFromList(FieldPath.of(path), value);
+    }
 
-        Object field = getField(path);
+    public boolean removeFromList(FieldPath path, Object value) {
+        Object field = resolve(path);
         if (field instanceof List) {
             List<Object> list = (List) field;
 
@@ -131,58 +275,76 @@ public class Doc {
         return false;
     }
 
+    public boolean replaceFieldValue(String path,Object newValue){
+        return replaceFieldValue(FieldPath.of(path), newValue);
+    }
+
+    /**
+     * replaces the value of an existing field, the field is re-inserted as the last key of its parent
+     * @return {@code true} if field has been replaced
+     *         {@code false} if field wasn't exist
+     */
+    public boolean replaceFieldValue(FieldPath path, Object newValue) {
+        Map<String, Object> context = resolveParent(path);
+        if (context == null) {
+            return false;
+        }
+
+        String leafKey = path.getLeaf();
+        if (context instanceof JsonSource) {
+            return ((JsonSource) context).replaceValue(leafKey, newValue);
+        }
+        if (context.get(leafKey) == null) {
+            return false;
+        }
+
+        context.remove(leafKey);
+        context.put(leafKey, newValue);
+        return true;
+    }
+
     /**
-     * json OGNL (Object Graph Navigation Language) getter.
-     * <p>for example:
-     * <pre>
-     * JsonUtils.getByPath(json, "x.y.z")
-     * </pre>
+     * json OGNL (Object Graph Navigation Language) getter, walks the source once.
      *
-     * @return Optional of the value in paths
-     * @throws Exception on any error
+     * @return the value in path, or {@code null} if any element in path is missing
      **/
-    private static <T> Optional<T> getByPath(Map json, String... paths) {
-        Object cursor = json;
-        for (String path : paths) {
-            for (String pathElement : tokenizePath(path)) {
-                if (!(cursor instanceof Map)) return Optional.empty();
-
-                cursor = ((Map) cursor).get(pathElement);
-                if (cursor == null) return Optional.empty();
-            }
+    private Object resolve(FieldPath path) {
+        Object cursor = source;
+        for (String pathElement : path.getElements()) {
+            if (!(cursor instanceof Map)) return null;
+
+            cursor = ((Map) cursor).get(pathElement);
+            if (cursor == null) return null;
         }
-        return Optional.of((T) cursor);
+        return cursor;
     }
 
-    private static List<String> tokenizePath(String s) {
-        List<String> pathTokens = new ArrayList<>();
-        StringBuilder sb = new StringBuilder();
-        boolean inEscape = false;
+    private Map<String, Object> resolveParent(FieldPath path) {
+        String[] pathElements = path.getElements();
+        Map<String, Object> context = source;
+        for (int i = 0; i < pathElements.length - 1; i++) {
+            Object pathValue = context.get(pathElements[i]);
+            if (!(pathValue instanceof Map)) return null;
 
-        for (char c : s.toCharArray()) {
-            if (inEscape) {
-                inEscape = false;
-                sb.append(c);
-            } else if (c == '\\') {
-                inEscape = true;
-            } else if (c == '.') {
-                pathTokens.add(sb.toString());
-                sb.setLength(0);
-            } else {
-                sb.append(c);
-            }
+            context = (Map<String, Object>) pathValue;
         }
-        pathTokens.add(sb.toString());
-
-        return pathTokens;
+        return context;
     }
-    public boolean replaceFieldValue(String path,Object newValue){
-        if (hasField(path)) {
-            removeField(path);
-            addField(path,newValue);
-            return true;
+
+    private Map<String, Object> createParent(FieldPath path) {
+        String[] pathElements = path.getElements();
+        Map<String, Object> context = source;
+        for (int i = 0; i < pathElements.length - 1; i++) {
+            Object pathValue = context.get(pathElements[i]);
+            if (pathValue instanceof Map) {
+                context = (Map) pathValue;
+            } else {
+                Map<String, Object> newMap = new HashMap<>();
+                context.put(pathElements[i], newMap);
+                context = newMap;
+            }
         }
-        return false;
+        return context;
     }
 
     public void replace(Map<String,Object> otherMap){
@@ -196,4 +358,21 @@ public class Doc {
                 "source=" + source +
                 '}';
     }
+
+    /**
+     * Adapts a buffer to the stream writes, reused by the writes of a thread one buffer after the other
+     */
+    private static final class ByteBufferOutputStream extends OutputStream {
+        private ByteBuffer buffer;
+
+        @Override
+        public void write(int b) {
+            buffer.put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            buffer.put(bytes, offset, length);
+        }
+    }
 }
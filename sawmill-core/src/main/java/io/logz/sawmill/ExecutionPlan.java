@@ -0,0 +1,148 @@
+package io.logz.sawmill;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The execution steps tree of a pipeline flattened into instructions with jump targets,
+ * so executing a pipeline is a single loop over an array regardless of how deeply its steps are nested.
+ */
+final class ExecutionPlan {
+    static final int PROCESS = 0;
+    static final int CONDITION = 1;
+    static final int JUMP = 2;
+    static final int FUSED = 3;
+
+    private static final int NO_TARGET = -1;
+
+    private final Instruction[] instructions;
+
+    private ExecutionPlan(Instruction[] instructions) {
+        this.instructions = instructions;
+    }
+
+    static ExecutionPlan compile(List<ExecutionStep> executionSteps) {
+        List<Instruction> instructions = new ArrayList<>();
+        compileSteps(executionSteps, instructions);
+        return new ExecutionPlan(instructions.toArray(new Instruction[0]));
+    }
+
+    Instruction[] getInstructions() {
+        return instructions;
+    }
+
+    private static void compileSteps(List<ExecutionStep> executionSteps, List<Instruction> instructions) {
+        if (executionSteps == null) {
+            return;
+        }
+
+        for (ExecutionStep executionStep : executionSteps) {
+            if (executionStep instanceof ConditionalExecutionStep) {
+                compileConditionalStep((ConditionalExecutionStep) executionStep, instructions);
+            } else if (executionStep instanceof ProcessorExecutionStep) {
+                compileProcessorStep((ProcessorExecutionStep) executionStep, instructions);
+            } else {
+                throw new RuntimeException("Unsupported execution step " + executionStep.getClass());
+            }
+        }
+    }
+
+    /**
+     * [CONDITION -> onFalse] [onTrue...] [JUMP -> end] [onFalse...] end
+     */
+    private static void compileConditionalStep(ConditionalExecutionStep conditionalExecutionStep, List<Instruction> instructions) {
+        Instruction condition = emit(instructions, new Instruction(CONDITION, conditionalExecutionStep.getCondition()));
+
+        compileSteps(conditionalExecutionStep.getOnTrue(), instructions);
+        if (isEmpty(conditionalExecutionStep.getOnFalse())) {
+            condition.target = instructions.size();
+            return;
+        }
+
+        Instruction skipOnFalse = emit(instructions, new Instruction(JUMP));
+        condition.target = instructions.size();
+        compileSteps(conditionalExecutionStep.getOnFalse(), instructions);
+        skipOnFalse.target = instructions.size();
+    }
+
+    /**
+     * [FUSED] when the processor is fused, fused steps have no on success and on failure steps
+     * [PROCESS -> onSuccess or end, onFailure] [onSuccess...] [JUMP -> end] [onFailure...] end
+     */
+    private static void compileProcessorStep(ProcessorExecutionStep processorExecutionStep, List<Instruction> instructions) {
+        if (processorExecutionStep.getProcessor() instanceof FusedProcessor) {
+            emit(instructions, new Instruction(FUSED, processorExecutionStep.getProcessorName(), processorExecutionStep.getProcessor(), null));
+            return;
+        }
+
+        int processIndex = instructions.size();
+        Instruction process = emit(instructions, new Instruction(processorExecutionStep.getProcessorName(), processorExecutionStep.getProcessor()));
+
+        List<ExecutionStep> onSuccess = processorExecutionStep.getOnSuccessExecutionSteps().orElse(null);
+        List<ExecutionStep> onFailure = processorExecutionStep.getOnFailureExecutionSteps().orElse(null);
+
+        compileSteps(onSuccess, instructions);
+
+        if (onFailure != null) {
+            Instruction skipOnFailure = emit(instructions, new Instruction(JUMP));
+            process.failureTarget = instructions.size();
+            compileSteps(onFailure, instructions);
+            skipOnFailure.target = instructions.size();
+        }
+
+        int end = instructions.size();
+        process.target = onSuccess != null ? processIndex + 1 : end;
+        process.nextTarget = end;
+    }
+
+    private static Instruction emit(List<Instruction> instructions, Instruction instruction) {
+        instructions.add(instruction);
+        return instruction;
+    }
+
+    private static boolean isEmpty(List<ExecutionStep> executionSteps) {
+        return executionSteps == null || executionSteps.isEmpty();
+    }
+
+    static final class Instruction {
+        final int opcode;
+        final String processorName;
+        final Processor processor;
+        final Condition condition;
+        /**
+         * PROCESS - next instruction on success, CONDITION - next instruction when false, JUMP - next instruction
+         */
+        int target = NO_TARGET;
+        /**
+         * PROCESS - next instruction on failure when there are on failure steps
+         */
+        int failureTarget = NO_TARGET;
+        /**
+         * PROCESS - next instruction on failure without on failure steps, when the pipeline does not stop on failure
+         */
+        int nextTarget = NO_TARGET;
+
+        private Instruction(int opcode) {
+            this(opcode, null, null, null);
+        }
+
+        private Instruction(int opcode, Condition condition) {
+            this(opcode, null, null, condition);
+        }
+
+        private Instruction(String processorName, Processor processor) {
+            this(PROCESS, processorName, processor, null);
+        }
+
+        private Instruction(int opcode, String processorName, Processor processor, Condition condition) {
+            this.opcode = opcode;
+            this.processorName = processorName;
+            this.processor = processor;
+            this.condition = condition;
+        }
+
+        boolean hasFailureTarget() {
+            return failureTarget != NO_TARGET;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package io.logz.sawmill;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rewrites execution steps into equivalent steps that are cheaper to execute, used to build the execution plan of a {@link Pipeline}.
+ * Runs of adjacent steps of {@link Processor#isFusible() fusible} processors without on success or on failure steps
+ * are fused into a single {@link FusedProcessor} step, saving the per step clock reads of every processor in the run.
+ * Metrics are still reported for each processor.
+ */
+final class ExecutionStepsOptimizer {
+
+    private ExecutionStepsOptimizer() {}
+
+    static List<ExecutionStep> optimize(List<ExecutionStep> executionSteps) {
+        if (executionSteps == null) {
+            return null;
+        }
+
+        List<ExecutionStep> optimizedSteps = new ArrayList<>(executionSteps.size());
+        List<ProcessorExecutionStep> fusibleSteps = new ArrayList<>();
+        for (ExecutionStep executionStep : executionSteps) {
+            if (isFusible(executionStep)) {
+                fusibleSteps.add((ProcessorExecutionStep) executionStep);
+                continue;
+            }
+
+            addFused(fusibleSteps, optimizedSteps);
+            optimizedSteps.add(optimize(executionStep));
+        }
+        addFused(fusibleSteps, optimizedSteps);
+
+        return optimizedSteps;
+    }
+
+    private static ExecutionStep optimize(ExecutionStep executionStep) {
+        if (executionStep instanceof ConditionalExecutionStep) {
+            ConditionalExecutionStep conditionalExecutionStep = (ConditionalExecutionStep) executionStep;
+            return new ConditionalExecutionStep(conditionalExecutionStep.getCondition(),
+                    optimize(conditionalExecutionStep.getOnTrue()),
+                    optimize(conditionalExecutionStep.getOnFalse()));
+        } else if (executionStep instanceof ProcessorExecutionStep) {
+            ProcessorExecutionStep processorExecutionStep = (ProcessorExecutionStep) executionStep;
+            if (!processorExecutionStep.getOnFailureExecutionSteps().isPresent() && !processorExecutionStep.getOnSuccessExecutionSteps().isPresent()) {
+                return processorExecutionStep;
+            }
+            return new ProcessorExecutionStep(processorExecutionStep.getProcessorName(), processorExecutionStep.getProcessor(),
+                    optimize(processorExecutionStep.getOnFailureExecutionSteps().orElse(null)),
+                    optimize(processorExecutionStep.getOnSuccessExecutionSteps().orElse(null)));
+        }
+
+        return executionStep;
+    }
+
+    private static void addFused(List<ProcessorExecutionStep> fusibleSteps, List<ExecutionStep> optimizedSteps) {
+        if (fusibleSteps.size() == 1) {
+            optimizedSteps.add(fusibleSteps.get(0));
+        } else if (fusibleSteps.size() > 1) {
+            FusedProcessor fusedProcessor = new FusedProcessor(fusibleSteps);
+            optimizedSteps.add(new ProcessorExecutionStep(fusedProcessor.getName(), fusedProcessor));
+        }
+        fusibleSteps.clear();
+    }
+
+    private static boolean isFusible(ExecutionStep executionStep) {
+        if (!(executionStep instanceof ProcessorExecutionStep)) {
+            return false;
+        }
+
+        ProcessorExecutionStep processorExecutionStep = (ProcessorExecutionStep) executionStep;
+        return processorExecutionStep.getProcessor().isFusible() &&
+                !processorExecutionStep.getOnSuccessExecutionSteps().isPresent() &&
+                !processorExecutionStep.getOnFailureExecutionSteps().isPresent();
+    }
+}
@@ -0,0 +1,54 @@
+package io.logz.sawmill;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Statistics of an expression a processor tries in turn with others until one matches, such as a grok pattern.
+ * Attempts and matches are counted for every doc, the times are averaged over the timed attempts.
+ */
+public final class ExpressionStatistics {
+    private final String expression;
+    private final long attempts;
+    private final long matches;
+    private final long avgMatchTimeNs;
+    private final long avgMissTimeNs;
+
+    public ExpressionStatistics(String expression, long attempts, long matches, long avgMatchTimeNs, long avgMissTimeNs) {
+        this.expression = requireNonNull(expression, "expression cannot be null");
+        this.attempts = attempts;
+        this.matches = matches;
+        this.avgMatchTimeNs = avgMatchTimeNs;
+        this.avgMissTimeNs = avgMissTimeNs;
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    public long getAttempts() {
+        return attempts;
+    }
+
+    public long getMatches() {
+        return matches;
+    }
+
+    public long getAvgMatchTimeNs() {
+        return avgMatchTimeNs;
+    }
+
+    public long getAvgMissTimeNs() {
+        return avgMissTimeNs;
+    }
+
+    @Override
+    public String toString() {
+        return "ExpressionStatistics{" +
+                "expression='" + expression + '\'' +
+                ", attempts=" + attempts +
+                ", matches=" + matches +
+                ", avgMatchTimeNs=" + avgMatchTimeNs +
+                ", avgMissTimeNs=" + avgMissTimeNs +
+                '}';
+    }
+}
@@ -0,0 +1,84 @@
+package io.logz.sawmill;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A dotted field path (e.g. {@code "object.nested\.field"}) tokenized once, so it can be
+ * resolved against many docs without re-parsing.
+ * A backslash escapes the next character, which allows dots inside a single path element.
+ */
+public final class FieldPath {
+
+    private final String path;
+    private final String[] elements;
+
+    private FieldPath(String path, String[] elements) {
+        this.path = path;
+        this.elements = elements;
+    }
+
+    public static FieldPath of(String path) {
+        requireNonNull(path, "path cannot be null");
+        return new FieldPath(path, tokenize(path));
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    String[] getElements() {
+        return elements;
+    }
+
+    String getLeaf() {
+        return elements[elements.length - 1];
+    }
+
+    int depth() {
+        return elements.length;
+    }
+
+    private static String[] tokenize(String path) {
+        List<String> pathTokens = new ArrayList<>();
+        StringBuilder sb = new StringBuilder();
+        boolean inEscape = false;
+
+        for (int i = 0; i < path.length(); i++) {
+            char c = path.charAt(i);
+            if (inEscape) {
+                inEscape = false;
+                sb.append(c);
+            } else if (c == '\\') {
+                inEscape = true;
+            } else if (c == '.') {
+                pathTokens.add(sb.toString());
+                sb.setLength(0);
+            } else {
+                sb.append(c);
+            }
+        }
+        pathTokens.add(sb.toString());
+
+        return pathTokens.toArray(new String[0]);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return path.equals(((FieldPath) o).path);
+    }
+
+    @Override
+    public int hashCode() {
+        return path.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return path;
+    }
+}
@@ -1,49 +1,84 @@
 package io.logz.sawmill;
 
 import com.google.common.base.MoreObjects;
-import com.google.common.primitives.Doubles;
-import com.google.common.primitives.Longs;
+import io.logz.sawmill.utilities.FieldValueParsers;
 
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Converts field values by type, values of the target type and common number types take a fast path,
+ * other values convert from their string form.
+ */
 public enum FieldType {
     INT {
         @Override
         public Object convertFrom(Object value) {
-            return Longs.tryParse(String.valueOf(value));
+            return toLong(value);
+        }
+
+        @Override
+        public Object convertFrom(byte[] utf8, int start, int end) {
+            return FieldValueParsers.parseLong(utf8, start, end);
         }
     },
     LONG {
         @Override
         public Object convertFrom(Object value) {
-            return Longs.tryParse(String.valueOf(value));
+            return toLong(value);
+        }
+
+        @Override
+        public Object convertFrom(byte[] utf8, int start, int end) {
+            return FieldValueParsers.parseLong(utf8, start, end);
         }
     },
     FLOAT {
         @Override
         public Object convertFrom(Object value) {
-            return Doubles.tryParse(String.valueOf(value));
+            return toDouble(value);
+        }
+
+        @Override
+        public Object convertFrom(byte[] utf8, int start, int end) {
+            return FieldValueParsers.parseDouble(utf8, start, end);
         }
     },
     DOUBLE {
         @Override
         public Object convertFrom(Object value) {
-            return Doubles.tryParse(String.valueOf(value)); }
+            return toDouble(value);
+        }
+
+        @Override
+        public Object convertFrom(byte[] utf8, int start, int end) {
+            return FieldValueParsers.parseDouble(utf8, start, end);
+        }
     },
     STRING {
         @Override
         public Object convertFrom(Object value) {
-            return String.valueOf(value);
+            return value instanceof String ? value : String.valueOf(value);
         }
     },
     BOOLEAN {
         @Override
         public Object convertFrom(Object value) {
-            if (String.valueOf(value).matches("^(t|true|yes|y|1)$")) {
-                return true;
-            } else if (String.valueOf(value).matches("^(f|false|no|n|0)$")) {
-                return false;
-            } else {
-                return null;
+            if (value instanceof Boolean) {
+                return value;
+            }
+            if (value instanceof String) {
+                return FieldValueParsers.parseBoolean((String) value);
             }
+            if (isIntegral(value)) {
+                long longValue = ((Number) value).longValue();
+                return longValue == 1 ? Boolean.TRUE : longValue == 0 ? Boolean.FALSE : null;
+            }
+            return FieldValueParsers.parseBoolean(String.valueOf(value));
+        }
+
+        @Override
+        public Object convertFrom(byte[] utf8, int start, int end) {
+            return FieldValueParsers.parseBoolean(utf8, start, end);
         }
     };
 
@@ -65,4 +100,45 @@ public enum FieldType {
     public Object convertFrom(Object value, Object defaultValue) {
         return MoreObjects.firstNonNull(convertFrom(value), defaultValue);
     }
+
+    /**
+     * Converts a value from its UTF-8 bytes, such as a regex capture, without decoding it to a string first
+     */
+    public Object convertFrom(byte[] utf8, int start, int end) {
+        return convertFrom(new String(utf8, start, end - start, StandardCharsets.UTF_8));
+    }
+
+    private static Object toLong(Object value) {
+        if (value instanceof Long) {
+            return value;
+        }
+        if (value instanceof String) {
+            return FieldValueParsers.parseLong((String) value);
+        }
+        if (isIntegral(value)) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof Double || value instanceof Float || value instanceof Boolean) {
+            // their string forms never parse as a long
+            return null;
+        }
+        return FieldValueParsers.parseLong(String.valueOf(value));
+    }
+
+    private static Object toDouble(Object value) {
+        if (value instanceof Double) {
+            return value;
+        }
+        if (value instanceof String) {
+            return FieldValueParsers.parseDouble((String) value);
+        }
+        if (isIntegral(value)) {
+            return ((Number) value).doubleValue();
+        }
+        return FieldValueParsers.parseDouble(String.valueOf(value));
+    }
+
+    private static boolean isIntegral(Object value) {
+        return value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte;
+    }
 }
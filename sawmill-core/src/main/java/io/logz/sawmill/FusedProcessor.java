@@ -0,0 +1,69 @@
+package io.logz.sawmill;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Adjacent fusible processor steps executed as a single step, created by {@link ExecutionStepsOptimizer}.
+ * The {@link PipelineExecutor} runs the processors one after the other and reports each of them under its own name,
+ * failures exactly as separate steps would, successes with an equal share of the time the fused step took.
+ */
+final class FusedProcessor implements Processor {
+    private final Processor[] processors;
+    private final String[] processorNames;
+
+    FusedProcessor(List<ProcessorExecutionStep> executionSteps) {
+        checkArgument(executionSteps.size() > 1, "cannot fuse less than 2 steps");
+
+        this.processors = new Processor[executionSteps.size()];
+        this.processorNames = new String[executionSteps.size()];
+        for (int i = 0; i < executionSteps.size(); i++) {
+            ProcessorExecutionStep executionStep = executionSteps.get(i);
+            checkArgument(!executionStep.getOnSuccessExecutionSteps().isPresent() && !executionStep.getOnFailureExecutionSteps().isPresent(),
+                    "cannot fuse step %s, it has on success or on failure steps", executionStep.getProcessorName());
+            processors[i] = executionStep.getProcessor();
+            processorNames[i] = executionStep.getProcessorName();
+        }
+    }
+
+    int size() {
+        return processors.length;
+    }
+
+    Processor getProcessor(int index) {
+        return processors[index];
+    }
+
+    String getProcessorName(int index) {
+        return processorNames[index];
+    }
+
+    String getName() {
+        return String.join(",", processorNames);
+    }
+
+    List<ExecutionStep> toExecutionSteps() {
+        List<ExecutionStep> executionSteps = new ArrayList<>(processors.length);
+        for (int i = 0; i < processors.length; i++) {
+            executionSteps.add(new ProcessorExecutionStep(processorNames[i], processors[i]));
+        }
+        return executionSteps;
+    }
+
+    /**
+     * Runs the processors until the first one that does not succeed.
+     * Only used when executed outside of the {@link PipelineExecutor}, which reports the processors separately.
+     */
+    @Override
+    public ProcessResult process(Doc doc) throws InterruptedException {
+        for (Processor processor : processors) {
+            ProcessResult processResult = processor.process(doc);
+            if (!processResult.isSucceeded()) {
+                return processResult;
+            }
+        }
+        return ProcessResult.success();
+    }
+}
@@ -0,0 +1,293 @@
+package io.logz.sawmill;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.logz.sawmill.utilities.JsonMapReader;
+import io.logz.sawmill.utilities.JsonUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.AbstractMap;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A doc source over the original json bytes. Indexing records where each top level field lies in the bytes,
+ * a field value is deserialized the first time it is accessed, and fields never accessed are written back verbatim.
+ * Values are the same as {@link JsonUtils#fromJsonString(Class, String)} would deserialize.
+ */
+final class JsonSource extends AbstractMap<String, Object> {
+    private final byte[] json;
+
+    /**
+     * Values are either {@link RawField} or deserialized values
+     */
+    private final Map<String, Object> fields = new LinkedHashMap<>();
+
+    private JsonSource(byte[] json) {
+        this.json = json;
+    }
+
+    /**
+     * @throws RuntimeException if the json is not an object or is malformed
+     */
+    static JsonSource index(byte[] json) {
+        JsonSource source = new JsonSource(json);
+        try (JsonParser parser = JsonUtils.createParser(json, 0, json.length)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new RuntimeException("json is not an object");
+            }
+            source.indexFields(parser);
+        } catch (IOException e) {
+            throw new RuntimeException("failed to index json", e);
+        }
+        return source;
+    }
+
+    private void indexFields(JsonParser parser) throws IOException {
+        RawField pending = null;
+        JsonToken token;
+        while ((token = parser.nextToken()) != null) {
+            int tokenStart = (int) parser.getTokenLocation().getByteOffset();
+            if (pending != null) {
+                // a field ends where the next token starts, less the separator
+                pending.end = trimSeparator(tokenStart);
+                pending = null;
+            }
+            if (token == JsonToken.END_OBJECT) {
+                return;
+            }
+
+            String key = parser.getCurrentName();
+            JsonToken valueToken = parser.nextToken();
+            if (valueToken == JsonToken.VALUE_NULL) {
+                fields.put(key, null);
+                continue;
+            }
+
+            pending = new RawField(tokenStart, (int) parser.getTokenLocation().getByteOffset());
+            fields.put(key, pending);
+            parser.skipChildren();
+        }
+        throw new IOException("unexpected end of json");
+    }
+
+    private int trimSeparator(int end) {
+        while (isWhitespace(json[end - 1])) {
+            end--;
+        }
+        if (json[end - 1] == ',') {
+            end--;
+        }
+        while (isWhitespace(json[end - 1])) {
+            end--;
+        }
+        return end;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+    }
+
+    /**
+     * Writes the source as json, fields never accessed are copied from the original bytes,
+     * together with the separators between them when they are adjacent there
+     */
+    void writeTo(OutputStream stream) throws IOException {
+        try (JsonGenerator generator = JsonUtils.createGenerator(stream)) {
+            stream.write('{');
+            boolean first = true;
+            int runStart = -1;
+            int runEnd = -1;
+            for (Map.Entry<String, Object> field : fields.entrySet()) {
+                Object value = field.getValue();
+                if (value == null) {
+                    continue;
+                }
+
+                if (value instanceof RawField) {
+                    RawField rawField = (RawField) value;
+                    if (runStart >= 0 && isSeparator(runEnd, rawField.start)) {
+                        runEnd = rawField.end;
+                        continue;
+                    }
+                    if (runStart >= 0) {
+                        stream.write(json, runStart, runEnd - runStart);
+                    }
+                    if (!first) {
+                        stream.write(',');
+                    }
+                    runStart = rawField.start;
+                    runEnd = rawField.end;
+                } else {
+                    if (runStart >= 0) {
+                        stream.write(json, runStart, runEnd - runStart);
+                        runStart = -1;
+                    }
+                    if (!first) {
+                        stream.write(',');
+                    }
+                    // the generator buffers, so it is flushed before the stream is written to directly
+                    generator.writeString(field.getKey());
+                    generator.flush();
+                    stream.write(':');
+                    generator.writeObject(value);
+                    generator.flush();
+                }
+                first = false;
+            }
+            if (runStart >= 0) {
+                stream.write(json, runStart, runEnd - runStart);
+            }
+            stream.write('}');
+        }
+    }
+
+    /**
+     * @return whether only whitespace and a single comma lie between the positions
+     */
+    private boolean isSeparator(int from, int to) {
+        boolean comma = false;
+        for (int i = from; i < to; i++) {
+            if (json[i] == ',' && !comma) {
+                comma = true;
+            } else if (!isWhitespace(json[i])) {
+                return false;
+            }
+        }
+        return comma;
+    }
+
+    /**
+     * @return the length of the original json, an estimate of the written one
+     */
+    int length() {
+        return json.length;
+    }
+
+    @Override
+    public Object get(Object key) {
+        Object value = fields.get(key);
+        if (!(value instanceof RawField)) {
+            return value;
+        }
+
+        Object deserialized = ((RawField) value).deserialize(json);
+        fields.put((String) key, deserialized);
+        return deserialized;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return fields.containsKey(key);
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        return deserialized(fields.put(key, value));
+    }
+
+    @Override
+    public Object remove(Object key) {
+        return deserialized(fields.remove(key));
+    }
+
+    private Object deserialized(Object value) {
+        return value instanceof RawField ? ((RawField) value).deserialize(json) : value;
+    }
+
+    /**
+     * Removes the field unless it is missing or null, without deserializing it
+     *
+     * @return whether the field was removed
+     */
+    boolean delete(String key) {
+        if (fields.get(key) == null) {
+            return false;
+        }
+
+        fields.remove(key);
+        return true;
+    }
+
+    /**
+     * Replaces the value of the field unless it is missing or null, without deserializing it,
+     * the field is re-inserted as the last key
+     *
+     * @return whether the field was replaced
+     */
+    boolean replaceValue(String key, Object value) {
+        if (!delete(key)) {
+            return false;
+        }
+
+        fields.put(key, value);
+        return true;
+    }
+
+    /**
+     * Adds the field if it is missing or null, without deserializing it otherwise
+     *
+     * @return whether the field was added
+     */
+    boolean addIfAbsent(String key, Object value) {
+        if (fields.get(key) != null) {
+            return false;
+        }
+
+        fields.put(key, value);
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return fields.size();
+    }
+
+    @Override
+    public void clear() {
+        fields.clear();
+    }
+
+    @Override
+    public Set<String> keySet() {
+        return fields.keySet();
+    }
+
+    @Override
+    public Collection<Object> values() {
+        deserializeAll();
+        return fields.values();
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        deserializeAll();
+        return fields.entrySet();
+    }
+
+    private void deserializeAll() {
+        fields.replaceAll((key, value) -> deserialized(value));
+    }
+
+    /**
+     * Where a field lies in the json, from its key to the end of its value
+     */
+    private static final class RawField {
+        private final int start;
+        private final int valueStart;
+        private int end;
+
+        private RawField(int start, int valueStart) {
+            this.start = start;
+            this.valueStart = valueStart;
+        }
+
+        private Object deserialize(byte[] json) {
+            return JsonMapReader.UNLIMITED.readValue(json, valueStart, end - valueStart);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package io.logz.sawmill;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Records latency distributions per pipeline and per processor of a pipeline, over a rolling time window.
+ * The window is made of two halves, a snapshot covers the previous half and the current one,
+ * so it reflects between half a window and a full window of the most recent executions.
+ * The number of recorded pipelines and processors is bounded, latencies of those beyond the bound are recorded together,
+ * see {@link #getOverflowSnapshot()}.
+ */
+public class LatencyRecorder {
+    public static final int DEFAULT_MAX_KEYS = 1000;
+    public static final long DEFAULT_WINDOW_MS = TimeUnit.MINUTES.toMillis(1);
+
+    private final int maxKeys;
+    private final long halfWindowMs;
+    private final LongSupplier clock;
+    private final AtomicInteger keysCount = new AtomicInteger();
+    private final ConcurrentMap<String, RollingHistogram> pipelines = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ConcurrentMap<String, RollingHistogram>> processors = new ConcurrentHashMap<>();
+    private final RollingHistogram overflow;
+
+    public LatencyRecorder() {
+        this(DEFAULT_MAX_KEYS, DEFAULT_WINDOW_MS);
+    }
+
+    /**
+     * @param maxKeys maximum number of pipelines and processors recorded separately
+     * @param windowMs time window of the snapshots
+     */
+    public LatencyRecorder(int maxKeys, long windowMs) {
+        this(maxKeys, windowMs, System::currentTimeMillis);
+    }
+
+    LatencyRecorder(int maxKeys, long windowMs, LongSupplier clock) {
+        checkArgument(maxKeys > 0, "max keys must be positive");
+        checkArgument(windowMs > 1, "window must be longer than 1ms");
+
+        this.maxKeys = maxKeys;
+        this.halfWindowMs = windowMs / 2;
+        this.clock = clock;
+        this.overflow = new RollingHistogram();
+    }
+
+    public void recordPipeline(String pipelineId, long timeTookNs) {
+        RollingHistogram histogram = pipelines.get(pipelineId);
+        if (histogram == null) {
+            histogram = createIfBelowMaxKeys(pipelines, pipelineId);
+        }
+        histogram.record(timeTookNs, 1, epoch());
+    }
+
+    public void recordProcessor(String pipelineId, String processorName, long timeTookNs) {
+        recordProcessor(pipelineId, processorName, timeTookNs, 1);
+    }
+
+    /**
+     * @param count number of executions that took the given time
+     */
+    public void recordProcessor(String pipelineId, String processorName, long timeTookNs, long count) {
+        ConcurrentMap<String, RollingHistogram> pipelineProcessors = processors.get(pipelineId);
+        if (pipelineProcessors == null) {
+            if (keysCount.get() >= maxKeys) {
+                overflow.record(timeTookNs, count, epoch());
+                return;
+            }
+            pipelineProcessors = processors.computeIfAbsent(pipelineId, k -> new ConcurrentHashMap<>());
+        }
+
+        RollingHistogram histogram = pipelineProcessors.get(processorName);
+        if (histogram == null) {
+            histogram = createIfBelowMaxKeys(pipelineProcessors, processorName);
+        }
+        histogram.record(timeTookNs, count, epoch());
+    }
+
+    public Optional<LatencySnapshot> getPipelineSnapshot(String pipelineId) {
+        return Optional.ofNullable(pipelines.get(pipelineId)).map(histogram -> histogram.snapshot(epoch()));
+    }
+
+    public Optional<LatencySnapshot> getProcessorSnapshot(String pipelineId, String processorName) {
+        return Optional.ofNullable(processors.get(pipelineId))
+                .map(pipelineProcessors -> pipelineProcessors.get(processorName))
+                .map(histogram -> histogram.snapshot(epoch()));
+    }
+
+    /**
+     * @return latencies of all the pipelines and processors recorded beyond the max keys
+     */
+    public LatencySnapshot getOverflowSnapshot() {
+        return overflow.snapshot(epoch());
+    }
+
+    private RollingHistogram createIfBelowMaxKeys(ConcurrentMap<String, RollingHistogram> histograms, String key) {
+        if (keysCount.get() >= maxKeys) {
+            RollingHistogram histogram = histograms.get(key);
+            return histogram != null ? histogram : overflow;
+        }
+
+        return histograms.computeIfAbsent(key, k -> {
+            keysCount.incrementAndGet();
+            return new RollingHistogram();
+        });
+    }
+
+    private long epoch() {
+        return clock.getAsLong() / halfWindowMs;
+    }
+
+    /**
+     * Two histograms alternating by epoch, each epoch is half a window.
+     * Values recorded while a histogram is being reset for a new epoch might get lost, an acceptable inaccuracy for metrics.
+     */
+    private static class RollingHistogram {
+        private final LatencyHistogram[] halves = {new LatencyHistogram(), new LatencyHistogram()};
+        private volatile long epoch;
+
+        private void record(long valueNs, long count, long currentEpoch) {
+            rollTo(currentEpoch);
+            halves[(int) (currentEpoch & 1)].record(valueNs, count);
+        }
+
+        private LatencySnapshot snapshot(long currentEpoch) {
+            rollTo(currentEpoch);
+            return new LatencySnapshot.Builder().add(halves[0]).add(halves[1]).build();
+        }
+
+        private void rollTo(long currentEpoch) {
+            if (currentEpoch <= epoch) {
+                return;
+            }
+
+            synchronized (this) {
+                long lastEpoch = epoch;
+                if (currentEpoch <= lastEpoch) {
+                    return;
+                }
+
+                halves[(int) (currentEpoch & 1)].reset();
+                if (currentEpoch - lastEpoch > 1) {
+                    halves[(int) ((currentEpoch - 1) & 1)].reset();
+                }
+                epoch = currentEpoch;
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package io.logz.sawmill;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Latency distribution recorded by a {@link LatencyRecorder} over its window, all values are in nanoseconds.
+ * Percentiles are the highest value of the bucket they fall in, so they are never lower than the actual latency.
+ */
+public final class LatencySnapshot {
+    private final long[] counts;
+    private final long count;
+    private final long total;
+    private final long min;
+    private final long max;
+
+    private LatencySnapshot(long[] counts, long total, long min, long max) {
+        long count = 0;
+        for (long bucketCount : counts) {
+            count += bucketCount;
+        }
+
+        this.counts = counts;
+        this.count = count;
+        this.total = total;
+        this.min = count == 0 ? 0 : min;
+        this.max = max;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMin() {
+        return min;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        return count == 0 ? 0 : (double) total / count;
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     */
+    public long getValueAtPercentile(double percentile) {
+        checkArgument(percentile >= 0 && percentile <= 100, "percentile must be between 0 and 100");
+        if (count == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) {
+                return Math.min(LatencyHistogram.highestValue(bucket), max);
+            }
+        }
+        return max;
+    }
+
+    public long getMedian() {
+        return getValueAtPercentile(50);
+    }
+
+    public long get99thPercentile() {
+        return getValueAtPercentile(99);
+    }
+
+    public long get999thPercentile() {
+        return getValueAtPercentile(99.9);
+    }
+
+    static final class Builder {
+        private final long[] counts = new long[LatencyHistogram.BUCKETS];
+        private long total;
+        private long min = Long.MAX_VALUE;
+        private long max;
+
+        Builder add(LatencyHistogram histogram) {
+            histogram.addTo(counts, this);
+            return this;
+        }
+
+        Builder addTotal(long total) {
+            this.total += total;
+            return this;
+        }
+
+        Builder addMin(long min) {
+            this.min = Math.min(this.min, min);
+            return this;
+        }
+
+        Builder addMax(long max) {
+            this.max = Math.max(this.max, max);
+            return this;
+        }
+
+        LatencySnapshot build() {
+            return new LatencySnapshot(counts, total, min, max);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package io.logz.sawmill;
+
+import io.logz.sawmill.exceptions.PipelineExecutionException;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Executes a single batch of docs across multiple threads and returns the results in input order.
+ * The batch is split into chunks, each chunk runs through {@link PipelineExecutor#executeBatch(Pipeline, List)}
+ * on a long lived worker thread, so thread local providers (user agent parser, math expression, xpath)
+ * stay warm between batches.
+ */
+public class ParallelPipelineExecutor implements Closeable {
+    public static final int DEFAULT_MIN_DOCS_PER_TASK = 64;
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private final PipelineExecutor pipelineExecutor;
+    private final Executor executor;
+    private final int parallelism;
+    private final int minDocsPerTask;
+    private final boolean ownsExecutor;
+
+    public ParallelPipelineExecutor(PipelineExecutor pipelineExecutor) {
+        this(pipelineExecutor, Runtime.getRuntime().availableProcessors());
+    }
+
+    public ParallelPipelineExecutor(PipelineExecutor pipelineExecutor, int parallelism) {
+        this(pipelineExecutor, new ForkJoinPool(parallelism), parallelism, DEFAULT_MIN_DOCS_PER_TASK, true);
+    }
+
+    /**
+     * @param executor caller supplied executor, it is not shut down on {@link #close()}
+     * @param parallelism number of threads of the executor that may be used by a single batch
+     */
+    public ParallelPipelineExecutor(PipelineExecutor pipelineExecutor, Executor executor, int parallelism, int minDocsPerTask) {
+        this(pipelineExecutor, executor, parallelism, minDocsPerTask, false);
+    }
+
+    private ParallelPipelineExecutor(PipelineExecutor pipelineExecutor, Executor executor, int parallelism, int minDocsPerTask, boolean ownsExecutor) {
+        checkArgument(parallelism > 0, "parallelism must be positive");
+        checkArgument(minDocsPerTask > 0, "minDocsPerTask must be positive");
+        this.pipelineExecutor = requireNonNull(pipelineExecutor, "pipeline executor cannot be null");
+        this.executor = requireNonNull(executor, "executor cannot be null");
+        this.parallelism = parallelism;
+        this.minDocsPerTask = minDocsPerTask;
+        this.ownsExecutor = ownsExecutor;
+    }
+
+    /**
+     * Executes the pipeline on all docs, blocking until the whole batch is done.
+     * The last chunk runs on the calling thread.
+     *
+     * @return execution results in the same order as the docs
+     * @throws PipelineExecutionException if any doc failed on unexpected error
+     */
+    public List<ExecutionResult> executeBatch(Pipeline pipeline, List<Doc> docs) {
+        int docsCount = docs.size();
+        int chunkSize = Math.max(minDocsPerTask, ceilDiv(docsCount, parallelism * CHUNKS_PER_THREAD));
+        if (docsCount <= chunkSize) {
+            return pipelineExecutor.executeBatch(pipeline, docs);
+        }
+
+        ExecutionResult[] executionResults = new ExecutionResult[docsCount];
+        List<CompletableFuture<Void>> chunks = new ArrayList<>();
+
+        int lastChunkStart = (ceilDiv(docsCount, chunkSize) - 1) * chunkSize;
+        for (int from = 0; from < lastChunkStart; from += chunkSize) {
+            int chunkStart = from;
+            int chunkEnd = from + chunkSize;
+            chunks.add(CompletableFuture.runAsync(() ->
+                    executeChunk(pipeline, docs, chunkStart, chunkEnd, executionResults), executor));
+        }
+
+        try {
+            executeChunk(pipeline, docs, lastChunkStart, docsCount, executionResults);
+        } finally {
+            awaitChunks(pipeline, chunks);
+        }
+
+        return Arrays.asList(executionResults);
+    }
+
+    private void awaitChunks(Pipeline pipeline, List<CompletableFuture<Void>> chunks) {
+        try {
+            CompletableFuture.allOf(chunks.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new PipelineExecutionException(pipeline.getId(), e);
+        }
+    }
+
+    private void executeChunk(Pipeline pipeline, List<Doc> docs, int from, int to, ExecutionResult[] executionResults) {
+        List<ExecutionResult> chunkResults = pipelineExecutor.executeBatch(pipeline, docs.subList(from, to));
+        for (int i = 0; i < chunkResults.size(); i++) {
+            executionResults[from + i] = chunkResults.get(i);
+        }
+    }
+
+    private static int ceilDiv(int x, int y) {
+        return (x + y - 1) / y;
+    }
+
+    /**
+     * Shuts down the executor only if it was created by this class, the underlying {@link PipelineExecutor} is not closed
+     */
+    @Override
+    public void close() {
+        if (!ownsExecutor) {
+            return;
+        }
+
+        ExecutorService executorService = (ExecutorService) executor;
+        try {
+            executorService.shutdown();
+            executorService.awaitTermination(1, TimeUnit.SECONDS);
+            executorService.shutdownNow();
+        } catch (InterruptedException e) {
+            Thread.interrupted();
+        }
+    }
+}
@@ -4,6 +4,8 @@ import io.logz.sawmill.parser.ExecutionStepsParser;
 import io.logz.sawmill.parser.PipelineDefinition;
 import io.logz.sawmill.parser.PipelineDefinitionJsonParser;
 import org.apache.commons.collections4.CollectionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.List;
 import java.util.Optional;
@@ -12,18 +14,58 @@ import java.util.UUID;
 import static com.google.common.base.Preconditions.checkState;
 
 public class Pipeline {
+    private static final Logger logger = LoggerFactory.getLogger(Pipeline.class);
 
     private final String id;
     private final List<ExecutionStep> executionSteps;
     private final boolean stopOnFailure;
+    private final ExecutionPlan executionPlan;
+    private final CompiledPipeline compiledPipeline;
 
     public Pipeline(String id, List<ExecutionStep> executionSteps, boolean stopOnFailure) {
+        this(id, executionSteps, stopOnFailure, false);
+    }
+
+    /**
+     * The steps are executed with adjacent fusible steps fused, see {@link ExecutionStepsOptimizer},
+     * {@link #getExecutionSteps()} still returns the given steps.
+     *
+     * @param compiled whether to generate a class for the pipeline, see {@link PipelineCompiler}.
+     *                 Falls back to the interpreted execution plan if the pipeline cannot be compiled
+     */
+    public Pipeline(String id, List<ExecutionStep> executionSteps, boolean stopOnFailure, boolean compiled) {
         checkState(!id.isEmpty(), "id cannot be empty");
         checkState(CollectionUtils.isNotEmpty(executionSteps), "executionSteps cannot be empty");
 
         this.id = id;
         this.executionSteps = executionSteps;
         this.stopOnFailure = stopOnFailure;
+
+        List<ExecutionStep> optimizedSteps = ExecutionStepsOptimizer.optimize(executionSteps);
+        this.executionPlan = ExecutionPlan.compile(optimizedSteps);
+        this.compiledPipeline = compiled ? compile(id, optimizedSteps) : null;
+    }
+
+    /**
+     * Creates a pipeline sharing the steps, execution plan and generated class of the given pipeline under another id
+     */
+    Pipeline(String id, Pipeline pipeline) {
+        checkState(!id.isEmpty(), "id cannot be empty");
+
+        this.id = id;
+        this.executionSteps = pipeline.executionSteps;
+        this.stopOnFailure = pipeline.stopOnFailure;
+        this.executionPlan = pipeline.executionPlan;
+        this.compiledPipeline = pipeline.compiledPipeline;
+    }
+
+    private static CompiledPipeline compile(String id, List<ExecutionStep> executionSteps) {
+        try {
+            return PipelineCompiler.compile(executionSteps);
+        } catch (IllegalStateException e) {
+            logger.warn("failed to compile pipeline {}, falling back to interpreted execution", id, e);
+            return null;
+        }
     }
 
     public String getId() { return id; }
@@ -34,9 +76,22 @@ public class Pipeline {
         return stopOnFailure;
     }
 
+    ExecutionPlan getExecutionPlan() {
+        return executionPlan;
+    }
+
+    public boolean isCompiled() {
+        return compiledPipeline != null;
+    }
+
+    CompiledPipeline getCompiledPipeline() {
+        return compiledPipeline;
+    }
+
     public static final class Factory {
 
         private final ExecutionStepsParser executionStepsParser;
+        private final boolean compiled;
 
         public Factory(SawmillConfiguration... sawmillConfigurations) {
             this(
@@ -47,7 +102,19 @@ public class Pipeline {
         public Factory(ProcessorFactoryRegistry processorFactoryRegistry,
                        ConditionFactoryRegistry conditionFactoryRegistry) {
 
-            executionStepsParser = new ExecutionStepsParser(processorFactoryRegistry, conditionFactoryRegistry);
+            this(new ExecutionStepsParser(processorFactoryRegistry, conditionFactoryRegistry), false);
+        }
+
+        private Factory(ExecutionStepsParser executionStepsParser, boolean compiled) {
+            this.executionStepsParser = executionStepsParser;
+            this.compiled = compiled;
+        }
+
+        /**
+         * @return a factory creating pipelines executed by a generated class rather than interpreted, see {@link PipelineCompiler}
+         */
+        public Factory compiled() {
+            return new Factory(executionStepsParser, true);
         }
 
         public Pipeline create(String config) {
@@ -65,7 +132,7 @@ public class Pipeline {
             Optional<Boolean> stopOnFailureNullable = pipelineDefinition.isStopOnFailure();
             boolean stopOnFailure = stopOnFailureNullable.orElse(false);
 
-            return new Pipeline(id, executionSteps, stopOnFailure);
+            return new Pipeline(id, executionSteps, stopOnFailure, compiled);
         }
     }
 }
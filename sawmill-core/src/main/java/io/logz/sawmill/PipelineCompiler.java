@@ -0,0 +1,188 @@
+package io.logz.sawmill;
+
+import javassist.CannotCompileException;
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtField;
+import javassist.CtNewConstructor;
+import javassist.CtNewMethod;
+import javassist.LoaderClassPath;
+import javassist.NotFoundException;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates a class per pipeline that calls its processors and conditions directly, one call site per step,
+ * so the JIT can inline each processor into the pipeline code.
+ * The class is defined as a hidden class when the JVM supports it, otherwise by a class loader of its own,
+ * either way it is unloaded together with the pipeline.
+ */
+final class PipelineCompiler {
+    private static final String GENERATED_CLASS_PREFIX = CompiledPipeline.class.getName() + "$Generated";
+    private static final String EXECUTION_RESULT = ExecutionResult.class.getName();
+    // keeps the generated method within the 16 bit branch offsets javassist emits, roughly 32KB of bytecode
+    static final int MAX_COMPILED_STEPS = 256;
+    private static final AtomicLong classCounter = new AtomicLong();
+    private static final Method DEFINE_HIDDEN_CLASS = findDefineHiddenClass();
+
+    private PipelineCompiler() {}
+
+    /**
+     * @throws IllegalStateException if the class could not be generated, or the pipeline has more than {@link #MAX_COMPILED_STEPS} steps
+     */
+    static CompiledPipeline compile(List<ExecutionStep> executionSteps) {
+        return compile(executionSteps, DEFINE_HIDDEN_CLASS != null);
+    }
+
+    static CompiledPipeline compile(List<ExecutionStep> executionSteps, boolean hiddenClass) {
+        List<Processor> processors = new ArrayList<>();
+        List<String> processorNames = new ArrayList<>();
+        List<Condition> conditions = new ArrayList<>();
+
+        StringBuilder body = new StringBuilder()
+                .append("public ").append(EXECUTION_RESULT).append(" execute(")
+                .append(Doc.class.getName()).append(" doc, ")
+                .append(CompiledPipeline.StepListener.class.getName().replace('$', '.')).append(" listener) {\n")
+                .append(ProcessResult.class.getName()).append(" r;\n")
+                .append(EXECUTION_RESULT).append(" failed;\n");
+        generateSteps(executionSteps, body, processors, processorNames, conditions);
+        body.append("return ").append(EXECUTION_RESULT).append(".success();\n}");
+
+        int stepsCount = processors.size() + conditions.size();
+        if (stepsCount > MAX_COMPILED_STEPS) {
+            throw new IllegalStateException("pipeline has " + stepsCount + " steps, more than " + MAX_COMPILED_STEPS + " steps cannot be compiled");
+        }
+
+        try {
+            byte[] bytecode = generateClass(body.toString(), processors.size(), conditions.size());
+            Class<?> compiledClass = hiddenClass ? defineHiddenClass(bytecode) : defineWithClassLoader(bytecode);
+            Constructor<?> constructor = compiledClass.getConstructor(Processor[].class, Condition[].class, String[].class);
+            return (CompiledPipeline) constructor.newInstance(
+                    processors.toArray(new Processor[0]),
+                    conditions.toArray(new Condition[0]),
+                    processorNames.toArray(new String[0]));
+        } catch (ReflectiveOperationException | CannotCompileException | NotFoundException | IOException | RuntimeException e) {
+            throw new IllegalStateException("failed to compile pipeline", e);
+        }
+    }
+
+    private static void generateSteps(List<ExecutionStep> executionSteps, StringBuilder body, List<Processor> processors,
+                                      List<String> processorNames, List<Condition> conditions) {
+        if (executionSteps == null) {
+            return;
+        }
+
+        for (ExecutionStep executionStep : executionSteps) {
+            if (executionStep instanceof ConditionalExecutionStep) {
+                ConditionalExecutionStep conditionalExecutionStep = (ConditionalExecutionStep) executionStep;
+                int index = conditions.size();
+                conditions.add(conditionalExecutionStep.getCondition());
+
+                body.append("if (this.c").append(index).append(".evaluate(doc)) {\n");
+                generateSteps(conditionalExecutionStep.getOnTrue(), body, processors, processorNames, conditions);
+                body.append("} else {\n");
+                generateSteps(conditionalExecutionStep.getOnFalse(), body, processors, processorNames, conditions);
+                body.append("}\n");
+            } else if (executionStep instanceof ProcessorExecutionStep && ((ProcessorExecutionStep) executionStep).getProcessor() instanceof FusedProcessor) {
+                // every processor gets its own call site anyway, so fused steps are compiled back into separate steps
+                FusedProcessor fusedProcessor = (FusedProcessor) ((ProcessorExecutionStep) executionStep).getProcessor();
+                generateSteps(fusedProcessor.toExecutionSteps(), body, processors, processorNames, conditions);
+            } else if (executionStep instanceof ProcessorExecutionStep) {
+                ProcessorExecutionStep processorExecutionStep = (ProcessorExecutionStep) executionStep;
+                int index = processors.size();
+                processors.add(processorExecutionStep.getProcessor());
+                processorNames.add(processorExecutionStep.getProcessorName());
+
+                body.append("listener.processorStarted();\n")
+                        .append("r = this.p").append(index).append(".process(doc);\n")
+                        .append("if (r.isSucceeded()) {\n")
+                        .append("listener.processorSucceeded(").append(index).append(");\n");
+                generateSteps(processorExecutionStep.getOnSuccessExecutionSteps().orElse(null), body, processors, processorNames, conditions);
+                body.append("} else if (r.isDropped()) {\n")
+                        .append("return ").append(EXECUTION_RESULT).append(".dropped();\n")
+                        .append("} else {\n")
+                        .append("if (r.isBudgetExceeded()) listener.processorBudgetExceeded(").append(index).append(");\n");
+                if (processorExecutionStep.getOnFailureExecutionSteps().isPresent()) {
+                    generateSteps(processorExecutionStep.getOnFailureExecutionSteps().get(), body, processors, processorNames, conditions);
+                } else {
+                    body.append("failed = listener.processorFailed(").append(index).append(", r);\n")
+                            .append("if (failed != null) return failed;\n");
+                }
+                body.append("}\n");
+            } else {
+                throw new RuntimeException("Unsupported execution step " + executionStep.getClass());
+            }
+        }
+    }
+
+    private static byte[] generateClass(String executeMethod, int processorsCount, int conditionsCount) throws CannotCompileException, NotFoundException, IOException {
+        ClassPool classPool = new ClassPool(true);
+        classPool.appendClassPath(new LoaderClassPath(CompiledPipeline.class.getClassLoader()));
+
+        CtClass ctClass = classPool.makeClass(GENERATED_CLASS_PREFIX + classCounter.incrementAndGet());
+        ctClass.setSuperclass(classPool.get(CompiledPipeline.class.getName()));
+
+        StringBuilder constructor = new StringBuilder("public ").append(ctClass.getSimpleName()).append("(")
+                .append(Processor.class.getName()).append("[] processors, ")
+                .append(Condition.class.getName()).append("[] conditions, String[] processorNames) {\n")
+                .append("super(processorNames);\n");
+        for (int i = 0; i < processorsCount; i++) {
+            ctClass.addField(CtField.make("private final " + Processor.class.getName() + " p" + i + ";", ctClass));
+            constructor.append("this.p").append(i).append(" = processors[").append(i).append("];\n");
+        }
+        for (int i = 0; i < conditionsCount; i++) {
+            ctClass.addField(CtField.make("private final " + Condition.class.getName() + " c" + i + ";", ctClass));
+            constructor.append("this.c").append(i).append(" = conditions[").append(i).append("];\n");
+        }
+        constructor.append("}");
+
+        ctClass.addConstructor(CtNewConstructor.make(constructor.toString(), ctClass));
+        ctClass.addMethod(CtNewMethod.make(executeMethod, ctClass));
+
+        byte[] bytecode = ctClass.toBytecode();
+        ctClass.detach();
+        return bytecode;
+    }
+
+    private static Class<?> defineHiddenClass(byte[] bytecode) throws ReflectiveOperationException {
+        try {
+            Object classOptions = Array.newInstance(DEFINE_HIDDEN_CLASS.getParameterTypes()[2].getComponentType(), 0);
+            MethodHandles.Lookup lookup = (MethodHandles.Lookup) DEFINE_HIDDEN_CLASS.invoke(MethodHandles.lookup(), bytecode, false, classOptions);
+            return lookup.lookupClass();
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException("failed to define hidden class", e.getCause());
+        }
+    }
+
+    private static Class<?> defineWithClassLoader(byte[] bytecode) {
+        return new GeneratedClassLoader(CompiledPipeline.class.getClassLoader()).define(bytecode);
+    }
+
+    private static Method findDefineHiddenClass() {
+        try {
+            Class<?> classOption = Class.forName("java.lang.invoke.MethodHandles$Lookup$ClassOption");
+            Class<?> classOptions = Array.newInstance(classOption, 0).getClass();
+            return MethodHandles.Lookup.class.getMethod("defineHiddenClass", byte[].class, boolean.class, classOptions);
+        } catch (ClassNotFoundException | NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static class GeneratedClassLoader extends ClassLoader {
+        private GeneratedClassLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        private Class<?> define(byte[] bytecode) {
+            return defineClass(null, bytecode, 0, bytecode.length);
+        }
+    }
+}
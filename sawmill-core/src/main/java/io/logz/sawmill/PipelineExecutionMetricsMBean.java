@@ -2,8 +2,12 @@ package io.logz.sawmill;
 
 import org.weakref.jmx.Managed;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAccumulator;
 import java.util.concurrent.atomic.LongAdder;
 
 public class PipelineExecutionMetricsMBean implements PipelineExecutionMetricsTracker {
@@ -14,6 +18,24 @@ public class PipelineExecutionMetricsMBean implements PipelineExecutionMetricsTr
     private final LongAdder dropped = new LongAdder();
     private final LongAdder expired = new LongAdder();
     private final ConcurrentMap<String, ProcessorMetrics> processorsMetrics = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ConcurrentMap<String, List<ExpressionStatistics>>> expressionsStatistics = new ConcurrentHashMap<>();
+    private final LatencyRecorder latencyRecorder;
+
+    public PipelineExecutionMetricsMBean() {
+        this(new LatencyRecorder());
+    }
+
+    public PipelineExecutionMetricsMBean(LatencyRecorder latencyRecorder) {
+        this.latencyRecorder = latencyRecorder;
+    }
+
+    /**
+     * @return latency distributions per pipeline and per processor of a pipeline, unlike the processor getters of this class
+     * which are keyed by the processor name alone
+     */
+    public LatencyRecorder getLatencyRecorder() {
+        return latencyRecorder;
+    }
 
     @Managed
     public long getTotalDocsProcessed() {
@@ -69,14 +91,54 @@ public class PipelineExecutionMetricsMBean implements PipelineExecutionMetricsTr
         return processorsMetrics.get(processorName).getFailed();
     }
 
+    @Managed
+    public long getBudgetExceededCount(String processorName) {
+        return processorsMetrics.get(processorName).getBudgetExceeded();
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return the pipeline latency at the percentile over the recorder window in nanoseconds, 0 if the pipeline was not recorded
+     */
+    @Managed
+    public long getPipelineLatencyPercentile(String pipelineId, double percentile) {
+        return latencyRecorder.getPipelineSnapshot(pipelineId).map(snapshot -> snapshot.getValueAtPercentile(percentile)).orElse(0L);
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return the processor latency at the percentile over the recorder window in nanoseconds, 0 if the processor was not recorded
+     */
+    @Managed
+    public long getProcessorLatencyPercentile(String pipelineId, String processorName, double percentile) {
+        return latencyRecorder.getProcessorSnapshot(pipelineId, processorName).map(snapshot -> snapshot.getValueAtPercentile(percentile)).orElse(0L);
+    }
+
+    /**
+     * @return the last reported statistics of the expressions of the processor of the pipeline, empty if none were reported
+     */
+    public List<ExpressionStatistics> getExpressionsStatistics(String pipelineId, String processorName) {
+        Map<String, List<ExpressionStatistics>> pipelineStatistics = expressionsStatistics.get(pipelineId);
+        if (pipelineStatistics == null) {
+            return Collections.emptyList();
+        }
+        return pipelineStatistics.getOrDefault(processorName, Collections.emptyList());
+    }
+
     @Override
     public void pipelineFinishedSuccessfully(String pipelineId, Doc doc, long timeTookNs) {
         succeeded.increment();
+        latencyRecorder.recordPipeline(pipelineId, timeTookNs);
     }
 
     @Override
     public void processorFailed(String pipelineId, String processorName, Doc doc) {
-        processorsMetrics.computeIfAbsent(processorName, k -> new ProcessorMetrics()).incrementFailure();
+        processorMetrics(processorName).incrementFailure();
+    }
+
+    @Override
+    public void processorBudgetExceeded(String pipelineId, String processorName, Doc doc) {
+        processorMetrics(processorName).incrementBudgetExceeded();
     }
 
     @Override
@@ -101,7 +163,13 @@ public class PipelineExecutionMetricsMBean implements PipelineExecutionMetricsTr
 
     @Override
     public void processorFinishedSuccessfully(String pipelineId, String processorName, long timeTookNs) {
-        processorsMetrics.computeIfAbsent(processorName, k -> new ProcessorMetrics()).addEvent(timeTookNs);
+        processorFinishedSuccessfully(pipelineId, processorName, timeTookNs, 1);
+    }
+
+    @Override
+    public void processorFinishedSuccessfully(String pipelineId, String processorName, long timeTookNs, long executions) {
+        processorMetrics(processorName).addEvents(timeTookNs, executions);
+        latencyRecorder.recordProcessor(pipelineId, processorName, timeTookNs, executions);
     }
 
     @Override
@@ -109,23 +177,33 @@ public class PipelineExecutionMetricsMBean implements PipelineExecutionMetricsTr
         unexpectedFailure.increment();
     }
 
+    @Override
+    public void expressionsStatistics(String pipelineId, String processorName, List<ExpressionStatistics> statistics) {
+        expressionsStatistics.computeIfAbsent(pipelineId, k -> new ConcurrentHashMap<>()).put(processorName, statistics);
+    }
+
+    private ProcessorMetrics processorMetrics(String processorName) {
+        // looked up first, as the computing lambda captures this and would be allocated on every call
+        ProcessorMetrics processorMetrics = processorsMetrics.get(processorName);
+        if (processorMetrics == null) {
+            processorMetrics = processorsMetrics.computeIfAbsent(processorName, k -> new ProcessorMetrics());
+        }
+        return processorMetrics;
+    }
+
     private class ProcessorMetrics {
         LongAdder eventsCount = new LongAdder();
         LongAdder eventsDuration = new LongAdder();
         LongAdder eventsFailed = new LongAdder();
-        long maxTime = 0;
-        long minTime = 0;
-
-        public void addEvent(long duration) {
-            eventsCount.increment();
-            eventsDuration.add(duration);
-
-            if (maxTime == 0 || duration > maxTime) {
-                maxTime = duration;
-            }
-            if (minTime == 0 || duration < minTime) {
-                minTime = duration;
-            }
+        LongAdder eventsBudgetExceeded = new LongAdder();
+        LongAccumulator maxTime = new LongAccumulator(Math::max, 0);
+        LongAccumulator minTime = new LongAccumulator(Math::min, Long.MAX_VALUE);
+
+        public void addEvents(long duration, long count) {
+            eventsCount.add(count);
+            eventsDuration.add(duration * count);
+            maxTime.accumulate(duration);
+            minTime.accumulate(duration);
         }
 
         public void incrementFailure() {
@@ -136,12 +214,21 @@ public class PipelineExecutionMetricsMBean implements PipelineExecutionMetricsTr
             return eventsFailed.longValue();
         }
 
+        public void incrementBudgetExceeded() {
+            eventsBudgetExceeded.increment();
+        }
+
+        public long getBudgetExceeded() {
+            return eventsBudgetExceeded.longValue();
+        }
+
         public long getMaxTime() {
-            return maxTime;
+            return maxTime.get();
         }
 
         public long getMinTime() {
-            return minTime;
+            long min = minTime.get();
+            return min == Long.MAX_VALUE ? 0 : min;
         }
 
         public float getAvgTime() {
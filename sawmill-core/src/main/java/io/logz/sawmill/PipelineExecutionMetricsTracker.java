@@ -1,5 +1,7 @@
 package io.logz.sawmill;
 
+import java.util.List;
+
 public interface PipelineExecutionMetricsTracker {
     void pipelineFinishedSuccessfully(String pipelineId, Doc doc, long timeTookNs);
 
@@ -11,9 +13,31 @@ public interface PipelineExecutionMetricsTracker {
 
     void processorFinishedSuccessfully(String pipelineId, String processorName, long timeTookNs);
 
+    /**
+     * Reports a processor execution timed on behalf of a number of executions, when the executor samples timing, see {@link TimingSampling}.
+     * Implementations should weight the execution accordingly, the default reports it once.
+     */
+    default void processorFinishedSuccessfully(String pipelineId, String processorName, long timeTookNs, long executions) {
+        processorFinishedSuccessfully(pipelineId, processorName, timeTookNs);
+    }
+
     void processorFailed(String pipelineId, String processorName, Doc doc);
 
+    /**
+     * Reports a processor that failed because it exceeded its execution budget, in addition to its failure.
+     * The default ignores it.
+     */
+    default void processorBudgetExceeded(String pipelineId, String processorName, Doc doc) {
+    }
+
     void pipelineFailedOnUnexpectedError(String pipelineId, Doc doc, Exception e);
 
     void overtimeProcessingDoc(String pipelineId, Doc doc);
+
+    /**
+     * Reports the statistics of a processor trying expressions in turn, see {@link PipelineExecutor#reportExpressionsStatistics(Pipeline)}.
+     * The default ignores them.
+     */
+    default void expressionsStatistics(String pipelineId, String processorName, List<ExpressionStatistics> statistics) {
+    }
 }
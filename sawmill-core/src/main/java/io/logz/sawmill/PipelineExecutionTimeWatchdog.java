@@ -5,29 +5,35 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.Closeable;
-import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.Arrays;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
-import java.util.stream.Collectors;
 
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
+/**
+ * Watches running executions, notifies those exceeding the warning threshold and interrupts those exceeding the expired threshold.
+ * Every running execution holds a slot, slots are reused through a lock free stack, so there are as many slots as
+ * concurrent executions and watching an execution does not allocate.
+ */
 public class PipelineExecutionTimeWatchdog implements Closeable {
     public static final int THRESHOLD_CHECK_FACTOR = 10;
 
     private static final Logger logger = LoggerFactory.getLogger(PipelineExecutionTimeWatchdog.class);
+    private static final int INITIAL_SLOTS = 16;
+    private static final int NO_FREE_SLOT = 0;
 
     private final long warningThresholdTimeMs;
     private final long expiredThresholdTimeMs;
-    private final ConcurrentMap<Long, WatchedPipeline> currentlyRunning;
     private final Consumer<WatchedPipeline> overtimeOp;
     private final PipelineExecutionMetricsTracker metricsTracker;
-    private final AtomicLong executionIdGenerator;
+    // stamp in the high 32 bits against ABA, free slot index + 1 in the low 32 bits
+    private final AtomicLong freeSlots;
+    private volatile WatchedPipeline[] slots;
+    private volatile int slotsCount;
     private ScheduledExecutorService timer;
 
     public PipelineExecutionTimeWatchdog(long warningThresholdTimeMs, long expiredThresholdTimeMs, PipelineExecutionMetricsTracker metricsTracker, Consumer<WatchedPipeline> overtimeOp) {
@@ -35,8 +41,8 @@ public class PipelineExecutionTimeWatchdog implements Closeable {
         this.expiredThresholdTimeMs = expiredThresholdTimeMs;
         this.metricsTracker = metricsTracker;
         this.overtimeOp = overtimeOp;
-        this.currentlyRunning = new ConcurrentHashMap<>();
-        this.executionIdGenerator = new AtomicLong();
+        this.freeSlots = new AtomicLong(NO_FREE_SLOT);
+        this.slots = new WatchedPipeline[INITIAL_SLOTS];
         initWatchdog(warningThresholdTimeMs / THRESHOLD_CHECK_FACTOR);
     }
 
@@ -47,31 +53,43 @@ public class PipelineExecutionTimeWatchdog implements Closeable {
 
     private void alertOvertimeExecutions() {
         try {
-            warnOvertimeExecutions();
-            killExpiredExecutions();
+            long now = System.currentTimeMillis();
+            int count = slotsCount;
+            WatchedPipeline[] currentSlots = slots;
+            for (int i = 0; i < count; i++) {
+                checkExecution(currentSlots[i], now);
+            }
         } catch (Exception e) {
             logger.error("failed to alert of overtime executions", e);
         }
     }
 
-    private void killExpiredExecutions() {
-        long now = System.currentTimeMillis();
-        List<WatchedPipeline> expiredExecutions = currentlyRunning.values().stream()
-                .filter(watchedPipeline -> now - watchedPipeline.getIngestTimestamp() > expiredThresholdTimeMs)
-                .collect(Collectors.toList());
+    private void checkExecution(WatchedPipeline watchedPipeline, long now) {
+        if (!watchedPipeline.isRunning() || elapsed(watchedPipeline, now) <= warningThresholdTimeMs) {
+            return;
+        }
+
+        synchronized (watchedPipeline) {
+            // the slot might have been reused by a newer execution since the unlocked check
+            if (!watchedPipeline.isRunning()) {
+                return;
+            }
+
+            long elapsed = elapsed(watchedPipeline, now);
+            if (elapsed > warningThresholdTimeMs && !watchedPipeline.hasBeenNotifiedAsOvertime()) {
+                notifyOvertimeToMetricsTracker(watchedPipeline);
+                overtimeOp.accept(watchedPipeline);
+                watchedPipeline.setAsNotifiedWithOvertime();
+            }
 
-        expiredExecutions.forEach(this::interruptIfRunning);
+            if (elapsed > expiredThresholdTimeMs) {
+                interruptIfRunning(watchedPipeline);
+            }
+        }
     }
 
-    private void warnOvertimeExecutions() {
-        long now = System.currentTimeMillis();
-        List<WatchedPipeline> warningExceededExecutions = currentlyRunning.values().stream()
-                .filter(watchedPipeline -> now - watchedPipeline.getIngestTimestamp() > warningThresholdTimeMs)
-                .filter(watchedPipeline -> !watchedPipeline.hasBeenNotifiedAsOvertime())
-                .collect(Collectors.toList());
-        warningExceededExecutions.forEach(this::notifyOvertimeToMetricsTracker);
-        warningExceededExecutions.forEach(overtimeOp);
-        warningExceededExecutions.forEach(WatchedPipeline::setAsNotifiedWithOvertime);
+    private long elapsed(WatchedPipeline watchedPipeline, long now) {
+        return now - watchedPipeline.getIngestTimestamp();
     }
 
     /***
@@ -99,7 +117,7 @@ public class PipelineExecutionTimeWatchdog implements Closeable {
     }
 
     public boolean stopWatchedPipeline(long executionIdentifier) {
-        return stopWatchedPipeline(currentlyRunning.get(executionIdentifier), false);
+        return stopWatchedPipeline(slots[(int) executionIdentifier], false);
     }
 
     private void notifyOvertimeToMetricsTracker(WatchedPipeline watchedPipeline) {
@@ -110,17 +128,63 @@ public class PipelineExecutionTimeWatchdog implements Closeable {
         metricsTracker.pipelineExpired(watchedPipeline.getPipelineId(), watchedPipeline.getDoc());
     }
 
+    /**
+     * @return execution identifier, valid until {@link #removeExecution(long)} is called with it
+     */
     public long startedExecution(String pipelineId, Doc doc, Thread context) {
-        long ingestTimestamp = System.currentTimeMillis();
-        WatchedPipeline watchedPipeline = new WatchedPipeline(doc, pipelineId, ingestTimestamp, context);
-        long id = executionIdGenerator.incrementAndGet();
-        currentlyRunning.put(id, watchedPipeline);
+        int slot = acquireSlot();
+        slots[slot].start(doc, pipelineId, System.currentTimeMillis(), context);
 
-        return id;
+        return slot;
     }
 
     public void removeExecution(long id) {
-        currentlyRunning.remove(id);
+        int slot = (int) id;
+        slots[slot].clear();
+        releaseSlot(slot);
+    }
+
+    private int acquireSlot() {
+        while (true) {
+            long head = freeSlots.get();
+            if ((int) head == NO_FREE_SLOT) {
+                return newSlot();
+            }
+
+            int slot = (int) head - 1;
+            long next = nextStamp(head) | slots[slot].nextFreeSlot;
+            if (freeSlots.compareAndSet(head, next)) {
+                return slot;
+            }
+        }
+    }
+
+    private void releaseSlot(int slot) {
+        WatchedPipeline watchedPipeline = slots[slot];
+        while (true) {
+            long head = freeSlots.get();
+            watchedPipeline.nextFreeSlot = (int) head;
+            if (freeSlots.compareAndSet(head, nextStamp(head) | (slot + 1))) {
+                return;
+            }
+        }
+    }
+
+    private static long nextStamp(long head) {
+        return ((head >>> 32) + 1) << 32;
+    }
+
+    private synchronized int newSlot() {
+        int slot = slotsCount;
+        WatchedPipeline[] currentSlots = slots;
+        if (slot == currentSlots.length) {
+            currentSlots = Arrays.copyOf(currentSlots, slot * 2);
+        }
+        currentSlots[slot] = new WatchedPipeline();
+        slots = currentSlots;
+        slotsCount = slot + 1;
+
+        return slot;
     }
 
     @Override
@@ -136,6 +200,6 @@ public class PipelineExecutionTimeWatchdog implements Closeable {
     }
 
     public boolean isOvertime(long executionIdentifier) {
-        return currentlyRunning.get(executionIdentifier).hasBeenNotifiedAsOvertime();
+        return slots[(int) executionIdentifier].hasBeenNotifiedAsOvertime();
     }
 }
@@ -1,23 +1,40 @@
 package io.logz.sawmill;
 
-import com.google.common.base.Stopwatch;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.logz.sawmill.exceptions.PipelineBatchExecutionException;
 import io.logz.sawmill.exceptions.PipelineExecutionException;
+import io.logz.sawmill.utilities.ThreadLocalResource;
+import io.logz.sawmill.utilities.VirtualThreads;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
+/**
+ * Executes pipelines on docs, watched by the {@link PipelineExecutionTimeWatchdog} and reported to the {@link PipelineExecutionMetricsTracker}.
+ * The executor bookkeeping of every execution is held by an execution context reused per thread,
+ * so in steady state executing a doc allocates nothing besides what the processors, the metrics tracker and non successful results do.
+ */
+
 public class PipelineExecutor implements Closeable {
     private static final Logger logger = LoggerFactory.getLogger(PipelineExecutor.class);
 
     private final PipelineExecutionTimeWatchdog watchdog;
     private final PipelineExecutionMetricsTracker pipelineExecutionMetricsTracker;
+    private final TimingSampling timingSampling;
+    private final ThreadLocalResource<ExecutionContext> executionContexts = new ThreadLocalResource<>(ExecutionContext::new);
+    private volatile ExecutorService asyncExecutor;
 
     public PipelineExecutor() {
         this(new PipelineExecutionMetricsMBean());
@@ -28,113 +45,357 @@ public class PipelineExecutor implements Closeable {
     }
 
     public PipelineExecutor(PipelineExecutionTimeWatchdog watchdog, PipelineExecutionMetricsTracker pipelineExecutionMetricsTracker) {
+        this(watchdog, pipelineExecutionMetricsTracker, TimingSampling.all());
+    }
+
+    /**
+     * @param timingSampling which docs get their processors timed, see {@link TimingSampling}
+     */
+    public PipelineExecutor(PipelineExecutionTimeWatchdog watchdog, PipelineExecutionMetricsTracker pipelineExecutionMetricsTracker, TimingSampling timingSampling) {
         this.watchdog = watchdog;
         this.pipelineExecutionMetricsTracker = pipelineExecutionMetricsTracker;
+        this.timingSampling = timingSampling;
     }
 
     public ExecutionResult execute(Pipeline pipeline, Doc doc) {
-        PipelineStopwatch pipelineStopwatch = new PipelineStopwatch().start();
+        ExecutionContext executionContext = acquireExecutionContext();
+        try {
+            PipelineStopwatch pipelineStopwatch = executionContext.pipelineStopwatch.start();
+
+            ExecutionResult executionResult;
+            try {
+                executionResult = executeWatched(pipeline, doc, executionContext);
+            } finally {
+                pipelineStopwatch.stop();
+            }
+
+            reportExecutionResult(pipeline, doc, executionResult, pipelineStopwatch.pipelineElapsed());
+
+            return executionResult;
+        } finally {
+            releaseExecutionContext(executionContext);
+        }
+    }
+
+    /**
+     * Executes the pipeline asynchronously, on a virtual thread per execution when the JVM supports it,
+     * otherwise on a fixed pool sized to the available processors. The pool is created on first use and shut down on {@link #close()}.
+     *
+     * @return future of the execution result, completed exceptionally with {@link PipelineExecutionException} on unexpected error
+     */
+    public CompletableFuture<ExecutionResult> executeAsync(Pipeline pipeline, Doc doc) {
+        return executeAsync(pipeline, doc, getAsyncExecutor());
+    }
+
+    /**
+     * Executes the pipeline asynchronously on the given executor.
+     * The executor threads are interrupted by the watchdog on expiration, just like the calling thread of {@link #execute(Pipeline, Doc)}.
+     */
+    public CompletableFuture<ExecutionResult> executeAsync(Pipeline pipeline, Doc doc, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> execute(pipeline, doc), executor);
+    }
+
+    private ExecutorService getAsyncExecutor() {
+        ExecutorService executor = asyncExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = asyncExecutor;
+                if (executor == null) {
+                    executor = createAsyncExecutor();
+                    asyncExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    private static ExecutorService createAsyncExecutor() {
+        if (VirtualThreads.isSupported()) {
+            return VirtualThreads.newVirtualThreadPerTaskExecutor();
+        }
+
+        return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+                new ThreadFactoryBuilder().setNameFormat("sawmill-async-%d").setDaemon(true).build());
+    }
+
+    /**
+     * Executes the pipeline on each of the docs, in order, on the calling thread.
+     * The batch shares a single stopwatch and is timed once, each succeeded doc is reported
+     * to the metrics tracker with an equal share of the batch time.
+     * Every doc is still watched separately, so overtime and expiration are per doc.
+     *
+     * @return execution results in the same order as the docs
+     * @throws PipelineBatchExecutionException on unexpected error, the docs following the failed one are not executed,
+     * the docs preceding it are reported and their results are carried by the exception
+     */
+    public List<ExecutionResult> executeBatch(Pipeline pipeline, List<Doc> docs) {
+        List<ExecutionResult> executionResults = new ArrayList<>(docs.size());
+        if (docs.isEmpty()) {
+            return executionResults;
+        }
+
+        ExecutionContext executionContext = acquireExecutionContext();
+        try {
+            PipelineStopwatch pipelineStopwatch = executionContext.pipelineStopwatch.start();
+            try {
+                for (Doc doc : docs) {
+                    executionResults.add(executeWatched(pipeline, doc, executionContext));
+                }
+            } catch (PipelineExecutionException e) {
+                throw new PipelineBatchExecutionException(pipeline.getId(), (Exception) e.getCause(), Collections.unmodifiableList(executionResults));
+            } finally {
+                pipelineStopwatch.stop();
+                reportExecutionResults(pipeline, docs, executionResults, pipelineStopwatch.pipelineElapsed());
+            }
+
+            return executionResults;
+        } finally {
+            releaseExecutionContext(executionContext);
+        }
+    }
+
+    /**
+     * Reports the executed docs, the first ones of the batch, with an equal share of the batch time
+     */
+    private void reportExecutionResults(Pipeline pipeline, List<Doc> docs, List<ExecutionResult> executionResults, long batchTookNs) {
+        if (executionResults.isEmpty()) {
+            return;
+        }
+
+        long docTookNs = batchTookNs / executionResults.size();
+        for (int i = 0; i < executionResults.size(); i++) {
+            reportExecutionResult(pipeline, docs.get(i), executionResults.get(i), docTookNs);
+        }
+    }
+
+    /**
+     * Reports the statistics of the processors of the pipeline trying expressions in turn to the metrics tracker,
+     * see {@link Processor#getExpressionsStatistics()}. Meant to be called periodically, such as when metrics are collected.
+     */
+    public void reportExpressionsStatistics(Pipeline pipeline) {
+        reportExpressionsStatistics(pipeline, pipeline.getExecutionSteps());
+    }
+
+    private void reportExpressionsStatistics(Pipeline pipeline, List<ExecutionStep> executionSteps) {
+        if (executionSteps == null) {
+            return;
+        }
+
+        for (ExecutionStep executionStep : executionSteps) {
+            if (executionStep instanceof ConditionalExecutionStep) {
+                ConditionalExecutionStep conditionalExecutionStep = (ConditionalExecutionStep) executionStep;
+                reportExpressionsStatistics(pipeline, conditionalExecutionStep.getOnTrue());
+                reportExpressionsStatistics(pipeline, conditionalExecutionStep.getOnFalse());
+            } else if (executionStep instanceof ProcessorExecutionStep) {
+                ProcessorExecutionStep processorExecutionStep = (ProcessorExecutionStep) executionStep;
+                Processor processor = processorExecutionStep.getProcessor();
+                if (processor instanceof FusedProcessor) {
+                    reportExpressionsStatistics(pipeline, ((FusedProcessor) processor).toExecutionSteps());
+                }
+
+                List<ExpressionStatistics> statistics = processor.getExpressionsStatistics();
+                if (!statistics.isEmpty()) {
+                    pipelineExecutionMetricsTracker.expressionsStatistics(pipeline.getId(), processorExecutionStep.getProcessorName(), statistics);
+                }
+                processorExecutionStep.getOnFailureExecutionSteps().ifPresent(steps -> reportExpressionsStatistics(pipeline, steps));
+                processorExecutionStep.getOnSuccessExecutionSteps().ifPresent(steps -> reportExpressionsStatistics(pipeline, steps));
+            }
+        }
+    }
+
+    private ExecutionContext acquireExecutionContext() {
+        ExecutionContext executionContext = executionContexts.acquire();
+        if (executionContext.inUse) {
+            // a pipeline executed from within a processor on the same thread
+            executionContext = new ExecutionContext();
+        }
+        executionContext.inUse = true;
+        return executionContext;
+    }
+
+    private void releaseExecutionContext(ExecutionContext executionContext) {
+        executionContext.inUse = false;
+        executionContexts.release(executionContext);
+    }
+
+    private ExecutionResult executeWatched(Pipeline pipeline, Doc doc, ExecutionContext executionContext) {
+        PipelineStopwatch pipelineStopwatch = executionContext.pipelineStopwatch;
+        pipelineStopwatch.startDoc(timingSampling.sample(pipeline));
 
         long executionIdentifier = watchdog.startedExecution(pipeline.getId(), doc, Thread.currentThread());
 
         ExecutionResult executionResult;
         try {
-            List<ExecutionStep> executionSteps = pipeline.getExecutionSteps();
-            executionResult = executeSteps(executionSteps, pipeline, doc, pipelineStopwatch);
+            executionResult = pipeline.isCompiled() ?
+                    executeCompiled(pipeline, doc, executionContext.compiledStepListener) :
+                    executePlan(pipeline, doc, pipelineStopwatch);
 
             // Prevent race condition with watchdog - check whether the execution got interrupted
             boolean hasBeenInterrupted = watchdog.stopWatchedPipeline(executionIdentifier);
 
             if (hasBeenInterrupted) {
                 Thread.interrupted(); // clear interrupted flag
-                executionResult = ExecutionResult.expired(pipelineStopwatch.pipelineElapsed(MILLISECONDS));
+                executionResult = ExecutionResult.expired(pipelineStopwatch.docElapsed(MILLISECONDS));
             } else if (watchdog.isOvertime(executionIdentifier)) {
-                executionResult = ExecutionResult.overtime(executionResult, pipelineStopwatch.pipelineElapsed(MILLISECONDS));
+                executionResult = ExecutionResult.overtime(executionResult, pipelineStopwatch.docElapsed(MILLISECONDS));
             }
         } catch (RuntimeException e) {
             pipelineExecutionMetricsTracker.pipelineFailedOnUnexpectedError(pipeline.getId(), doc, e);
             throw new PipelineExecutionException(pipeline.getId(), e);
 
         } finally {
-            pipelineStopwatch.stop();
             watchdog.removeExecution(executionIdentifier);
         }
 
+        return executionResult;
+    }
+
+    private void reportExecutionResult(Pipeline pipeline, Doc doc, ExecutionResult executionResult, long timeTookNs) {
         if (executionResult.isSucceeded()) {
-            logger.trace("pipeline {} executed successfully, took {}ns", pipeline.getId(), pipelineStopwatch.pipelineElapsed());
-            pipelineExecutionMetricsTracker.pipelineFinishedSuccessfully(pipeline.getId(), doc, pipelineStopwatch.pipelineElapsed());
+            if (logger.isTraceEnabled()) {
+                logger.trace("pipeline {} executed successfully, took {}ns", pipeline.getId(), timeTookNs);
+            }
+            pipelineExecutionMetricsTracker.pipelineFinishedSuccessfully(pipeline.getId(), doc, timeTookNs);
 
         } else if (executionResult.isDropped()) {
             pipelineExecutionMetricsTracker.docDropped(pipeline.getId(), doc);
         } else {
             pipelineExecutionMetricsTracker.pipelineFailed(pipeline.getId(), doc);
         }
-
-        return executionResult;
     }
 
-    private ExecutionResult executeSteps(List<ExecutionStep> executionSteps, Pipeline pipeline, Doc doc, PipelineStopwatch pipelineStopwatch) {
-        for (ExecutionStep executionStep : executionSteps) {
-            ExecutionResult executionResult = executeStep(executionStep, pipeline, doc, pipelineStopwatch);
-            boolean shouldStop = !executionResult.isSucceeded() && pipeline.isStopOnFailure();
-            if (shouldStop || executionResult.isExpired() || executionResult.isDropped()) {
-                return executionResult;
+    private ExecutionResult executePlan(Pipeline pipeline, Doc doc, PipelineStopwatch pipelineStopwatch) {
+        ExecutionPlan.Instruction[] instructions = pipeline.getExecutionPlan().getInstructions();
+        int pc = 0;
+        try {
+            while (pc < instructions.length) {
+                ExecutionPlan.Instruction instruction = instructions[pc];
+                switch (instruction.opcode) {
+                    case ExecutionPlan.JUMP:
+                        pc = instruction.target;
+                        break;
+                    case ExecutionPlan.CONDITION:
+                        pc = instruction.condition.evaluate(doc) ? pc + 1 : instruction.target;
+                        break;
+                    case ExecutionPlan.PROCESS:
+                        ProcessResult processResult = executeProcessor(instruction, pipeline, doc, pipelineStopwatch);
+                        if (processResult.isSucceeded()) {
+                            pc = instruction.target;
+                        } else if (processResult.isDropped()) {
+                            return ExecutionResult.dropped();
+                        } else {
+                            reportBudgetExceeded(processResult, pipeline, instruction.processorName, doc);
+                            if (instruction.hasFailureTarget()) {
+                                pc = instruction.failureTarget;
+                                break;
+                            }
+
+                            pipelineExecutionMetricsTracker.processorFailed(pipeline.getId(), instruction.processorName, doc);
+                            if (pipeline.isStopOnFailure()) {
+                                return processorErrorExecutionResult(processResult.getError().get(), instruction.processorName, pipeline);
+                            }
+                            pc = instruction.nextTarget;
+                        }
+                        break;
+                    case ExecutionPlan.FUSED:
+                        ExecutionResult fusedResult = executeFused((FusedProcessor) instruction.processor, pipeline, doc, pipelineStopwatch);
+                        if (fusedResult != null) {
+                            return fusedResult;
+                        }
+                        pc++;
+                        break;
+                    default:
+                        throw new IllegalStateException("Unsupported instruction " + instruction.opcode);
+                }
             }
+        } catch (InterruptedException e) {
+            return ExecutionResult.expired();
         }
+
         return ExecutionResult.success();
     }
 
-    private ExecutionResult executeStep(ExecutionStep executionStep, Pipeline pipeline, Doc doc, PipelineStopwatch pipelineStopwatch) {
+    private ExecutionResult executeCompiled(Pipeline pipeline, Doc doc, CompiledStepListener compiledStepListener) {
+        CompiledPipeline compiledPipeline = pipeline.getCompiledPipeline();
+        compiledStepListener.reset(compiledPipeline, pipeline, doc);
         try {
-            if (executionStep instanceof ConditionalExecutionStep) {
-                return executeConditionalStep((ConditionalExecutionStep) executionStep, pipeline, doc, pipelineStopwatch);
-            } else if (executionStep instanceof ProcessorExecutionStep) {
-                return executeProcessorStep((ProcessorExecutionStep) executionStep, pipeline, doc, pipelineStopwatch);
-            }
+            return compiledPipeline.execute(doc, compiledStepListener);
         } catch (InterruptedException e) {
             return ExecutionResult.expired();
+        } finally {
+            compiledStepListener.reset(null, null, null);
+        }
+    }
+
+    /**
+     * Executes the fused processors as separate steps, timing each run of succeeded processors once.
+     *
+     * @return the execution result if the execution should stop, otherwise {@code null}
+     */
+    private ExecutionResult executeFused(FusedProcessor fusedProcessor, Pipeline pipeline, Doc doc, PipelineStopwatch pipelineStopwatch) throws InterruptedException {
+        int unreported = 0;
+        if (pipelineStopwatch.isTimingProcessors()) {
+            pipelineStopwatch.startProcessor();
         }
+        for (int i = 0; i < fusedProcessor.size(); i++) {
+            ProcessResult processResult = fusedProcessor.getProcessor(i).process(doc);
+            if (processResult.isSucceeded()) {
+                continue;
+            }
+
+            reportFusedSucceeded(fusedProcessor, unreported, i, pipeline, pipelineStopwatch);
+            if (processResult.isDropped()) {
+                return ExecutionResult.dropped();
+            }
 
+            String processorName = fusedProcessor.getProcessorName(i);
+            reportBudgetExceeded(processResult, pipeline, processorName, doc);
+            pipelineExecutionMetricsTracker.processorFailed(pipeline.getId(), processorName, doc);
+            if (pipeline.isStopOnFailure()) {
+                return processorErrorExecutionResult(processResult.getError().get(), processorName, pipeline);
+            }
 
-        throw new RuntimeException("Unsupported execution step " + executionStep.getClass());
+            unreported = i + 1;
+            if (pipelineStopwatch.isTimingProcessors()) {
+                pipelineStopwatch.startProcessor();
+            }
+        }
+
+        reportFusedSucceeded(fusedProcessor, unreported, fusedProcessor.size(), pipeline, pipelineStopwatch);
+        return null;
     }
 
-    private ExecutionResult executeConditionalStep(ConditionalExecutionStep conditionalExecutionStep, Pipeline pipeline, Doc doc, PipelineStopwatch pipelineStopwatch) throws InterruptedException {
-        Condition condition = conditionalExecutionStep.getCondition();
+    private void reportFusedSucceeded(FusedProcessor fusedProcessor, int from, int to, Pipeline pipeline, PipelineStopwatch pipelineStopwatch) {
+        if (from == to || !pipelineStopwatch.isTimingProcessors()) {
+            return;
+        }
 
-        if (condition.evaluate(doc)) {
-            return executeSteps(conditionalExecutionStep.getOnTrue(), pipeline, doc, pipelineStopwatch);
-        } else {
-            return executeSteps(conditionalExecutionStep.getOnFalse(), pipeline, doc, pipelineStopwatch);
+        long processorTook = pipelineStopwatch.processorElapsed() / (to - from);
+        for (int i = from; i < to; i++) {
+            pipelineExecutionMetricsTracker.processorFinishedSuccessfully(pipeline.getId(), fusedProcessor.getProcessorName(i), processorTook,
+                    pipelineStopwatch.getSampleWeight());
         }
     }
 
-    private ExecutionResult executeProcessorStep(ProcessorExecutionStep executionStep, Pipeline pipeline, Doc doc, PipelineStopwatch pipelineStopwatch) throws InterruptedException{
-        Processor processor = executionStep.getProcessor();
-        String pipelineId = pipeline.getId();
-        String processorName = executionStep.getProcessorName();
+    private ProcessResult executeProcessor(ExecutionPlan.Instruction instruction, Pipeline pipeline, Doc doc, PipelineStopwatch pipelineStopwatch) throws InterruptedException {
+        if (!pipelineStopwatch.isTimingProcessors()) {
+            return instruction.processor.process(doc);
+        }
 
         pipelineStopwatch.startProcessor();
-        ProcessResult processResult = processor.process(doc);
+        ProcessResult processResult = instruction.processor.process(doc);
         long processorTook = pipelineStopwatch.processorElapsed();
 
         if (processResult.isSucceeded()) {
-            pipelineExecutionMetricsTracker.processorFinishedSuccessfully(pipelineId, processorName, processorTook);
-            Optional<List<ExecutionStep>> onSuccessExecutionSteps = executionStep.getOnSuccessExecutionSteps();
-            if (onSuccessExecutionSteps.isPresent()) {
-                return executeSteps(onSuccessExecutionSteps.get(), pipeline, doc, pipelineStopwatch);
-            }
-            return ExecutionResult.success();
-        } else if (processResult.isDropped()) {
-            return ExecutionResult.dropped();
-        } else {
-            Optional<List<ExecutionStep>> onFailureExecutionSteps = executionStep.getOnFailureExecutionSteps();
-            if (onFailureExecutionSteps.isPresent()) {
-                return executeSteps(onFailureExecutionSteps.get(), pipeline, doc, pipelineStopwatch);
-            } else {
-                pipelineExecutionMetricsTracker.processorFailed(pipelineId, processorName, doc);
-                return processorErrorExecutionResult(processResult.getError().get(), processorName, pipeline);
-            }
+            pipelineExecutionMetricsTracker.processorFinishedSuccessfully(pipeline.getId(), instruction.processorName, processorTook,
+                    pipelineStopwatch.getSampleWeight());
+        }
+        return processResult;
+    }
+
+    private void reportBudgetExceeded(ProcessResult processResult, Pipeline pipeline, String processorName, Doc doc) {
+        if (processResult.isBudgetExceeded()) {
+            pipelineExecutionMetricsTracker.processorBudgetExceeded(pipeline.getId(), processorName, doc);
         }
     }
 
@@ -151,40 +412,130 @@ public class PipelineExecutor implements Closeable {
     @Override
     public void close() {
         this.watchdog.close();
+
+        ExecutorService executor = asyncExecutor;
+        if (executor != null) {
+            executor.shutdown();
+        }
     }
 
+    private class ExecutionContext {
+        private final PipelineStopwatch pipelineStopwatch = new PipelineStopwatch();
+        private final CompiledStepListener compiledStepListener = new CompiledStepListener(pipelineStopwatch);
+        private boolean inUse;
+    }
+
+    private class CompiledStepListener implements CompiledPipeline.StepListener {
+        private final PipelineStopwatch pipelineStopwatch;
+        private CompiledPipeline compiledPipeline;
+        private Pipeline pipeline;
+        private Doc doc;
+
+        private CompiledStepListener(PipelineStopwatch pipelineStopwatch) {
+            this.pipelineStopwatch = pipelineStopwatch;
+        }
+
+        private void reset(CompiledPipeline compiledPipeline, Pipeline pipeline, Doc doc) {
+            this.compiledPipeline = compiledPipeline;
+            this.pipeline = pipeline;
+            this.doc = doc;
+        }
+
+        @Override
+        public void processorStarted() {
+            if (pipelineStopwatch.isTimingProcessors()) {
+                pipelineStopwatch.startProcessor();
+            }
+        }
+
+        @Override
+        public void processorSucceeded(int step) {
+            if (!pipelineStopwatch.isTimingProcessors()) {
+                return;
+            }
+
+            long processorTook = pipelineStopwatch.processorElapsed();
+            pipelineExecutionMetricsTracker.processorFinishedSuccessfully(pipeline.getId(), compiledPipeline.getProcessorName(step), processorTook,
+                    pipelineStopwatch.getSampleWeight());
+        }
+
+        @Override
+        public void processorBudgetExceeded(int step) {
+            pipelineExecutionMetricsTracker.processorBudgetExceeded(pipeline.getId(), compiledPipeline.getProcessorName(step), doc);
+        }
+
+        @Override
+        public ExecutionResult processorFailed(int step, ProcessResult processResult) {
+            String processorName = compiledPipeline.getProcessorName(step);
+            pipelineExecutionMetricsTracker.processorFailed(pipeline.getId(), processorName, doc);
+            if (pipeline.isStopOnFailure()) {
+                return processorErrorExecutionResult(processResult.getError().get(), processorName, pipeline);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Reads {@link System#nanoTime()} directly rather than through a Guava Stopwatch, so it can be reused without allocating
+     */
     private static class PipelineStopwatch {
-        private Stopwatch stopwatch;
+        private long startTime;
+        private long stopTime;
+        private boolean running;
+        private long docStartElapsedTime;
         private long processorStartElapsedTime;
-        private TimeUnit timeUnit = NANOSECONDS;
+        private long sampleWeight;
 
         public PipelineStopwatch() {
         }
 
         public PipelineStopwatch start() {
-            stopwatch = Stopwatch.createStarted();
+            startTime = System.nanoTime();
+            running = true;
+            docStartElapsedTime = 0;
             processorStartElapsedTime = 0;
             return this;
         }
 
-        public long pipelineElapsed() {
-            return stopwatch.elapsed(timeUnit);
+        /**
+         * @param sampleWeight the number of executions the doc stands for, {@link TimingSampling#NOT_SAMPLED} to skip timing its processors
+         */
+        public void startDoc(long sampleWeight) {
+            docStartElapsedTime = elapsed();
+            this.sampleWeight = sampleWeight;
+        }
+
+        public boolean isTimingProcessors() {
+            return sampleWeight != TimingSampling.NOT_SAMPLED;
         }
 
-        public long pipelineElapsed(TimeUnit timeUnit) {
-            return stopwatch.elapsed(timeUnit);
+        public long getSampleWeight() {
+            return sampleWeight;
+        }
+
+        public long docElapsed(TimeUnit timeUnit) {
+            return timeUnit.convert(elapsed() - docStartElapsedTime, NANOSECONDS);
+        }
+
+        public long pipelineElapsed() {
+            return elapsed();
         }
 
         public long processorElapsed() {
-            return stopwatch.elapsed(timeUnit) - processorStartElapsedTime;
+            return elapsed() - processorStartElapsedTime;
         }
 
         public void startProcessor() {
-            processorStartElapsedTime = stopwatch.elapsed(timeUnit);
+            processorStartElapsedTime = elapsed();
         }
 
         public void stop() {
-            stopwatch.stop();
+            stopTime = System.nanoTime();
+            running = false;
+        }
+
+        private long elapsed() {
+            return (running ? System.nanoTime() : stopTime) - startTime;
         }
     }
 }
@@ -0,0 +1,162 @@
+package io.logz.sawmill;
+
+import com.google.common.base.Throwables;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.logz.sawmill.parser.PipelineDefinitionJsonParser;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Keeps the pipelines by id, creating each distinct config once.
+ * Configs are deduplicated by the hash of their normalized form (see {@link PipelineDefinitionJsonParser#normalize(String)}),
+ * pipelines registered with equivalent configs share their processors, execution plan and generated class,
+ * so processors must not keep state specific to a pipeline id.
+ *
+ * Registering an id again replaces its pipeline atomically, executions in flight complete with the pipeline they started with.
+ * A pipeline no longer registered under any id is released once no execution uses it,
+ * and ids not looked up for the idle timeout, if given, are removed.
+ */
+public class PipelineRegistry {
+    private final Pipeline.Factory factory;
+    private final ConcurrentMap<String, Registration> registrations;
+    private final Cache<HashCode, Pipeline> pipelinesByConfigHash;
+
+    public PipelineRegistry(Pipeline.Factory factory) {
+        this(factory, CacheBuilder.newBuilder());
+    }
+
+    /**
+     * @param idleTimeout the time after which an id not looked up with {@link #get(String)} nor registered is removed
+     */
+    public PipelineRegistry(Pipeline.Factory factory, Duration idleTimeout) {
+        this(factory, idleTimeout, Ticker.systemTicker());
+    }
+
+    PipelineRegistry(Pipeline.Factory factory, Duration idleTimeout, Ticker ticker) {
+        this(factory, CacheBuilder.newBuilder().expireAfterAccess(checkIdleTimeout(idleTimeout)).ticker(ticker));
+    }
+
+    private PipelineRegistry(Pipeline.Factory factory, CacheBuilder<Object, Object> registrationsCacheBuilder) {
+        this.factory = requireNonNull(factory, "factory cannot be null");
+        this.registrations = registrationsCacheBuilder.<String, Registration>build().asMap();
+        this.pipelinesByConfigHash = CacheBuilder.newBuilder().weakValues().build();
+    }
+
+    private static Duration checkIdleTimeout(Duration idleTimeout) {
+        requireNonNull(idleTimeout, "idleTimeout cannot be null");
+        checkArgument(!idleTimeout.isNegative() && !idleTimeout.isZero(), "idleTimeout must be positive");
+        return idleTimeout;
+    }
+
+    /**
+     * Registers the config under the id with the version following the current one
+     *
+     * @return the pipeline registered under the id
+     */
+    public Pipeline register(String id, String config) {
+        return register(id, config, OptionalLong.empty());
+    }
+
+    /**
+     * Registers the config under the id unless it is already registered with the same or a newer version,
+     * so updates arriving out of order do not roll a pipeline back
+     *
+     * @return the pipeline registered under the id, which is the existing one if the given version is not newer
+     */
+    public Pipeline register(String id, String config, long version) {
+        return register(id, config, OptionalLong.of(version));
+    }
+
+    private Pipeline register(String id, String config, OptionalLong version) {
+        requireNonNull(id, "id cannot be null");
+        requireNonNull(config, "config cannot be null");
+
+        Registration current = registrations.get(id);
+        if (current != null && version.isPresent() && current.version >= version.getAsLong()) {
+            return current.pipeline;
+        }
+
+        Pipeline shared = current != null && current.config.equals(config) ? current.shared : getOrCreate(config);
+
+        return registrations.compute(id, (k, existing) -> {
+            if (existing == null) {
+                return new Registration(config, version.orElse(1), shared, new Pipeline(id, shared));
+            }
+            if (version.isPresent() && existing.version >= version.getAsLong()) {
+                return existing;
+            }
+
+            long nextVersion = version.orElse(existing.version + 1);
+            Pipeline pipeline = existing.shared == shared ? existing.pipeline : new Pipeline(id, shared);
+            return new Registration(config, nextVersion, shared, pipeline);
+        }).pipeline;
+    }
+
+    private Pipeline getOrCreate(String config) {
+        String normalizedConfig = PipelineDefinitionJsonParser.normalize(config);
+        HashCode configHash = Hashing.sha256().hashString(normalizedConfig, StandardCharsets.UTF_8);
+        try {
+            return pipelinesByConfigHash.get(configHash,
+                    () -> factory.create(configHash.toString(), PipelineDefinitionJsonParser.parseNormalized(normalizedConfig)));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            Throwables.throwIfUnchecked(e.getCause());
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    public Optional<Pipeline> get(String id) {
+        Registration registration = registrations.get(id);
+        return registration != null ? Optional.of(registration.pipeline) : Optional.empty();
+    }
+
+    public OptionalLong getVersion(String id) {
+        Registration registration = registrations.get(id);
+        return registration != null ? OptionalLong.of(registration.version) : OptionalLong.empty();
+    }
+
+    public void remove(String id) {
+        registrations.remove(id);
+    }
+
+    /**
+     * @return the number of registered ids
+     */
+    public int size() {
+        return registrations.size();
+    }
+
+    /**
+     * @return the number of distinct pipelines created for the registered ids
+     */
+    public long distinctSize() {
+        pipelinesByConfigHash.cleanUp();
+        return pipelinesByConfigHash.size();
+    }
+
+    private static class Registration {
+        private final String config;
+        private final long version;
+        private final Pipeline shared;
+        private final Pipeline pipeline;
+
+        private Registration(String config, long version, Pipeline shared, Pipeline pipeline) {
+            this.config = config;
+            this.version = version;
+            this.shared = shared;
+            this.pipeline = pipeline;
+        }
+    }
+}
@@ -11,6 +11,7 @@ import static io.logz.sawmill.Result.SUCCEEDED;
 public class ProcessResult {
     private final Result result;
     private final Optional<Error> error;
+    private final boolean budgetExceeded;
 
     private static ProcessResult processSucceeded = new ProcessResult();
     private static ProcessResult processDropped = new ProcessResult(DROPPED);
@@ -22,15 +23,17 @@ public class ProcessResult {
     private ProcessResult(Result result) {
         this.result = result;
         this.error = Optional.empty();
+        this.budgetExceeded = false;
     }
 
     private ProcessResult(String errorMessage) {
-        this(errorMessage, null);
+        this(errorMessage, null, false);
     }
 
-    private ProcessResult(String errorMessage, ProcessorExecutionException e) {
+    private ProcessResult(String errorMessage, ProcessorExecutionException e, boolean budgetExceeded) {
         this.result = FAILED;
         this.error = Optional.of(new Error(errorMessage, Optional.ofNullable(e)));
+        this.budgetExceeded = budgetExceeded;
     }
 
     public boolean isSucceeded() {
@@ -41,6 +44,13 @@ public class ProcessResult {
         return result == DROPPED;
     }
 
+    /**
+     * @return whether the processor failed because it exceeded its execution budget, see {@link io.logz.sawmill.utilities.ExecutionBudget}
+     */
+    public boolean isBudgetExceeded() {
+        return budgetExceeded;
+    }
+
     public Optional<Error> getError() {
         return error;
     }
@@ -54,7 +64,11 @@ public class ProcessResult {
     }
 
     public static ProcessResult failure(String errorMessage, ProcessorExecutionException e) {
-        return new ProcessResult(errorMessage, e);
+        return new ProcessResult(errorMessage, e, false);
+    }
+
+    public static ProcessResult budgetExceeded(String errorMessage) {
+        return new ProcessResult(errorMessage, null, true);
     }
 
     public static ProcessResult drop() {
@@ -1,10 +1,28 @@
 package io.logz.sawmill;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 public interface Processor {
     ProcessResult process(Doc doc) throws InterruptedException;
 
+    /**
+     * Whether adjacent steps of fusible processors can be executed as a single step, see {@link ExecutionStepsOptimizer}.
+     * Meant for cheap processors that never drop the doc, a fused step is timed as a whole.
+     */
+    default boolean isFusible() {
+        return false;
+    }
+
+    /**
+     * @return statistics of the expressions the processor tries in turn, such as grok patterns, empty if it has none.
+     * Reported with {@link PipelineExecutor#reportExpressionsStatistics(Pipeline)}
+     */
+    default List<ExpressionStatistics> getExpressionsStatistics() {
+        return Collections.emptyList();
+    }
+
     interface Factory {
         Processor create(Map<String,Object> config);
     }
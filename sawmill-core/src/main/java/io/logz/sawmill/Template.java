@@ -2,4 +2,8 @@ package io.logz.sawmill;
 
 public interface Template {
     String render(Doc doc);
+
+    default FieldPath renderFieldPath(Doc doc) {
+        return FieldPath.of(render(doc));
+    }
 }
@@ -40,6 +40,8 @@ public class TemplateService {
 
     public static class StringTemplate implements Template {
         private final String value;
+        private FieldPath fieldPath;
+
         private StringTemplate(String value) {
             this.value = value;
         }
@@ -48,6 +50,17 @@ public class TemplateService {
         public String render(Doc doc) {
             return value;
         }
+
+        @Override
+        public FieldPath renderFieldPath(Doc doc) {
+            // FieldPath is immutable, so a racy lazy init at worst tokenizes the same value twice
+            FieldPath path = fieldPath;
+            if (path == null) {
+                path = FieldPath.of(value);
+                fieldPath = path;
+            }
+            return path;
+        }
     }
 
     public static class MustacheTemplate implements Template {
@@ -0,0 +1,135 @@
+package io.logz.sawmill;
+
+import com.google.common.collect.MapMaker;
+
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Decides which docs get their processors timed by the {@link PipelineExecutor}.
+ * The processors of docs that are not sampled are executed without reading the clock and without reporting their successes,
+ * the successes of sampled docs are reported on behalf of the executions they stand for,
+ * see {@link PipelineExecutionMetricsTracker#processorFinishedSuccessfully(String, String, long, long)}.
+ * Failures, drops and the pipeline level metrics are reported for every doc.
+ */
+public abstract class TimingSampling {
+    static final long NOT_SAMPLED = 0;
+
+    /**
+     * @return sampling timing the processors of every doc
+     */
+    public static TimingSampling all() {
+        return new All();
+    }
+
+    /**
+     * @return sampling timing the processors of a doc at random with probability 1/n, on behalf of n executions
+     */
+    public static TimingSampling oneIn(int n) {
+        checkArgument(n > 0, "n must be positive");
+        return n == 1 ? all() : new OneIn(n);
+    }
+
+    /**
+     * @return sampling timing the processors of the first n docs in each second of each pipeline,
+     * on behalf of the executions of the pipeline in the previous second, the weights of n samples add up to them
+     */
+    public static TimingSampling perSecond(int n) {
+        return perSecond(n, System::currentTimeMillis);
+    }
+
+    static TimingSampling perSecond(int n, LongSupplier clock) {
+        checkArgument(n > 0, "n must be positive");
+        return new PerSecond(n, clock);
+    }
+
+    /**
+     * @return the number of executions the doc stands for if it is sampled, otherwise {@link #NOT_SAMPLED}
+     */
+    abstract long sample(Pipeline pipeline);
+
+    private static class All extends TimingSampling {
+        @Override
+        long sample(Pipeline pipeline) {
+            return 1;
+        }
+    }
+
+    private static class OneIn extends TimingSampling {
+        private final int n;
+
+        private OneIn(int n) {
+            this.n = n;
+        }
+
+        @Override
+        long sample(Pipeline pipeline) {
+            return ThreadLocalRandom.current().nextInt(n) == 0 ? n : NOT_SAMPLED;
+        }
+    }
+
+    private static class PerSecond extends TimingSampling {
+        private final int n;
+        private final LongSupplier clock;
+        private final ConcurrentMap<Pipeline, Window> windows = new MapMaker().weakKeys().makeMap();
+
+        private PerSecond(int n, LongSupplier clock) {
+            this.n = n;
+            this.clock = clock;
+        }
+
+        @Override
+        long sample(Pipeline pipeline) {
+            Window window = windows.get(pipeline);
+            if (window == null) {
+                window = windows.computeIfAbsent(pipeline, k -> new Window());
+            }
+            return window.sample(clock.getAsLong() / 1000, n);
+        }
+    }
+
+    private static class Window {
+        private final LongAdder executions = new LongAdder();
+        private final AtomicInteger sampled = new AtomicInteger();
+        private volatile long second;
+        private volatile long weight = 1;
+        private volatile long remainder;
+
+        private long sample(long currentSecond, int n) {
+            if (currentSecond != second) {
+                roll(currentSecond, n);
+            }
+
+            executions.increment();
+            int sample = sampled.get() >= n ? n + 1 : sampled.incrementAndGet();
+            if (sample > n) {
+                return NOT_SAMPLED;
+            }
+            // the remainder of the division is spread over the first samples
+            return sample <= remainder ? weight + 1 : weight;
+        }
+
+        private synchronized void roll(long currentSecond, int n) {
+            if (currentSecond == second) {
+                return;
+            }
+
+            long lastExecutions = executions.sumThenReset();
+            // a gap of more than a second means the last window is not representative of the current rate
+            if (currentSecond - second == 1 && lastExecutions > n) {
+                weight = lastExecutions / n;
+                remainder = lastExecutions % n;
+            } else {
+                weight = 1;
+                remainder = 0;
+            }
+            sampled.set(0);
+            second = currentSecond;
+        }
+    }
+}
@@ -1,22 +1,41 @@
 package io.logz.sawmill;
 
-import java.util.concurrent.atomic.AtomicBoolean;
-
+/**
+ * A slot of the {@link PipelineExecutionTimeWatchdog}, reused by one execution after the other.
+ * The overtime callback should copy whatever it needs, as the slot is recycled once the execution finishes.
+ */
 public class WatchedPipeline {
-    private final Doc doc;
-    private final String pipelineId;
-    private final long ingestTimestamp;
-    private boolean notifiedAsOvertime;
-    private AtomicBoolean running;
-    private final Thread thread;
+    private Doc doc;
+    private String pipelineId;
+    private volatile long ingestTimestamp;
+    private volatile boolean notifiedAsOvertime;
+    private volatile boolean running;
+    private Thread thread;
+
+    // next free slot index + 1, guarded by the watchdog free slots stack
+    int nextFreeSlot;
+
+    WatchedPipeline() {
+    }
 
     public WatchedPipeline(Doc doc, String pipelineId, long ingestTimestamp, Thread thread) {
+        start(doc, pipelineId, ingestTimestamp, thread);
+    }
+
+    synchronized void start(Doc doc, String pipelineId, long ingestTimestamp, Thread thread) {
         this.doc = doc;
         this.pipelineId = pipelineId;
         this.ingestTimestamp = ingestTimestamp;
-        this.notifiedAsOvertime = false;
-        this.running = new AtomicBoolean(true);
         this.thread = thread;
+        this.notifiedAsOvertime = false;
+        this.running = true;
+    }
+
+    synchronized void clear() {
+        this.running = false;
+        this.doc = null;
+        this.pipelineId = null;
+        this.thread = null;
     }
 
     public Doc getDoc() {
@@ -39,8 +58,16 @@ public class WatchedPipeline {
         this.notifiedAsOvertime = true;
     }
 
-    public boolean compareAndSetFinishedRunning() {
-        return running.compareAndSet(true, false);
+    boolean isRunning() {
+        return running;
+    }
+
+    public synchronized boolean compareAndSetFinishedRunning() {
+        if (!running) {
+            return false;
+        }
+        running = false;
+        return true;
     }
 
     public void interrupt() {
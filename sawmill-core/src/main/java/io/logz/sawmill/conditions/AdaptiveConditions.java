@@ -0,0 +1,156 @@
+package io.logz.sawmill.conditions;
+
+import io.logz.sawmill.Condition;
+import io.logz.sawmill.Doc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Child conditions of a short circuiting condition, evaluated in the order expected to reach the decisive value the cheapest,
+ * {@code false} for {@link AndCondition} and {@code true} for {@link OrCondition}.
+ * Evaluations are sampled, a sampled evaluation evaluates and times every child, past the decisive one too,
+ * and records whether each was decisive, so children the current order never reaches are still measured on samples only.
+ * Every reorder period of samples the children are sorted by their average cost divided by their probability to be decisive,
+ * which is the optimal order for independent conditions, then the stats are halved so the order follows changes in the docs.
+ * Conditions have no side effects, so evaluating them in any order, or more of them, gives the same result.
+ */
+final class AdaptiveConditions {
+    private static final int DEFAULT_SAMPLE_RATE = 64;
+    private static final int DEFAULT_REORDER_PERIOD = 1024;
+
+    private final boolean decisiveValue;
+    private final int sampleRate;
+    private final int reorderPeriod;
+    private final ConditionStats[] stats;
+    private volatile Condition[] conditions;
+    private int samples;
+
+    AdaptiveConditions(List<Condition> conditions, boolean decisiveValue) {
+        this(conditions, decisiveValue, DEFAULT_SAMPLE_RATE, DEFAULT_REORDER_PERIOD);
+    }
+
+    AdaptiveConditions(List<Condition> conditions, boolean decisiveValue, int sampleRate, int reorderPeriod) {
+        checkArgument(sampleRate > 0, "sample rate must be positive");
+        checkArgument(reorderPeriod > 0, "reorder period must be positive");
+
+        this.decisiveValue = decisiveValue;
+        this.sampleRate = sampleRate;
+        this.reorderPeriod = reorderPeriod;
+        this.conditions = conditions.toArray(new Condition[0]);
+        this.stats = new ConditionStats[this.conditions.length];
+        for (int i = 0; i < stats.length; i++) {
+            stats[i] = new ConditionStats(this.conditions[i], i);
+        }
+    }
+
+    /**
+     * @return whether any of the conditions evaluated to the decisive value, the conditions following it are not evaluated
+     */
+    boolean anyDecisive(Doc doc) {
+        Condition[] currentConditions = conditions;
+        if (currentConditions.length > 1 && ThreadLocalRandom.current().nextInt(sampleRate) == 0) {
+            return anyDecisiveSampled(doc, currentConditions);
+        }
+
+        for (Condition condition : currentConditions) {
+            if (condition.evaluate(doc) == decisiveValue) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    List<Condition> getConditions() {
+        return Arrays.asList(conditions);
+    }
+
+    private boolean anyDecisiveSampled(Doc doc, Condition[] currentConditions) {
+        long[] tookNs = new long[currentConditions.length];
+        boolean[] decisive = new boolean[currentConditions.length];
+        boolean anyDecisive = false;
+        for (int i = 0; i < currentConditions.length; i++) {
+            long start = System.nanoTime();
+            decisive[i] = currentConditions[i].evaluate(doc) == decisiveValue;
+            tookNs[i] = System.nanoTime() - start;
+            anyDecisive |= decisive[i];
+        }
+
+        record(currentConditions, tookNs, decisive);
+        return anyDecisive;
+    }
+
+    private synchronized void record(Condition[] currentConditions, long[] tookNs, boolean[] decisive) {
+        for (int i = 0; i < currentConditions.length; i++) {
+            ConditionStats conditionStats = statsOf(currentConditions[i]);
+            conditionStats.evaluations++;
+            conditionStats.totalNs += tookNs[i];
+            if (decisive[i]) {
+                conditionStats.decisive++;
+            }
+        }
+
+        if (++samples >= reorderPeriod) {
+            reorder();
+            samples = 0;
+        }
+    }
+
+    private ConditionStats statsOf(Condition condition) {
+        for (ConditionStats conditionStats : stats) {
+            if (conditionStats.condition == condition) {
+                return conditionStats;
+            }
+        }
+        throw new IllegalStateException("unknown condition " + condition);
+    }
+
+    private void reorder() {
+        List<ConditionStats> ordered = new ArrayList<>(Arrays.asList(stats));
+        ordered.sort(Comparator.comparingDouble(ConditionStats::rank).thenComparingInt(conditionStats -> conditionStats.declarationIndex));
+
+        Condition[] reordered = new Condition[ordered.size()];
+        for (int i = 0; i < reordered.length; i++) {
+            reordered[i] = ordered.get(i).condition;
+            ordered.get(i).decay();
+        }
+        conditions = reordered;
+    }
+
+    private static class ConditionStats {
+        private final Condition condition;
+        private final int declarationIndex;
+        private long evaluations;
+        private long decisive;
+        private long totalNs;
+
+        private ConditionStats(Condition condition, int declarationIndex) {
+            this.condition = condition;
+            this.declarationIndex = declarationIndex;
+        }
+
+        /**
+         * Expected cost to reach a decisive value, conditions that were never evaluated rank last and keep their declaration order
+         */
+        private double rank() {
+            if (evaluations == 0) {
+                return Double.POSITIVE_INFINITY;
+            }
+
+            double averageCostNs = (double) totalNs / evaluations;
+            double decisiveProbability = (decisive + 1.0) / (evaluations + 2.0);
+            return averageCostNs / decisiveProbability;
+        }
+
+        private void decay() {
+            evaluations /= 2;
+            decisive /= 2;
+            totalNs /= 2;
+        }
+    }
+}
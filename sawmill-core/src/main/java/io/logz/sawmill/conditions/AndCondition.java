@@ -15,15 +15,15 @@ import java.util.stream.Collectors;
 @ConditionProvider(type = "and", factory = AndCondition.Factory.class)
 public class AndCondition implements Condition {
 
-    private List<Condition> conditions;
+    private final AdaptiveConditions conditions;
 
     public AndCondition(List<Condition> conditions) {
-        this.conditions = conditions;
+        this.conditions = new AdaptiveConditions(conditions, false);
     }
 
     @Override
     public boolean evaluate(Doc doc) {
-        return conditions.stream().allMatch(condition -> condition.evaluate(doc));
+        return !conditions.anyDecisive(doc);
     }
 
     public static class Factory implements Condition.Factory {
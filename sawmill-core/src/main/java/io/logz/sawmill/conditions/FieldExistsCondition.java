@@ -2,6 +2,7 @@ package io.logz.sawmill.conditions;
 
 import io.logz.sawmill.Condition;
 import io.logz.sawmill.Doc;
+import io.logz.sawmill.FieldPath;
 import io.logz.sawmill.annotations.ConditionProvider;
 import io.logz.sawmill.parser.ConditionParser;
 import io.logz.sawmill.utilities.JsonUtils;
@@ -10,10 +11,10 @@ import java.util.Map;
 
 @ConditionProvider(type = "exists", factory = FieldExistsCondition.Factory.class)
 public class FieldExistsCondition implements Condition {
-    private String field;
+    private FieldPath field;
 
     public FieldExistsCondition(String field) {
-        this.field = field;
+        this.field = FieldPath.of(field);
     }
 
     @Override
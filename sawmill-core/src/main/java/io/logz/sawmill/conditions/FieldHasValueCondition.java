@@ -4,6 +4,7 @@ import com.google.common.primitives.Doubles;
 import com.google.common.primitives.Longs;
 import io.logz.sawmill.Condition;
 import io.logz.sawmill.Doc;
+import io.logz.sawmill.FieldPath;
 import io.logz.sawmill.Template;
 import io.logz.sawmill.TemplateService;
 import io.logz.sawmill.annotations.ConditionProvider;
@@ -20,18 +21,18 @@ import static java.util.Objects.requireNonNull;
 @ConditionProvider(type = "hasValue", factory = FieldHasValueCondition.Factory.class)
 public class FieldHasValueCondition implements Condition {
 
-    private String field;
+    private FieldPath field;
     private List<Object> possibleValues;
 
     public FieldHasValueCondition(String field, List<Object> possibleValues) {
-        this.field = field;
+        this.field = FieldPath.of(field);
         this.possibleValues = possibleValues;
     }
 
     @Override
     public boolean evaluate(Doc doc) {
-        if (!doc.hasField(field)) return false;
         Object value = getValueFromDoc(doc);
+        if (value == null) return false;
 
         return possibleValues.stream()
                 .map(possibleValue -> {
@@ -44,7 +45,7 @@ public class FieldHasValueCondition implements Condition {
     }
 
     private Object getValueFromDoc(Doc doc) {
-        Object value = doc.getField(field);
+        Object value = doc.getFieldOrNull(field);
 
         if (value instanceof Float)
             return ((Float) value).doubleValue();
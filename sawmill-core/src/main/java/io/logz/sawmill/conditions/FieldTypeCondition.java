@@ -4,6 +4,7 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import io.logz.sawmill.Condition;
 import io.logz.sawmill.Doc;
+import io.logz.sawmill.FieldPath;
 import io.logz.sawmill.annotations.ConditionProvider;
 import io.logz.sawmill.exceptions.ProcessorConfigurationException;
 import io.logz.sawmill.parser.ConditionParser;
@@ -16,7 +17,7 @@ import java.util.function.Predicate;
 @ConditionProvider(type="fieldType", factory = FieldTypeCondition.Factory.class)
 public class FieldTypeCondition implements Condition {
 
-    private final String path;
+    private final FieldPath path;
     private final Predicate<Object> typePredicate;
     private static final ImmutableMap<String, Predicate<Object>> typeEvaluators = ImmutableMap.of(
             "string", value -> value instanceof String,
@@ -37,13 +38,14 @@ public class FieldTypeCondition implements Condition {
         ImmutableSet<String> supportedTypes = typeEvaluators.keySet();
         if (!supportedTypes.contains(type.toLowerCase())) throw new ProcessorConfigurationException("type ["+type+"] must be one of " + supportedTypes);
 
-        this.path = path;
+        this.path = FieldPath.of(path);
         this.typePredicate = typeEvaluators.get(type.toLowerCase());
     }
 
     @Override
     public boolean evaluate(Doc doc) {
-        return doc.hasField(path) && typePredicate.test(doc.getField(path));
+        Object value = doc.getFieldOrNull(path);
+        return value != null && typePredicate.test(value);
     }
 
     public static class Factory implements Condition.Factory {
@@ -2,6 +2,7 @@ package io.logz.sawmill.conditions;
 
 import io.logz.sawmill.Condition;
 import io.logz.sawmill.Doc;
+import io.logz.sawmill.FieldPath;
 import io.logz.sawmill.annotations.ConditionProvider;
 import io.logz.sawmill.parser.ConditionParser;
 import io.logz.sawmill.utilities.JsonUtils;
@@ -14,21 +15,17 @@ import static java.util.Objects.requireNonNull;
 @ConditionProvider(type = "in", factory = InCondition.Factory.class)
 public class InCondition implements Condition {
 
-    private String path;
+    private FieldPath path;
     private String value;
 
     public InCondition(String path, String value) {
-        this.path = requireNonNull(path);
+        this.path = FieldPath.of(requireNonNull(path));
         this.value = requireNonNull(value);
     }
 
     @Override
     public boolean evaluate(Doc doc) {
-        if (!doc.hasField(path)) {
-            return false;
-        }
-
-        Object pathValue = doc.getField(path);
+        Object pathValue = doc.getFieldOrNull(path);
         if (!(pathValue instanceof List)) {
             return false;
         }
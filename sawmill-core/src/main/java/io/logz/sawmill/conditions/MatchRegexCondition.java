@@ -2,8 +2,10 @@ package io.logz.sawmill.conditions;
 
 import io.logz.sawmill.Condition;
 import io.logz.sawmill.Doc;
+import io.logz.sawmill.FieldPath;
 import io.logz.sawmill.annotations.ConditionProvider;
 import io.logz.sawmill.parser.ConditionParser;
+import io.logz.sawmill.utilities.ExecutionBudget;
 import io.logz.sawmill.utilities.JsonUtils;
 
 import java.util.Map;
@@ -15,35 +17,44 @@ import static java.util.Objects.requireNonNull;
 @ConditionProvider(type = "matchRegex", factory = MatchRegexCondition.Factory.class)
 public class MatchRegexCondition implements Condition {
 
-    private String field;
+    private FieldPath field;
     private Pattern pattern;
     private Function<String, Boolean> matchingFunction;
+    private ExecutionBudget budget;
 
     public MatchRegexCondition(String field, String regex, boolean caseInsensitive, boolean matchPartOfValue) {
+        this(field, regex, caseInsensitive, matchPartOfValue, 0);
+    }
+
+    /**
+     * @param budgetMs the time matching a doc may take before the condition evaluates to false, 0 for no budget
+     */
+    public MatchRegexCondition(String field, String regex, boolean caseInsensitive, boolean matchPartOfValue, long budgetMs) {
         int patternFlags = caseInsensitive ? Pattern.CASE_INSENSITIVE : 0;
-        this.field = requireNonNull(field);
+        this.field = FieldPath.of(requireNonNull(field));
         this.pattern = Pattern.compile(requireNonNull(regex), patternFlags);
         this.matchingFunction = matchPartOfValue ? this::matchPartOfValue : this::matchEntireOfValue;
+        this.budget = ExecutionBudget.ofMillis(budgetMs);
     }
 
     @Override
     public boolean evaluate(Doc doc) {
-        if (!doc.hasField(field)) return false;
+        Object value = doc.getFieldOrNull(field);
+        if (value == null) return false;
 
         try {
-            String value = doc.getField(field);
-            return matchingFunction.apply(value);
+            return matchingFunction.apply((String) value);
         } catch (Exception e) {
             return false;
         }
     }
 
     private boolean matchEntireOfValue(String value) {
-        return pattern.matcher(value).matches();
+        return pattern.matcher(budget.guard(value)).matches();
     }
 
     private boolean matchPartOfValue(String value) {
-        return pattern.matcher(value).find();
+        return pattern.matcher(budget.guard(value)).find();
     }
 
     public static class Factory implements Condition.Factory {
@@ -53,7 +64,8 @@ public class MatchRegexCondition implements Condition {
         @Override
         public MatchRegexCondition create(Map<String, Object> config, ConditionParser conditionParser) {
             MatchRegexCondition.Configuration configuration = JsonUtils.fromJsonMap(MatchRegexCondition.Configuration.class, config);
-            return new MatchRegexCondition(configuration.getField(), configuration.getRegex(), configuration.isCaseInsensitive(), configuration.isMatchPartOfValue());
+            return new MatchRegexCondition(configuration.getField(), configuration.getRegex(), configuration.isCaseInsensitive(), configuration.isMatchPartOfValue(),
+                    configuration.getBudgetMs());
         }
 
     }
@@ -64,6 +76,7 @@ public class MatchRegexCondition implements Condition {
         private String regex;
         private boolean caseInsensitive;
         private boolean matchPartOfValue = true;
+        private long budgetMs = 0;
 
         public Configuration() {}
 
@@ -90,6 +103,10 @@ public class MatchRegexCondition implements Condition {
             return matchPartOfValue;
         }
 
+        public long getBudgetMs() {
+            return budgetMs;
+        }
+
     }
 
 }
@@ -2,6 +2,7 @@ package io.logz.sawmill.conditions;
 
 import io.logz.sawmill.Condition;
 import io.logz.sawmill.Doc;
+import io.logz.sawmill.FieldPath;
 import io.logz.sawmill.annotations.ConditionProvider;
 import io.logz.sawmill.parser.ConditionParser;
 import io.logz.sawmill.utilities.JsonUtils;
@@ -13,14 +14,14 @@ import static java.util.Objects.requireNonNull;
 @ConditionProvider(type = "mathComparator", factory = MathComparatorCondition.Factory.class)
 public class MathComparatorCondition implements Condition {
 
-    private final String field;
+    private final FieldPath field;
     private final Double gte;
     private final Double gt;
     private final Double lte;
     private final Double lt;
 
     public MathComparatorCondition(String field, Double gte, Double gt, Double lte, Double lt) {
-        this.field = requireNonNull(field);
+        this.field = FieldPath.of(requireNonNull(field));
         this.gte = gte;
         this.gt = gt;
         this.lte = lte;
@@ -29,8 +30,9 @@ public class MathComparatorCondition implements Condition {
 
     @Override
     public boolean evaluate(Doc doc) {
-        if (!doc.hasField(field, Number.class)) return false;
-        double value = ((Number)doc.getField(this.field)).doubleValue();
+        Object fieldValue = doc.getFieldOrNull(field);
+        if (!(fieldValue instanceof Number)) return false;
+        double value = ((Number) fieldValue).doubleValue();
 
         boolean greaterThan = (gte == null || value >= gte) && (gt == null || value > gt);
         boolean lessThan = (lte == null || value <= lte) && (lt == null || value < lt);
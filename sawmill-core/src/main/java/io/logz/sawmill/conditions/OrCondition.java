@@ -15,15 +15,15 @@ import java.util.stream.Collectors;
 @ConditionProvider(type = "or", factory = OrCondition.Factory.class)
 public class OrCondition implements Condition {
 
-    private List<Condition> conditions;
+    private final AdaptiveConditions conditions;
 
     public OrCondition(List<Condition> conditions) {
-        this.conditions = conditions;
+        this.conditions = new AdaptiveConditions(conditions, true);
     }
 
     @Override
     public boolean evaluate(Doc doc) {
-        return conditions.stream().anyMatch(condition -> condition.evaluate(doc));
+        return conditions.anyDecisive(doc);
     }
 
     public static class Factory implements Condition.Factory {
@@ -0,0 +1,25 @@
+package io.logz.sawmill.exceptions;
+
+import io.logz.sawmill.ExecutionResult;
+
+import java.util.List;
+
+/**
+ * Thrown when a doc of a batch fails on unexpected error, carrying the results of the docs executed before it
+ */
+public class PipelineBatchExecutionException extends PipelineExecutionException {
+    private final List<ExecutionResult> executionResults;
+
+    public PipelineBatchExecutionException(String pipelineId, Exception e, List<ExecutionResult> executionResults) {
+        super(pipelineId, e);
+        this.executionResults = executionResults;
+    }
+
+    /**
+     * @return the results of the docs executed before the failed one, in the same order as the docs,
+     * so the failed doc is the one at the index of the size of the results
+     */
+    public List<ExecutionResult> getExecutionResults() {
+        return executionResults;
+    }
+}
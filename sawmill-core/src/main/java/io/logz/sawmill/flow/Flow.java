@@ -0,0 +1,34 @@
+package io.logz.sawmill.flow;
+
+/**
+ * The reactive streams interfaces, identical in shape to {@code java.util.concurrent.Flow} and
+ * {@code org.reactivestreams}, so Sawmill stays on Java 8 while a JDK 9+ or reactive streams
+ * graph can be bridged with a thin adapter that delegates each method.
+ */
+public final class Flow {
+
+    private Flow() {}
+
+    public interface Publisher<T> {
+        void subscribe(Subscriber<? super T> subscriber);
+    }
+
+    public interface Subscriber<T> {
+        void onSubscribe(Subscription subscription);
+
+        void onNext(T item);
+
+        void onError(Throwable throwable);
+
+        void onComplete();
+    }
+
+    public interface Subscription {
+        void request(long n);
+
+        void cancel();
+    }
+
+    public interface Processor<T, R> extends Subscriber<T>, Publisher<R> {
+    }
+}
@@ -0,0 +1,281 @@
+package io.logz.sawmill.flow;
+
+import io.logz.sawmill.Doc;
+import io.logz.sawmill.ExecutionResult;
+import io.logz.sawmill.Pipeline;
+import io.logz.sawmill.PipelineExecutor;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Executes a pipeline as a stage of a reactive stream.
+ * At most {@code bufferSize} docs are requested from upstream and not yet handed downstream, and at most
+ * {@code parallelism} of them are executed at once, so a slow subscriber or a slow pipeline slows the source
+ * down instead of queueing docs in memory.
+ * Dropped docs are filtered out without consuming downstream demand, and an unexpected execution error
+ * ({@link io.logz.sawmill.exceptions.PipelineExecutionException}) cancels upstream and is signaled downstream.
+ * A single subscriber is supported.
+ */
+public class PipelineFlowProcessor implements Flow.Processor<Doc, ProcessedDoc> {
+    private final PipelineExecutor pipelineExecutor;
+    private final Pipeline pipeline;
+    private final Executor executor;
+    private final int parallelism;
+    private final int bufferSize;
+    private final boolean ordered;
+
+    private final Queue<Doc> received = new ConcurrentLinkedQueue<>();
+    private final Queue<Slot> completed = new ConcurrentLinkedQueue<>();
+    private final AtomicReference<Flow.Subscription> upstream = new AtomicReference<>();
+    private final AtomicReference<Flow.Subscriber<? super ProcessedDoc>> downstream = new AtomicReference<>();
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicInteger wip = new AtomicInteger();
+
+    private volatile boolean upstreamDone;
+    private volatile Throwable upstreamError;
+    private volatile Throwable downstreamError;
+    private volatile boolean cancelled;
+
+    // accessed only by the thread that drains
+    private final Queue<Slot> ready = new ArrayDeque<>();
+    private int running;
+    private boolean terminated;
+
+    public PipelineFlowProcessor(PipelineExecutor pipelineExecutor, Pipeline pipeline, Executor executor, int parallelism) {
+        this(pipelineExecutor, pipeline, executor, parallelism, parallelism * 4, true);
+    }
+
+    /**
+     * @param executor executes the pipeline, one task per doc
+     * @param parallelism max docs executed concurrently
+     * @param bufferSize max docs requested from upstream and not yet delivered or dropped, at least {@code parallelism}
+     * @param ordered whether docs are delivered in the order they were received, or as soon as they are processed
+     */
+    public PipelineFlowProcessor(PipelineExecutor pipelineExecutor, Pipeline pipeline, Executor executor, int parallelism, int bufferSize, boolean ordered) {
+        checkArgument(parallelism > 0, "parallelism must be positive");
+        checkArgument(bufferSize >= parallelism, "bufferSize cannot be smaller than parallelism");
+        this.pipelineExecutor = requireNonNull(pipelineExecutor, "pipeline executor cannot be null");
+        this.pipeline = requireNonNull(pipeline, "pipeline cannot be null");
+        this.executor = requireNonNull(executor, "executor cannot be null");
+        this.parallelism = parallelism;
+        this.bufferSize = bufferSize;
+        this.ordered = ordered;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ProcessedDoc> subscriber) {
+        requireNonNull(subscriber, "subscriber cannot be null");
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {}
+
+                @Override
+                public void cancel() {}
+            });
+            subscriber.onError(new IllegalStateException("pipeline " + pipeline.getId() + " flow processor supports a single subscriber"));
+            return;
+        }
+
+        subscriber.onSubscribe(new DownstreamSubscription());
+        downstream.set(subscriber);
+        drain();
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        requireNonNull(subscription, "subscription cannot be null");
+        if (!upstream.compareAndSet(null, subscription) || cancelled) {
+            subscription.cancel();
+            return;
+        }
+
+        subscription.request(bufferSize);
+    }
+
+    @Override
+    public void onNext(Doc doc) {
+        received.offer(requireNonNull(doc, "doc cannot be null"));
+        drain();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        upstreamError = requireNonNull(throwable, "throwable cannot be null");
+        upstreamDone = true;
+        drain();
+    }
+
+    @Override
+    public void onComplete() {
+        upstreamDone = true;
+        drain();
+    }
+
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+
+        int missed = 1;
+        do {
+            if (cancelled) {
+                received.clear();
+                completed.clear();
+                ready.clear();
+            } else if (!terminated) {
+                drainOnce(downstream.get());
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void drainOnce(Flow.Subscriber<? super ProcessedDoc> subscriber) {
+        Slot slot;
+        while ((slot = completed.poll()) != null) {
+            running--;
+            if (!ordered) {
+                ready.offer(slot);
+            }
+        }
+
+        Doc doc;
+        while (running < parallelism && (doc = received.poll()) != null) {
+            Slot newSlot = new Slot(doc);
+            running++;
+            if (ordered) {
+                ready.offer(newSlot);
+            }
+            dispatch(newSlot);
+        }
+
+        if (subscriber == null) {
+            return;
+        }
+
+        if (downstreamError != null) {
+            terminate(subscriber, downstreamError);
+            return;
+        }
+
+        long demand = requested.get();
+        long emitted = 0;
+        long released = 0;
+        while ((slot = ready.peek()) != null && slot.done) {
+            if (slot.error != null) {
+                terminate(subscriber, slot.error);
+                return;
+            }
+
+            if (!slot.executionResult.isDropped()) {
+                if (emitted == demand) {
+                    break;
+                }
+                subscriber.onNext(new ProcessedDoc(slot.doc, slot.executionResult));
+                emitted++;
+            }
+            ready.poll();
+            released++;
+        }
+
+        if (emitted > 0 && demand != Long.MAX_VALUE) {
+            requested.addAndGet(-emitted);
+        }
+
+        if (upstreamDone && received.isEmpty() && running == 0 && ready.isEmpty()) {
+            terminated = true;
+            if (upstreamError != null) {
+                subscriber.onError(upstreamError);
+            } else {
+                subscriber.onComplete();
+            }
+            return;
+        }
+
+        if (released > 0 && !upstreamDone) {
+            upstream.get().request(released);
+        }
+    }
+
+    private void dispatch(Slot slot) {
+        try {
+            executor.execute(() -> execute(slot));
+        } catch (RuntimeException e) {
+            complete(slot, null, e);
+        }
+    }
+
+    private void execute(Slot slot) {
+        ExecutionResult executionResult = null;
+        RuntimeException error = null;
+        try {
+            executionResult = pipelineExecutor.execute(pipeline, slot.doc);
+        } catch (RuntimeException e) {
+            error = e;
+        }
+        complete(slot, executionResult, error);
+    }
+
+    private void complete(Slot slot, ExecutionResult executionResult, RuntimeException error) {
+        slot.executionResult = executionResult;
+        slot.error = error;
+        slot.done = true;
+        completed.offer(slot);
+        drain();
+    }
+
+    private void terminate(Flow.Subscriber<? super ProcessedDoc> subscriber, Throwable error) {
+        terminated = true;
+        cancelled = true;
+        cancelUpstream();
+        subscriber.onError(error);
+    }
+
+    private void cancelUpstream() {
+        Flow.Subscription subscription = upstream.get();
+        if (subscription != null) {
+            subscription.cancel();
+        }
+    }
+
+    private class DownstreamSubscription implements Flow.Subscription {
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                downstreamError = new IllegalArgumentException("non-positive subscription request: " + n);
+            } else {
+                requested.accumulateAndGet(n, (current, add) -> current + add < 0 ? Long.MAX_VALUE : current + add);
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            cancelUpstream();
+            drain();
+        }
+    }
+
+    private static class Slot {
+        private final Doc doc;
+        private ExecutionResult executionResult;
+        private RuntimeException error;
+        private volatile boolean done;
+
+        private Slot(Doc doc) {
+            this.doc = doc;
+        }
+    }
+}
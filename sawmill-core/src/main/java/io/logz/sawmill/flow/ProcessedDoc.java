@@ -0,0 +1,24 @@
+package io.logz.sawmill.flow;
+
+import io.logz.sawmill.Doc;
+import io.logz.sawmill.ExecutionResult;
+
+import static java.util.Objects.requireNonNull;
+
+public class ProcessedDoc {
+    private final Doc doc;
+    private final ExecutionResult executionResult;
+
+    public ProcessedDoc(Doc doc, ExecutionResult executionResult) {
+        this.doc = requireNonNull(doc);
+        this.executionResult = requireNonNull(executionResult);
+    }
+
+    public Doc getDoc() {
+        return doc;
+    }
+
+    public ExecutionResult getExecutionResult() {
+        return executionResult;
+    }
+}
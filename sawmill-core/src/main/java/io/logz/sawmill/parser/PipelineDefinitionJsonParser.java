@@ -11,8 +11,22 @@ import java.util.Map;
 public class PipelineDefinitionJsonParser {
 
     public static PipelineDefinition parse(String config) {
-        String configJson = ConfigFactory.parseString(config).root().render(ConfigRenderOptions.concise());
-        Map<String, Object> configMap = JsonUtils.fromJsonString(new TypeReference<Map<String, Object>>() {}, configJson);
+        return parseNormalized(normalize(config));
+    }
+
+    /**
+     * @return the config as compact json with the keys of every object sorted,
+     * so configs differing only in syntax, whitespace, comments or keys order normalize to the same string
+     */
+    public static String normalize(String config) {
+        return ConfigFactory.parseString(config).root().render(ConfigRenderOptions.concise());
+    }
+
+    /**
+     * @param normalizedConfig config returned by {@link #normalize(String)}
+     */
+    public static PipelineDefinition parseNormalized(String normalizedConfig) {
+        Map<String, Object> configMap = JsonUtils.fromJsonString(new TypeReference<Map<String, Object>>() {}, normalizedConfig);
         return parse(configMap);
     }
 
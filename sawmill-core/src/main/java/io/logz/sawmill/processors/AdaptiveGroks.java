@@ -0,0 +1,285 @@
+package io.logz.sawmill.processors;
+
+import io.logz.sawmill.ExpressionStatistics;
+import io.logz.sawmill.utilities.Grok;
+import io.logz.sawmill.utilities.GrokPrefilter;
+import io.logz.sawmill.utilities.ThreadLocalResource;
+import io.logz.sawmill.utilities.Utf8Buffer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Groks of a grok processor, tried in turn until one matches, skipping those ruled out by a {@link GrokPrefilter}.
+ * Attempts and matches of every grok are counted for every doc, tries are sampled to time every attempted grok.
+ * When reordering, sampled tries attempt every grok, past the first match too, so groks the current order never reaches
+ * are still timed, on samples only. Every reorder period of samples the groks are sorted by their average cost divided by
+ * their probability to match, the cheapest expected way to the first match, then the ranking stats are halved
+ * so the order follows changes in the docs.
+ *
+ * Unlike conditions, a text may match several groks, so reordering may change which grok parses it.
+ * Keeping the first match, the groks matching the same sampled texts are recorded,
+ * and a grok only moves ahead of the groks declared before it that never matched a sampled text it matched.
+ */
+final class AdaptiveGroks {
+    private static final int DEFAULT_SAMPLE_RATE = 64;
+    private static final int DEFAULT_REORDER_PERIOD = 1024;
+    private static final ThreadLocalResource<Utf8Buffer> BUFFERS = new ThreadLocalResource<>(Utf8Buffer::new);
+
+    private final List<String> expressions;
+    private final Grok[] groks;
+    private final GrokPrefilter grokPrefilter;
+    private final boolean reorder;
+    private final boolean keepFirstMatch;
+    private final int sampleRate;
+    private final int reorderPeriod;
+    private final GrokStats[] stats;
+    private final boolean[][] overlapping;
+    private volatile int[] order;
+    private int samples;
+
+    AdaptiveGroks(List<String> expressions, List<Grok> groks, boolean reorder, boolean keepFirstMatch) {
+        this(expressions, groks, reorder, keepFirstMatch, DEFAULT_SAMPLE_RATE, DEFAULT_REORDER_PERIOD);
+    }
+
+    AdaptiveGroks(List<String> expressions, List<Grok> groks, boolean reorder, boolean keepFirstMatch, int sampleRate, int reorderPeriod) {
+        checkArgument(expressions.size() == groks.size(), "expected a grok per expression");
+        checkArgument(sampleRate > 0, "sample rate must be positive");
+        checkArgument(reorderPeriod > 0, "reorder period must be positive");
+
+        this.expressions = expressions;
+        this.groks = groks.toArray(new Grok[0]);
+        this.grokPrefilter = groks.size() > 1 ? new GrokPrefilter(groks) : null;
+        this.reorder = reorder && groks.size() > 1;
+        this.keepFirstMatch = keepFirstMatch;
+        this.sampleRate = sampleRate;
+        this.reorderPeriod = reorderPeriod;
+        this.stats = new GrokStats[this.groks.length];
+        for (int i = 0; i < stats.length; i++) {
+            stats[i] = new GrokStats();
+        }
+        this.overlapping = new boolean[this.groks.length][this.groks.length];
+        this.order = new int[this.groks.length];
+        Arrays.setAll(order, i -> i);
+    }
+
+    /**
+     * Encodes the value once into a per-thread buffer and tries the groks over its bytes,
+     * passing the captures of the first matching grok to the consumer
+     *
+     * @return whether any grok matched
+     */
+    boolean matches(String value, Grok.CaptureConsumer consumer) throws InterruptedException {
+        boolean[] mayMatch = grokPrefilter != null ? grokPrefilter.mayMatch(value) : null;
+        int[] currentOrder = order;
+
+        Utf8Buffer buffer = BUFFERS.acquire();
+        try {
+            buffer.encode(value);
+            Grok.Captures captures = ThreadLocalRandom.current().nextInt(sampleRate) == 0 ?
+                    matchSampled(buffer, mayMatch, currentOrder) :
+                    match(buffer, mayMatch, currentOrder);
+            if (captures == null) {
+                return false;
+            }
+
+            captures.forEach(consumer);
+            return true;
+        } finally {
+            BUFFERS.release(buffer);
+        }
+    }
+
+    private Grok.Captures match(Utf8Buffer buffer, boolean[] mayMatch, int[] currentOrder) throws InterruptedException {
+        for (int index : currentOrder) {
+            if (mayMatch != null && !mayMatch[index]) {
+                continue;
+            }
+
+            Grok.Captures captures = groks[index].match(buffer.getBytes(), 0, buffer.getLength());
+            boolean matched = isMatch(captures);
+            stats[index].count(matched);
+            if (matched) {
+                return captures;
+            }
+        }
+        return null;
+    }
+
+    private Grok.Captures matchSampled(Utf8Buffer buffer, boolean[] mayMatch, int[] currentOrder) throws InterruptedException {
+        boolean attemptAll = reorder;
+        long[] tookNs = new long[groks.length];
+        boolean[] attempted = new boolean[groks.length];
+        boolean[] matched = new boolean[groks.length];
+        Grok.Captures firstCaptures = null;
+
+        for (int index : currentOrder) {
+            if (firstCaptures != null && !attemptAll) {
+                break;
+            }
+            if (mayMatch != null && !mayMatch[index]) {
+                continue;
+            }
+
+            long start = System.nanoTime();
+            Grok.Captures captures = groks[index].match(buffer.getBytes(), 0, buffer.getLength());
+            tookNs[index] = System.nanoTime() - start;
+            attempted[index] = true;
+            matched[index] = isMatch(captures);
+
+            if (firstCaptures == null) {
+                stats[index].count(matched[index]);
+                if (matched[index]) {
+                    firstCaptures = captures;
+                }
+            }
+        }
+
+        record(tookNs, attempted, matched);
+        return firstCaptures;
+    }
+
+    /**
+     * An expression without named groups captures nothing, so like a miss the next one is tried
+     */
+    private static boolean isMatch(Grok.Captures captures) {
+        return captures != null && !captures.isEmpty();
+    }
+
+    private synchronized void record(long[] tookNs, boolean[] attempted, boolean[] matched) {
+        for (int i = 0; i < groks.length; i++) {
+            if (attempted[i]) {
+                stats[i].time(tookNs[i], matched[i]);
+            }
+        }
+
+        if (keepFirstMatch) {
+            for (int i = 0; i < groks.length; i++) {
+                for (int j = i + 1; j < groks.length && matched[i]; j++) {
+                    if (matched[j]) {
+                        overlapping[i][j] = true;
+                        overlapping[j][i] = true;
+                    }
+                }
+            }
+        }
+
+        if (reorder && ++samples >= reorderPeriod) {
+            reorder();
+            samples = 0;
+        }
+    }
+
+    private void reorder() {
+        List<Integer> ranked = new ArrayList<>(groks.length);
+        for (int i = 0; i < groks.length; i++) {
+            ranked.add(i);
+        }
+        ranked.sort(Comparator.<Integer>comparingDouble(index -> stats[index].rank()).thenComparingInt(index -> index));
+
+        int[] reordered = new int[groks.length];
+        boolean[] placed = new boolean[groks.length];
+        for (int position = 0; position < reordered.length; position++) {
+            for (int index : ranked) {
+                if (!placed[index] && (!keepFirstMatch || overlappingDeclaredBeforePlaced(index, placed))) {
+                    reordered[position] = index;
+                    placed[index] = true;
+                    break;
+                }
+            }
+        }
+
+        for (GrokStats grokStats : stats) {
+            grokStats.decay();
+        }
+        order = reordered;
+    }
+
+    /**
+     * The first unplaced grok in declaration order always qualifies, so a grok is placed at every position
+     */
+    private boolean overlappingDeclaredBeforePlaced(int index, boolean[] placed) {
+        for (int i = 0; i < index; i++) {
+            if (overlapping[i][index] && !placed[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    List<String> getExpressions() {
+        return Arrays.stream(order).mapToObj(expressions::get).collect(Collectors.toList());
+    }
+
+    synchronized List<ExpressionStatistics> getStatistics() {
+        List<ExpressionStatistics> statistics = new ArrayList<>(groks.length);
+        for (int i = 0; i < groks.length; i++) {
+            statistics.add(stats[i].toExpressionStatistics(expressions.get(i)));
+        }
+        return statistics;
+    }
+
+    private static class GrokStats {
+        private final LongAdder attempts = new LongAdder();
+        private final LongAdder matches = new LongAdder();
+        private long timedMatches;
+        private long matchNs;
+        private long timedMisses;
+        private long missNs;
+        private long evaluations;
+        private long hits;
+        private long totalNs;
+
+        private void count(boolean matched) {
+            attempts.increment();
+            if (matched) {
+                matches.increment();
+            }
+        }
+
+        private void time(long tookNs, boolean matched) {
+            if (matched) {
+                timedMatches++;
+                matchNs += tookNs;
+                hits++;
+            } else {
+                timedMisses++;
+                missNs += tookNs;
+            }
+            evaluations++;
+            totalNs += tookNs;
+        }
+
+        /**
+         * Expected cost to reach a match, groks that were never timed rank last and keep their declaration order
+         */
+        private double rank() {
+            if (evaluations == 0) {
+                return Double.POSITIVE_INFINITY;
+            }
+
+            double averageCostNs = (double) totalNs / evaluations;
+            double matchProbability = (hits + 1.0) / (evaluations + 2.0);
+            return averageCostNs / matchProbability;
+        }
+
+        private void decay() {
+            evaluations /= 2;
+            hits /= 2;
+            totalNs /= 2;
+        }
+
+        private ExpressionStatistics toExpressionStatistics(String expression) {
+            return new ExpressionStatistics(expression, attempts.sum(), matches.sum(),
+                    timedMatches > 0 ? matchNs / timedMatches : 0,
+                    timedMisses > 0 ? missNs / timedMisses : 0);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package io.logz.sawmill.processors;
 
 import io.logz.sawmill.Doc;
+import io.logz.sawmill.FieldPath;
 import io.logz.sawmill.ProcessResult;
 import io.logz.sawmill.Processor;
 import io.logz.sawmill.Template;
@@ -26,10 +27,15 @@ public class AddFieldProcessor implements Processor {
 
     @Override
     public ProcessResult process(Doc doc) {
-        doc.addField(path.render(doc), getValueFunction.apply(doc));
+        doc.addField(path.renderFieldPath(doc), getValueFunction.apply(doc));
         return ProcessResult.success();
     }
 
+    @Override
+    public boolean isFusible() {
+        return true;
+    }
+
     public static class Factory implements Processor.Factory {
         private final TemplateService templateService;
 
@@ -1,6 +1,7 @@
 package io.logz.sawmill.processors;
 
 import io.logz.sawmill.Doc;
+import io.logz.sawmill.FieldPath;
 import io.logz.sawmill.ProcessResult;
 import io.logz.sawmill.Processor;
 import io.logz.sawmill.Template;
@@ -18,6 +19,8 @@ import static com.google.common.base.Preconditions.checkState;
 
 @ProcessorProvider(type = "addTag", factory = AddTagProcessor.Factory.class)
 public class AddTagProcessor implements Processor {
+    private static final FieldPath TAGS = FieldPath.of("tags");
+
     private final List<Template> tags;
 
     public AddTagProcessor(List<Template> tags) {
@@ -28,10 +31,15 @@ public class AddTagProcessor implements Processor {
     @Override
     public ProcessResult process(Doc doc) {
         List<String> renderedTags = tags.stream().map(tag -> tag.render(doc)).collect(Collectors.toList());
-        doc.appendList("tags", renderedTags);
+        doc.appendList(TAGS, renderedTags);
         return ProcessResult.success();
     }
 
+    @Override
+    public boolean isFusible() {
+        return true;
+    }
+
     public static class Factory implements Processor.Factory {
         private final TemplateService templateService;
 
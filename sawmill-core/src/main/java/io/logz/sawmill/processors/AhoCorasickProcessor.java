@@ -1,6 +1,7 @@
 package io.logz.sawmill.processors;
 
 import io.logz.sawmill.Doc;
+import io.logz.sawmill.FieldPath;
 import io.logz.sawmill.ProcessResult;
 import io.logz.sawmill.Processor;
 import io.logz.sawmill.annotations.ProcessorProvider;
@@ -20,16 +21,16 @@ import static java.util.Objects.requireNonNull;
 @ProcessorProvider(type = "ahoCorasick", factory = AhoCorasickProcessor.Factory.class)
 public class AhoCorasickProcessor implements Processor {
 
-    private String field;
-    private String targetField;
+    private FieldPath field;
+    private FieldPath targetField;
 
     private AhoCorasickModel ahoCorasickModel;
 
     public AhoCorasickProcessor(String field, String targetField, List<String> inputWords) {
         validateInputWords(inputWords);
 
-        this.field = requireNonNull(field);
-        this.targetField = requireNonNull(targetField);
+        this.field = FieldPath.of(requireNonNull(field));
+        this.targetField = FieldPath.of(requireNonNull(targetField));
 
         ahoCorasickModel = new AhoCorasickModel();
         ahoCorasickModel.build(inputWords);
@@ -37,11 +38,12 @@ public class AhoCorasickProcessor implements Processor {
 
     @Override
     public ProcessResult process(Doc doc) {
-        if (!doc.hasField(field, String.class)) {
+        Object value = doc.getFieldOrNull(field);
+        if (!(value instanceof String)) {
             return ProcessResult.failure(String.format("failed to process date, field in path [%s] is missing", field));
         }
 
-        Collection<Emit> emits = ahoCorasickModel.search(doc.getField(field));
+        Collection<Emit> emits = ahoCorasickModel.search((String) value);
         List<String> result = emits.stream().map(emit -> emit.getKeyword()).collect(Collectors.toList());
         if (CollectionUtils.isNotEmpty(result)) {
             doc.addField(targetField, result);
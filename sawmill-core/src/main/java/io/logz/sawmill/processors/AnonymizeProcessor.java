@@ -1,6 +1,7 @@
 package io.logz.sawmill.processors;
 
 import io.logz.sawmill.Doc;
+import io.logz.sawmill.FieldPath;
 import io.logz.sawmill.ProcessResult;
 import io.logz.sawmill.Processor;
 import io.logz.sawmill.annotations.ProcessorProvider;
@@ -13,32 +14,33 @@ import org.apache.commons.lang3.StringUtils;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import static java.util.Objects.requireNonNull;
 
 @ProcessorProvider(type = "anonymize", factory = AnonymizeProcessor.Factory.class)
 public class AnonymizeProcessor implements Processor {
-    private final List<String> fields;
+    private final List<FieldPath> fields;
     private final Algorithm algorithm;
     private final String key;
 
     public AnonymizeProcessor(List<String> fields, Algorithm algorithm, String key) {
-        this.fields = requireNonNull(fields, "fields cannot be null");
+        this.fields = requireNonNull(fields, "fields cannot be null").stream().map(FieldPath::of).collect(Collectors.toList());
         this.key = requireNonNull(key, "key cannot be null");
         this.algorithm = algorithm;
     }
 
     @Override
     public ProcessResult process(Doc doc) {
-        List<String> missingFields = new ArrayList<>();
-        for (String field : fields) {
-            if (!doc.hasField(field, String.class)) {
+        List<FieldPath> missingFields = new ArrayList<>();
+        for (FieldPath field : fields) {
+            Object value = doc.getFieldOrNull(field);
+            if (!(value instanceof String)) {
                 missingFields.add(field);
                 continue;
             }
 
-            String value = doc.getField(field);
-            doc.addField(field, algorithm.anonimize(value));
+            doc.addField(field, algorithm.anonimize((String) value));
         }
 
         if (!missingFields.isEmpty()) {
@@ -1,6 +1,7 @@
 package io.logz.sawmill.processors;
 
 import io.logz.sawmill.Doc;
+import io.logz.sawmill.FieldPath;
 import io.logz.sawmill.ProcessResult;
 import io.logz.sawmill.Processor;
 import io.logz.sawmill.Template;
@@ -33,7 +34,7 @@ public class AppendListProcessor implements Processor {
     @Override
     public ProcessResult process(Doc doc) {
         List<String> renderedValues = values.stream().map(value -> value.render(doc)).collect(Collectors.toList());
-        doc.appendList(path.render(doc), renderedValues);
+        doc.appendList(path.renderFieldPath(doc), renderedValues);
         return ProcessResult.success();
     }
 
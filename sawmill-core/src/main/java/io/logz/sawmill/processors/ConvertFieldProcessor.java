@@ -1,6 +1,7 @@
 package io.logz.sawmill.processors;
 
 import io.logz.sawmill.Doc;
+import io.logz.sawmill.FieldPath;
 import io.logz.sawmill.FieldType;
 import io.logz.sawmill.ProcessResult;
 import io.logz.sawmill.Processor;
@@ -21,12 +22,14 @@ import static java.util.Objects.requireNonNull;
 @ProcessorProvider(type = "convert", factory = ConvertFieldProcessor.Factory.class)
 public class ConvertFieldProcessor implements Processor {
 
-    private final List<String> paths;
+    private final List<FieldPath> paths;
     private final FieldType fieldType;
+    private final Object defaultValue;
 
     public ConvertFieldProcessor(List<String> paths, FieldType fieldType) {
-        this.paths = requireNonNull(paths, "paths cannot be null");
+        this.paths = requireNonNull(paths, "paths cannot be null").stream().map(FieldPath::of).collect(Collectors.toList());
         this.fieldType = requireNonNull(fieldType, "field type cannot be null");
+        this.defaultValue = fieldType == BOOLEAN || fieldType == STRING ? null : 0L;
     }
 
     public FieldType getFieldType() {
@@ -35,41 +38,36 @@ public class ConvertFieldProcessor implements Processor {
 
     @Override
     public ProcessResult process(Doc doc) {
-        List<String> errorMessages = new ArrayList<>();
-        for (String path : paths) {
-            if (!doc.hasField(path)) {
-                errorMessages.add(String.format("failed to convert field in path [%s], field is missing.", path));
+        List<String> errorMessages = null;
+        for (FieldPath path : paths) {
+            Object beforeCast = doc.getFieldOrNull(path);
+            if (beforeCast == null) {
+                errorMessages = addError(errorMessages, String.format("failed to convert field in path [%s], field is missing.", path));
                 continue;
             }
-            Object beforeCast = doc.getField(path);
-
-            Object afterCast;
-            if (fieldType == BOOLEAN || fieldType == STRING) {
-                 afterCast = fieldType.convertFrom(beforeCast);
-            } else {
-                afterCast = fieldType.convertFrom(beforeCast, 0l);
-            }
 
+            Object afterCast = fieldType.convertFrom(beforeCast);
             if (afterCast == null) {
-                errorMessages.add(String.format("failed to convert field in path [%s] to %s, value [%s].", path, fieldType, beforeCast));
-                continue;
+                afterCast = defaultValue;
             }
 
-            boolean succeeded = doc.removeField(path);
-            if (succeeded) {
-                doc.addField(path, afterCast);
-            }
-            else {
-                errorMessages.add(String.format("failed to convert field in path [%s] to %s, value [%s].", path, fieldType, beforeCast));
+            if (afterCast == null || !doc.replaceFieldValue(path, afterCast)) {
+                errorMessages = addError(errorMessages, String.format("failed to convert field in path [%s] to %s, value [%s].", path, fieldType, beforeCast));
             }
         }
-        if (errorMessages.isEmpty()) {
+        if (errorMessages == null) {
             return ProcessResult.success();
         }
         String allErrorMessages = errorMessages.stream().collect(Collectors.joining("\n"));
         return ProcessResult.failure(allErrorMessages);
     }
 
+    private static List<String> addError(List<String> errorMessages, String errorMessage) {
+        List<String> messages = errorMessages != null ? errorMessages : new ArrayList<>();
+        messages.add(errorMessage);
+        return messages;
+    }
+
     public static class Factory implements Processor.Factory {
         public Factory() {
         }
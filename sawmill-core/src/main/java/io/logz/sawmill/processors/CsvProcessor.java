@@ -1,6 +1,7 @@
 package io.logz.sawmill.processors;
 
 import io.logz.sawmill.Doc;
+import io.logz.sawmill.FieldPath;
 import io.logz.sawmill.FieldType;
 import io.logz.sawmill.ProcessResult;
 import io.logz.sawmill.Processor;
@@ -23,8 +24,8 @@ import static java.util.Objects.requireNonNull;
 
 @ProcessorProvider(type = "csv", factory = CsvProcessor.Factory.class)
 public class CsvProcessor implements Processor {
-    private final String field;
-    private final String targetField;
+    private final FieldPath field;
+    private final FieldPath targetField;
     private final String separator;
     private final String quoteChar;
     private List<String> columns;
@@ -40,8 +41,8 @@ public class CsvProcessor implements Processor {
                         boolean autoGenerateColumnNames,
                         boolean skipEmptyColumns,
                         Map<String, FieldType> convert) {
-        this.field = requireNonNull(field, "field cannot be null");
-        this.targetField = targetField;
+        this.field = FieldPath.of(requireNonNull(field, "field cannot be null"));
+        this.targetField = targetField != null ? FieldPath.of(targetField) : null;
         this.separator = requireNonNull(separator, "separator cannot be null");
         this.quoteChar = requireNonNull(quoteChar, "quoteChar cannot be null");
         this.columns = requireNonNull(columns, "columns cannot be null");
@@ -52,13 +53,14 @@ public class CsvProcessor implements Processor {
 
     @Override
     public ProcessResult process(Doc doc) {
-        if (!doc.hasField(field, String.class)) {
+        Object value = doc.getFieldOrNull(field);
+        if (!(value instanceof String)) {
             return ProcessResult.failure(String.format("failed to parse csv, couldn't find field [%s] or not instance of String", field));
         }
 
         Map<String, Object> csv = new HashMap<>();
         List<CSVRecord> records;
-        String csvString = doc.getField(field);
+        String csvString = (String) value;
 
         try {
             CSVParser csvParser = CSVParser.parse(csvString,
@@ -97,9 +99,12 @@ public class CsvProcessor implements Processor {
     }
 
     private Object transform(String fieldName, String value) {
-        if (MapUtils.isEmpty(convert) || convert.get(fieldName) == null) return value;
+        if (MapUtils.isEmpty(convert)) return value;
 
-        return convert.get(fieldName).convertFrom(value, value);
+        FieldType type = convert.get(fieldName);
+        if (type == null) return value;
+
+        return type.convertFrom(value, value);
     }
 
     private char getChar(String s) {
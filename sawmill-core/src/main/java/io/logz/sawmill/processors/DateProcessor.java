@@ -1,6 +1,7 @@
 package io.logz.sawmill.processors;
 
 import io.logz.sawmill.Doc;
+import io.logz.sawmill.FieldPath;
 import io.logz.sawmill.ProcessResult;
 import io.logz.sawmill.Processor;
 import io.logz.sawmill.annotations.ProcessorProvider;
@@ -114,8 +115,8 @@ public class DateProcessor implements Processor {
         dateTimePatternToFormatter.put("ELASTIC", ELASTIC);
     }
 
-    private final String field;
-    private final String targetField;
+    private final FieldPath field;
+    private final FieldPath targetField;
     private final List<String> formats;
     private final List<DateTimeFormatter> formatters;
     private final ZoneId timeZone;
@@ -123,8 +124,8 @@ public class DateProcessor implements Processor {
 
     public DateProcessor(String field, String targetField, List<String> formats, ZoneId timeZone, String outputFormat) {
         checkState(CollectionUtils.isNotEmpty(formats), "formats cannot be empty");
-        this.field = requireNonNull(field, "field cannot be null");
-        this.targetField = requireNonNull(targetField, "target field cannot be null");
+        this.field = FieldPath.of(requireNonNull(field, "field cannot be null"));
+        this.targetField = FieldPath.of(requireNonNull(targetField, "target field cannot be null"));
         this.formats = formats;
         this.timeZone = timeZone;
         this.outputFormatter = computeAndGetFormatter(outputFormat, timeZone);
@@ -152,12 +153,11 @@ public class DateProcessor implements Processor {
 
     @Override
     public ProcessResult process(Doc doc) {
-        if (!doc.hasField(field)) {
+        Object dateTimeDocValue = doc.getFieldOrNull(field);
+        if (dateTimeDocValue == null) {
             return ProcessResult.failure(String.format("failed to process date, field in path [%s] is missing", field));
         }
 
-        Object dateTimeDocValue = doc.getField(field);
-
         ZonedDateTime dateTime = null;
         if (dateTimeDocValue instanceof Number && formats.contains("UNIX")) {
             long epocTimeInMilis = ((Number) (((Number) dateTimeDocValue).doubleValue() * 1000)).longValue();
@@ -1,7 +1,7 @@
 package io.logz.sawmill.processors;
 
-import com.google.common.base.Utf8;
 import io.logz.sawmill.Doc;
+import io.logz.sawmill.FieldPath;
 import io.logz.sawmill.ProcessResult;
 import io.logz.sawmill.Processor;
 import io.logz.sawmill.annotations.ProcessorProvider;
@@ -12,16 +12,15 @@ import static java.util.Objects.requireNonNull;
 
 @ProcessorProvider(type = "docSize", factory = DocSizeProcessor.Factory.class)
 public class DocSizeProcessor implements Processor {
-    private final String targetField;
+    private final FieldPath targetField;
 
     public DocSizeProcessor(String targetField){
-        this.targetField = requireNonNull(targetField);
+        this.targetField = FieldPath.of(requireNonNull(targetField));
     }
 
     @Override
     public ProcessResult process(Doc doc) {
-        String sourceAsJsonString = JsonUtils.toJsonString(doc.getSource());
-        doc.addField(targetField, Utf8.encodedLength(sourceAsJsonString));
+        doc.addField(targetField, doc.jsonLength());
         return ProcessResult.success();
     }
 
@@ -6,6 +6,7 @@ import com.maxmind.geoip2.exception.AddressNotFoundException;
 import com.maxmind.geoip2.exception.GeoIp2Exception;
 import com.maxmind.geoip2.model.CityResponse;
 import io.logz.sawmill.Doc;
+import io.logz.sawmill.FieldPath;
 import io.logz.sawmill.GeoIpConfiguration;
 import io.logz.sawmill.ProcessResult;
 import io.logz.sawmill.Processor;
@@ -34,17 +35,18 @@ import static java.util.Objects.requireNonNull;
 
 @ProcessorProvider(type = "geoIp", factory = GeoIpProcessor.Factory.class)
 public class GeoIpProcessor implements Processor {
+    private static final FieldPath TAGS = FieldPath.of("tags");
 
     private static DatabaseReader databaseReader;
 
-    private final String sourceField;
+    private final FieldPath sourceField;
     private final Template targetField;
     private final List<Property> properties;
     private final List<String> tagsOnSuccess;
 
     public GeoIpProcessor(String sourceField, Template targetField, List<Property> properties, List<String> tagsOnSuccess) {
         checkState(CollectionUtils.isNotEmpty(properties), "properties cannot be empty");
-        this.sourceField = requireNonNull(sourceField, "source field cannot be null");
+        this.sourceField = FieldPath.of(requireNonNull(sourceField, "source field cannot be null"));
         this.targetField = requireNonNull(targetField, "target field cannot be null");
         this.properties = properties;
         this.tagsOnSuccess = tagsOnSuccess != null ? tagsOnSuccess : EMPTY_LIST;
@@ -52,11 +54,12 @@ public class GeoIpProcessor implements Processor {
 
     @Override
     public ProcessResult process(Doc doc) {
-        if (!doc.hasField(sourceField, String.class)) {
+        Object sourceValue = doc.getFieldOrNull(sourceField);
+        if (!(sourceValue instanceof String)) {
             return ProcessResult.failure(String.format("failed to get ip from [%s], field is missing or not instance of [%s]", sourceField, String.class));
         }
 
-        String ip = doc.getField(sourceField);
+        String ip = (String) sourceValue;
         if (!InetAddresses.isInetAddress(ip)) {
             return ProcessResult.failure(String.format("failed to process geoIp, source field [%s] in path [%s] is not a valid IP string", ip, sourceField));
         }
@@ -74,8 +77,8 @@ public class GeoIpProcessor implements Processor {
         }
 
         if (geoIp != null) {
-            doc.addField(targetField.render(doc), geoIp);
-            doc.appendList("tags", tagsOnSuccess);
+            doc.addField(targetField.renderFieldPath(doc), geoIp);
+            doc.appendList(TAGS, tagsOnSuccess);
         }
 
         return ProcessResult.success();
@@ -1,6 +1,7 @@
 package io.logz.sawmill.processors;
 
 import io.logz.sawmill.Doc;
+import io.logz.sawmill.FieldPath;
 import io.logz.sawmill.ProcessResult;
 import io.logz.sawmill.Processor;
 import io.logz.sawmill.annotations.ProcessorProvider;
@@ -22,8 +23,9 @@ import static java.util.Objects.requireNonNull;
 
 @ProcessorProvider(type = "grokDebugger", factory = GrokDebuggerProcessor.Factory.class)
 public class GrokDebuggerProcessor implements Processor {
+    private static final FieldPath TAGS = FieldPath.of("tags");
 
-    private final String field;
+    private final FieldPath field;
     private final List<String> expressions;
     private final List<Grok> groks;
     private final List<String> overwrite;
@@ -31,7 +33,7 @@ public class GrokDebuggerProcessor implements Processor {
 
     public GrokDebuggerProcessor(String field, List<String> matchExpressions, Map<String, String> patternsBank, List<String> overwrite, boolean ignoreMissing) {
         checkState(CollectionUtils.isNotEmpty(matchExpressions), "patterns cannot be empty");
-        this.field = requireNonNull(field, "field cannot be null");
+        this.field = FieldPath.of(requireNonNull(field, "field cannot be null"));
         this.expressions = matchExpressions;
         this.overwrite = overwrite != null ? overwrite : EMPTY_LIST;
         this.ignoreMissing = ignoreMissing;
@@ -50,18 +52,19 @@ public class GrokDebuggerProcessor implements Processor {
 
     @Override
     public ProcessResult process(Doc doc) throws InterruptedException {
-        if (!doc.hasField(field, String.class)) {
+        Object value = doc.getFieldOrNull(field);
+        if (!(value instanceof String)) {
             if (ignoreMissing) return ProcessResult.success();
 
             return ProcessResult.failure(String.format("failed to grok field in path [%s], field is missing or not instance of [%s]", field, String.class));
         }
 
-        String fieldValue = doc.getField(field);
+        String fieldValue = (String) value;
 
         List<Grok.Match> matches = getMatches(fieldValue);
 
         if (CollectionUtils.isEmpty(matches)) {
-            doc.appendList("tags", "_grokparsefailure");
+            doc.appendList(TAGS, "_grokparsefailure");
             return ProcessResult.failure(String.format("failed to grok field [%s] in path [%s], doesn't match any of the expressions [%s]", fieldValue, field, expressions));
         }
 
@@ -69,12 +72,12 @@ public class GrokDebuggerProcessor implements Processor {
                 .filter(match -> !CollectionUtils.isEmpty(match.getValues()))
                 .forEach(match -> {
                     String field = match.getName();
-                    List<Grok.MatchValue> matchValues = match.getMatchValues();
-                    Object value = getValue(matchValues);
-                    if (overwrite.contains(field) || !doc.hasField(field)) {
-                        doc.addField(field, value);
-                    } else {
-                        doc.appendList(field, value);
+                    FieldPath fieldPath = FieldPath.of(field);
+                    Object matchValue = getValue(match.getMatchValues());
+                    if (overwrite.contains(field)) {
+                        doc.addField(fieldPath, matchValue);
+                    } else if (!doc.addFieldIfAbsent(fieldPath, matchValue)) {
+                        doc.appendList(fieldPath, matchValue);
                     }
                 });
 
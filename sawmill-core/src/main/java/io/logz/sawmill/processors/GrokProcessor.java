@@ -1,10 +1,13 @@
 package io.logz.sawmill.processors;
 
 import io.logz.sawmill.Doc;
+import io.logz.sawmill.ExpressionStatistics;
+import io.logz.sawmill.FieldPath;
 import io.logz.sawmill.ProcessResult;
 import io.logz.sawmill.Processor;
 import io.logz.sawmill.annotations.ProcessorProvider;
 import io.logz.sawmill.exceptions.ProcessorConfigurationException;
+import io.logz.sawmill.utilities.ExecutionBudget;
 import io.logz.sawmill.utilities.Grok;
 import io.logz.sawmill.utilities.JsonUtils;
 import org.apache.commons.collections4.CollectionUtils;
@@ -28,27 +31,47 @@ import static java.util.Objects.requireNonNull;
 
 @ProcessorProvider(type = "grok", factory = GrokProcessor.Factory.class)
 public class GrokProcessor implements Processor {
-    private final String field;
+    private static final FieldPath TAGS = FieldPath.of("tags");
+
+    private final FieldPath field;
     private final List<String> expressions;
-    private final List<Grok> groks;
+    private final AdaptiveGroks groks;
     private final List<String> overwrite;
     private final boolean ignoreMissing;
     private final List<String> tagsOnFailure;
+    private final ExecutionBudget budget;
 
     public GrokProcessor(String field, List<String> matchExpressions, Map<String, String> patternsBank, List<String> overwrite, boolean ignoreMissing, List<String> tagsOnFailure) {
+        this(field, matchExpressions, patternsBank, overwrite, ignoreMissing, tagsOnFailure, false, false);
+    }
+
+    /**
+     * @param reorderPatterns whether to adapt the order the expressions are tried in to the docs, see {@link AdaptiveGroks}
+     * @param keepFirstMatch whether reordering keeps the expressions matching the same sampled docs in their declared order
+     */
+    public GrokProcessor(String field, List<String> matchExpressions, Map<String, String> patternsBank, List<String> overwrite, boolean ignoreMissing, List<String> tagsOnFailure,
+                         boolean reorderPatterns, boolean keepFirstMatch) {
+        this(field, matchExpressions, patternsBank, overwrite, ignoreMissing, tagsOnFailure, reorderPatterns, keepFirstMatch, 0);
+    }
+
+    /**
+     * @param budgetMs the time matching a doc may take before the processor fails without waiting for the pipeline to expire, 0 for no budget
+     */
+    public GrokProcessor(String field, List<String> matchExpressions, Map<String, String> patternsBank, List<String> overwrite, boolean ignoreMissing, List<String> tagsOnFailure,
+                         boolean reorderPatterns, boolean keepFirstMatch, long budgetMs) {
         checkState(CollectionUtils.isNotEmpty(matchExpressions), "patterns cannot be empty");
-        this.field = requireNonNull(field, "field cannot be null");
+        this.field = FieldPath.of(requireNonNull(field, "field cannot be null"));
         this.expressions = matchExpressions;
         this.overwrite = overwrite != null ? overwrite : EMPTY_LIST;
         this.ignoreMissing = ignoreMissing;
         this.tagsOnFailure = tagsOnFailure;
+        this.budget = ExecutionBudget.ofMillis(budgetMs);
 
-        this.groks = new ArrayList<>();
-
-        compileExpressions(matchExpressions, patternsBank);
+        this.groks = new AdaptiveGroks(matchExpressions, compileExpressions(matchExpressions, patternsBank), reorderPatterns, keepFirstMatch);
     }
 
-    private void compileExpressions(List<String> matchExpressions, Map<String, String> patternsBank) {
+    private List<Grok> compileExpressions(List<String> matchExpressions, Map<String, String> patternsBank) {
+        List<Grok> groks = new ArrayList<>();
         matchExpressions.forEach(expression -> {
             Grok grok;
             try {
@@ -56,55 +79,53 @@ public class GrokProcessor implements Processor {
             } catch (RuntimeException e) {
                 throw new ProcessorConfigurationException("Failed to create grok for expression ["+expression+"]", e);
             }
-            this.groks.add(grok);
+            groks.add(grok);
         });
+        return groks;
     }
 
     @Override
     public ProcessResult process(Doc doc) throws InterruptedException {
-        if (!doc.hasField(field, String.class)) {
+        Object value = doc.getFieldOrNull(field);
+        if (!(value instanceof String)) {
             if (ignoreMissing) return ProcessResult.success();
 
             return ProcessResult.failure(String.format("failed to grok field in path [%s], field is missing or not instance of [%s]", field, String.class));
         }
 
-        String fieldValue = doc.getField(field);
+        String fieldValue = (String) value;
 
-        List<Grok.Match> matches = getMatches(fieldValue);
+        boolean matched;
+        ExecutionBudget.Evaluation evaluation = budget.start();
+        try {
+            matched = groks.matches(fieldValue, (name, path, matchValue) -> {
+                if (overwrite.contains(name)) {
+                    doc.addField(path, matchValue);
+                } else if (!doc.addFieldIfAbsent(path, matchValue)) {
+                    doc.appendList(path, matchValue);
+                }
+            });
+        } catch (InterruptedException e) {
+            if (!evaluation.end()) {
+                throw e;
+            }
+            doc.appendList(TAGS, ExecutionBudget.EXCEEDED_TAG);
+            return ProcessResult.budgetExceeded(String.format("failed to grok field in path [%s], exceeded the budget of [%d]ms", field, budget.getBudgetMs()));
+        } finally {
+            evaluation.end();
+        }
 
-        if (CollectionUtils.isEmpty(matches)) {
-            doc.appendList("tags", tagsOnFailure);
+        if (!matched) {
+            doc.appendList(TAGS, tagsOnFailure);
             return ProcessResult.failure(String.format("failed to grok field [%s] in path [%s], doesn't match any of the expressions [%s]", fieldValue, field, expressions));
         }
 
-        matches.stream()
-                .filter(match -> !CollectionUtils.isEmpty(match.getValues()))
-                .forEach(match -> {
-                    String field = match.getName();
-                    List<Object> matchValues = match.getValues();
-                    Object value = getValue(matchValues);
-                    if (overwrite.contains(field) || !doc.hasField(field)) {
-                        doc.addField(field, value);
-                    } else {
-                        doc.appendList(field, value);
-                    }
-                });
-
         return ProcessResult.success();
     }
 
-    private Object getValue(List<Object> matchValues) {
-        return matchValues.size() == 1 ? matchValues.get(0) : matchValues;
-    }
-
-    private List<Grok.Match> getMatches(String value) throws InterruptedException {
-        for (Grok grok : groks) {
-            List<Grok.Match> captures = grok.matches(value);
-            if (CollectionUtils.isNotEmpty(captures)) {
-                return captures;
-            }
-        }
-        return Collections.emptyList();
+    @Override
+    public List<ExpressionStatistics> getExpressionsStatistics() {
+        return groks.getStatistics();
     }
 
     public static class Factory implements Processor.Factory {
@@ -182,7 +203,10 @@ public class GrokProcessor implements Processor {
                     patternsBank,
                     grokConfig.getOverwrite(),
                     grokConfig.getIgnoreMissing(),
-                    grokConfig.getTagsOnFailure());
+                    grokConfig.getTagsOnFailure(),
+                    grokConfig.getReorderPatterns(),
+                    grokConfig.getKeepFirstMatch(),
+                    grokConfig.getBudgetMs());
         }
     }
 
@@ -192,6 +216,9 @@ public class GrokProcessor implements Processor {
         private List<String> overwrite = EMPTY_LIST;
         private boolean ignoreMissing = true;
         private List<String> tagsOnFailure = Collections.singletonList("_grokparsefailure");
+        private boolean reorderPatterns = false;
+        private boolean keepFirstMatch = false;
+        private long budgetMs = 0;
 
         public Configuration() { }
 
@@ -214,5 +241,17 @@ public class GrokProcessor implements Processor {
         public List<String> getTagsOnFailure() {
             return tagsOnFailure;
         }
+
+        public boolean getReorderPatterns() {
+            return reorderPatterns;
+        }
+
+        public boolean getKeepFirstMatch() {
+            return keepFirstMatch;
+        }
+
+        public long getBudgetMs() {
+            return budgetMs;
+        }
     }
 }
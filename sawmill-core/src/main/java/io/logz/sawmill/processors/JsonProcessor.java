@@ -1,53 +1,74 @@
 package io.logz.sawmill.processors;
 
 import io.logz.sawmill.Doc;
+import io.logz.sawmill.FieldPath;
 import io.logz.sawmill.ProcessResult;
 import io.logz.sawmill.Processor;
 import io.logz.sawmill.Template;
 import io.logz.sawmill.TemplateService;
 import io.logz.sawmill.annotations.ProcessorProvider;
+import io.logz.sawmill.exceptions.ProcessorConfigurationException;
+import io.logz.sawmill.utilities.JsonMapReader;
 import io.logz.sawmill.utilities.JsonUtils;
 import org.apache.commons.lang3.StringUtils;
 
 import javax.inject.Inject;
+import java.util.List;
 import java.util.Map;
 
 import static java.util.Objects.requireNonNull;
 
 @ProcessorProvider(type = "json", factory = JsonProcessor.Factory.class)
 public class JsonProcessor implements Processor {
-    private final String field;
+    private static final FieldPath TAGS = FieldPath.of("tags");
+
+    private final FieldPath field;
     private final Template targetField;
+    private final JsonMapReader reader;
 
     public JsonProcessor(String field, Template targetField) {
-        this.field = requireNonNull(field, "field cannot be null");
+        this(field, targetField, null);
+    }
+
+    /**
+     * @param reader reads the json in streaming mode, null to deserialize it whole
+     */
+    public JsonProcessor(String field, Template targetField, JsonMapReader reader) {
+        this.field = FieldPath.of(requireNonNull(field, "field cannot be null"));
         this.targetField = targetField;
+        this.reader = reader;
     }
 
     @Override
     public ProcessResult process(Doc doc) {
-        if (!doc.hasField(field, String.class)) {
+        Object value = doc.getFieldOrNull(field);
+        if (!(value instanceof String)) {
             return ProcessResult.failure(String.format("failed to parse json, couldn't find field [%s] or not instance of [%s]", field, String.class));
         }
 
-        Map<String, Object> jsonMap;
-        String jsonString = doc.getField(field);
-
-        try {
-            jsonMap = JsonUtils.fromJsonString(Map.class, jsonString);
-        } catch (RuntimeException e) {
-            doc.appendList("tags", "_jsonparsefailure");
+        String jsonString = (String) value;
+        Map<String, Object> jsonMap = reader != null ? reader.read(jsonString) : deserialize(jsonString);
+        if (jsonMap == null) {
+            doc.appendList(TAGS, "_jsonparsefailure");
             return ProcessResult.failure(String.format("failed to parse json, couldn't deserialize from json [%s]", jsonString));
         }
 
         if (targetField != null) {
-            doc.addField(targetField.render(doc), jsonMap);
+            doc.addField(targetField.renderFieldPath(doc), jsonMap);
         } else {
             jsonMap.forEach(doc::addField);
         }
         return ProcessResult.success();
     }
 
+    private Map<String, Object> deserialize(String jsonString) {
+        try {
+            return JsonUtils.fromJsonString(Map.class, jsonString);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
     public static class Factory implements Processor.Factory {
         private final TemplateService templateService;
 
@@ -61,13 +82,34 @@ public class JsonProcessor implements Processor {
             JsonProcessor.Configuration jsonConfig = JsonUtils.fromJsonMap(JsonProcessor.Configuration.class, config);
 
             Template targetField = StringUtils.isEmpty(jsonConfig.getTargetField()) ? null : templateService.createTemplate(jsonConfig.getTargetField());
-            return new JsonProcessor(jsonConfig.getField(), targetField);
+            return new JsonProcessor(jsonConfig.getField(), targetField, createReader(jsonConfig));
+        }
+
+        private JsonMapReader createReader(JsonProcessor.Configuration jsonConfig) {
+            boolean limited = jsonConfig.getIncludeKeys() != null || jsonConfig.getExcludeKeys() != null ||
+                    jsonConfig.getMaxDepth() != 0 || jsonConfig.getMaxFields() != 0;
+            if (!jsonConfig.isStreaming()) {
+                if (limited) {
+                    throw new ProcessorConfigurationException("failed to parse json processor config, include keys, exclude keys and limits require the streaming mode");
+                }
+                return null;
+            }
+            if (jsonConfig.getMaxDepth() < 0 || jsonConfig.getMaxFields() < 0) {
+                throw new ProcessorConfigurationException("failed to parse json processor config, max depth and max fields cannot be negative");
+            }
+
+            return new JsonMapReader(jsonConfig.getIncludeKeys(), jsonConfig.getExcludeKeys(), jsonConfig.getMaxDepth(), jsonConfig.getMaxFields());
         }
     }
 
     public static class Configuration implements Processor.Configuration {
         private String field;
         private String targetField;
+        private boolean streaming;
+        private List<String> includeKeys;
+        private List<String> excludeKeys;
+        private int maxDepth;
+        private int maxFields;
 
         public Configuration() { }
 
@@ -79,5 +121,15 @@ public class JsonProcessor implements Processor {
         public String getField() { return field; }
 
         public String getTargetField() { return targetField; }
+
+        public boolean isStreaming() { return streaming; }
+
+        public List<String> getIncludeKeys() { return includeKeys; }
+
+        public List<String> getExcludeKeys() { return excludeKeys; }
+
+        public int getMaxDepth() { return maxDepth; }
+
+        public int getMaxFields() { return maxFields; }
     }
 }
@@ -1,11 +1,13 @@
 package io.logz.sawmill.processors;
 
 import io.logz.sawmill.Doc;
+import io.logz.sawmill.FieldPath;
 import io.logz.sawmill.ProcessResult;
 import io.logz.sawmill.Processor;
 import io.logz.sawmill.Template;
 import io.logz.sawmill.TemplateService;
 import io.logz.sawmill.annotations.ProcessorProvider;
+import io.logz.sawmill.utilities.ExecutionBudget;
 import io.logz.sawmill.utilities.JsonUtils;
 import org.apache.commons.collections4.MapUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -20,9 +22,11 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static org.joni.Matcher.INTERRUPTED;
 
@@ -39,17 +43,20 @@ public class KeyValueProcessor implements Processor {
     public static final String ANGLE_BRACKETS = "angle-brackets";
     public static final String NORMAL = "normal";
     public static final int MAX_MATCHES = 1000;
-    private final String field;
+    private static final FieldPath TAGS = FieldPath.of("tags");
+    private final FieldPath field;
     private final Template targetField;
     private final Regex pattern;
-    private final List<String> includeKeys;
-    private final List<String> excludeKeys;
+    private final KeyValueScanner scanner;
+    private final Set<String> includeKeys;
+    private final Set<String> excludeKeys;
     private final boolean allowDuplicateValues;
     private final String prefix;
     private final boolean recursive;
     private final String trim;
     private final String trimKey;
     private final int maxKeyLength;
+    private final ExecutionBudget budget;
 
     public KeyValueProcessor(String field,
                              Template targetField,
@@ -64,17 +71,40 @@ public class KeyValueProcessor implements Processor {
                              String trim,
                              String trimKey,
                              int maxKeyLength) {
-        this.field = requireNonNull(field, "field cannot be null");
+        this(field, targetField, includeKeys, excludeKeys, fieldSplit, valueSplit, allowDuplicateValues, includeBrackets, prefix, recursive, trim, trimKey,
+                maxKeyLength, 0);
+    }
+
+    /**
+     * @param budgetMs the time parsing a doc may take before the processor fails without waiting for the pipeline to expire, 0 for no budget
+     */
+    public KeyValueProcessor(String field,
+                             Template targetField,
+                             List<String> includeKeys,
+                             List<String> excludeKeys,
+                             String fieldSplit,
+                             String valueSplit,
+                             boolean allowDuplicateValues,
+                             boolean includeBrackets,
+                             String prefix,
+                             boolean recursive,
+                             String trim,
+                             String trimKey,
+                             int maxKeyLength,
+                             long budgetMs) {
+        this.field = FieldPath.of(requireNonNull(field, "field cannot be null"));
         this.targetField = targetField;
         this.pattern = buildPattern(fieldSplit, valueSplit, includeBrackets);
-        this.includeKeys = includeKeys;
-        this.excludeKeys = excludeKeys;
+        this.scanner = KeyValueScanner.create(fieldSplit, valueSplit, includeBrackets);
+        this.includeKeys = includeKeys != null ? new HashSet<>(includeKeys) : null;
+        this.excludeKeys = excludeKeys != null ? new HashSet<>(excludeKeys) : null;
         this.allowDuplicateValues = allowDuplicateValues;
         this.prefix = prefix;
         this.recursive = recursive;
         this.trim = trim;
         this.trimKey = trimKey;
         this.maxKeyLength = maxKeyLength;
+        this.budget = ExecutionBudget.ofMillis(budgetMs);
     }
 
     /***
@@ -105,36 +135,31 @@ public class KeyValueProcessor implements Processor {
 
     @Override
     public ProcessResult process(Doc doc) throws InterruptedException {
-        if (!doc.hasField(field)) {
+        Object kvField = doc.getFieldOrNull(field);
+        if (kvField == null) {
             return ProcessResult.failure(String.format("failed to process kv, couldn't find field [%s]", field));
         }
 
-        Map<String, Object> kvMap = new HashMap<>();
-
-        Object kvField = doc.getField(this.field);
-
-        if (kvField instanceof List) {
-            for (Object subField : (List) kvField) {
-                if (subField instanceof String) {
-                    kvMap.putAll(parse((String) subField));
-                }
-            }
-
-        } else if (kvField instanceof String) {
-            kvMap = parse((String) kvField);
-        } else {
+        if (!(kvField instanceof List) && !(kvField instanceof String)) {
             return ProcessResult.failure(String.format("failed to process kv, cannot parse type [%s] of field [%s]", kvField.getClass(), field));
         }
 
-        if (includeKeys != null) {
-            kvMap.keySet().retainAll(includeKeys);
-        }
-        if (excludeKeys != null) {
-            kvMap.keySet().removeAll(excludeKeys);
+        Map<String, Object> kvMap;
+        ExecutionBudget.Evaluation evaluation = budget.start();
+        try {
+            kvMap = parseField(kvField);
+        } catch (InterruptedException e) {
+            if (!evaluation.end()) {
+                throw e;
+            }
+            doc.appendList(TAGS, ExecutionBudget.EXCEEDED_TAG);
+            return ProcessResult.budgetExceeded(String.format("failed to process kv of field [%s], exceeded the budget of [%d]ms", field, budget.getBudgetMs()));
+        } finally {
+            evaluation.end();
         }
 
         if (targetField != null) {
-            doc.addField(targetField.render(doc), kvMap);
+            doc.addField(targetField.renderFieldPath(doc), kvMap);
         } else {
             kvMap.forEach(doc::addField);
         }
@@ -142,64 +167,69 @@ public class KeyValueProcessor implements Processor {
         return ProcessResult.success();
     }
 
-    private String getKey(byte[] message, Region region) {
-        int matchNumber = pattern.nameToBackrefNumber(KEY.getBytes(), 0, KEY.getBytes().length, region);
-        String key = prefix + trim(extractString(message, region.beg[matchNumber], region.end[matchNumber]), trimKey);
-        return key.length() <= maxKeyLength ? key : null;
-    }
+    private Map<String, Object> parseField(Object kvField) throws InterruptedException {
+        if (kvField instanceof String) {
+            return parse((String) kvField, true);
+        }
 
-    private Object getValue(byte[] message, Region region) throws InterruptedException {
-        String value = getMatchedValue(message, region);
+        Map<String, Object> kvMap = new HashMap<>();
+        for (Object subField : (List) kvField) {
+            if (subField instanceof String) {
+                kvMap.putAll(parse((String) subField, true));
+            }
+        }
+        return kvMap;
+    }
 
-        if (value == null) {
-            return null;
+    /**
+     * @param filterKeys whether to keep only the included keys that are not excluded, which applies to the top level keys only
+     */
+    private Map<String,Object> parse(String message, boolean filterKeys) throws InterruptedException {
+        Map<String,Object> kvMap = new HashMap<>();
+        byte[] messageAsBytes = message.getBytes();
+        if (scanner != null) {
+            scan(messageAsBytes, kvMap, filterKeys);
+        } else {
+            search(messageAsBytes, kvMap, filterKeys);
         }
+        return kvMap;
+    }
 
-        if (recursive) {
-            Map<String,Object> innerKv = parse(value);
-            if (MapUtils.isNotEmpty(innerKv)) {
-                return innerKv;
+    private void scan(byte[] message, Map<String,Object> kvMap, boolean filterKeys) throws InterruptedException {
+        KeyValueScanner.Pair pair = new KeyValueScanner.Pair();
+        int position = 0;
+        for (int matchesCounter = 0; matchesCounter < MAX_MATCHES && scanner.find(message, position, pair); matchesCounter++) {
+            // the scan checks the flag the watchdog and the budget timer interrupt joni with
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException();
             }
-        }
 
-        return trim(value, trim);
+            String key = toKey(pair.key(message), filterKeys);
+            if (key != null) {
+                putValue(kvMap, key, toValue(pair.value(message)));
+            }
+            position = pair.end;
+        }
     }
 
-    private Map<String,Object> parse(String message) throws InterruptedException {
-        Map<String,Object> kvMap = new HashMap<>();
+    private void search(byte[] message, Map<String,Object> kvMap, boolean filterKeys) throws InterruptedException {
         int matchesCounter = 0;
+        Matcher matcher = pattern.matcher(message);
 
-        byte[] messageAsBytes = message.getBytes();
-        Matcher matcher = pattern.matcher(messageAsBytes);
-
-        int result = matcher.search(0, messageAsBytes.length, Option.MULTILINE);
+        int result = matcher.search(0, message.length, Option.MULTILINE);
+        if (result == INTERRUPTED) {
+            throw new InterruptedException();
+        }
 
         while (result != -1 && matchesCounter < MAX_MATCHES) {
             Region region = matcher.getEagerRegion();
-            String key = getKey(messageAsBytes, region);
+            String key = toKey(getKey(message, region), filterKeys);
 
             if (key != null) {
-
-                Object value = getValue(messageAsBytes, region);
-
-                if (value != null) {
-
-                    if (allowDuplicateValues) {
-                        kvMap.compute(key, (k, oldVal) -> {
-                            if (oldVal == null) return value;
-                            if (oldVal instanceof List) {
-                                ((List) oldVal).add(value);
-                                return oldVal;
-                            }
-                            return new ArrayList<>(Arrays.asList(oldVal, value));
-                        });
-                    } else {
-                        kvMap.putIfAbsent(key, value);
-                    }
-                }
+                putValue(kvMap, key, toValue(getMatchedValue(message, region)));
             }
             int endOfFullMatch = region.end[0];
-            result = matcher.search(endOfFullMatch, messageAsBytes.length, Option.MULTILINE);
+            result = matcher.search(endOfFullMatch, message.length, Option.MULTILINE);
 
             matchesCounter++;
 
@@ -207,8 +237,56 @@ public class KeyValueProcessor implements Processor {
                 throw new InterruptedException();
             }
         }
+    }
 
-        return kvMap;
+    private String getKey(byte[] message, Region region) {
+        int matchNumber = pattern.nameToBackrefNumber(KEY.getBytes(), 0, KEY.getBytes().length, region);
+        return extractString(message, region.beg[matchNumber], region.end[matchNumber]);
+    }
+
+    private String toKey(String matchedKey, boolean filterKeys) {
+        String key = prefix + trim(matchedKey, trimKey);
+        if (key.length() > maxKeyLength) {
+            return null;
+        }
+        if (filterKeys && ((includeKeys != null && !includeKeys.contains(key)) || (excludeKeys != null && excludeKeys.contains(key)))) {
+            return null;
+        }
+        return key;
+    }
+
+    private Object toValue(String value) throws InterruptedException {
+        if (value == null) {
+            return null;
+        }
+
+        if (recursive) {
+            Map<String,Object> innerKv = parse(value, false);
+            if (MapUtils.isNotEmpty(innerKv)) {
+                return innerKv;
+            }
+        }
+
+        return trim(value, trim);
+    }
+
+    private void putValue(Map<String,Object> kvMap, String key, Object value) {
+        if (value == null) {
+            return;
+        }
+
+        if (allowDuplicateValues) {
+            kvMap.compute(key, (k, oldVal) -> {
+                if (oldVal == null) return value;
+                if (oldVal instanceof List) {
+                    ((List) oldVal).add(value);
+                    return oldVal;
+                }
+                return new ArrayList<>(Arrays.asList(oldVal, value));
+            });
+        } else {
+            kvMap.putIfAbsent(key, value);
+        }
     }
 
     private String getMatchedValue(byte[] message, Region region) {
@@ -269,7 +347,8 @@ public class KeyValueProcessor implements Processor {
                     keyValueConfig.isRecursive(),
                     keyValueConfig.getTrim(),
                     keyValueConfig.getTrimKey(),
-                    keyValueConfig.getMaxKeyLength());
+                    keyValueConfig.getMaxKeyLength(),
+                    keyValueConfig.getBudgetMs());
         }
     }
 
@@ -287,6 +366,7 @@ public class KeyValueProcessor implements Processor {
         private String trim;
         private String trimKey;
         private int maxKeyLength = 40;
+        private long budgetMs = 0;
 
         public Configuration() { }
 
@@ -341,5 +421,9 @@ public class KeyValueProcessor implements Processor {
         public int getMaxKeyLength() {
             return maxKeyLength;
         }
+
+        public long getBudgetMs() {
+            return budgetMs;
+        }
     }
 }
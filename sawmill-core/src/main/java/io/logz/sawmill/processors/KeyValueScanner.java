@@ -0,0 +1,231 @@
+package io.logz.sawmill.processors;
+
+import org.joni.Option;
+import org.joni.Regex;
+import org.joni.exception.JOniException;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Finds the key-value pairs the {@link KeyValueProcessor} pattern matches in a single pass, without running the regex.
+ * Bytes are classified by tables built by matching every byte against the very character classes the pattern is made of,
+ * so splits are interpreted exactly as by the regex, and the scan follows the regex search:
+ * the key is the longest run of key units followed by a value split,
+ * the value is the first alternative matching after the spaces following the split, giving the spaces back one by one if none matches.
+ * A search start failing on a key run fails anywhere inside the run as well, so the next start is the end of the run.
+ */
+final class KeyValueScanner {
+    private static final int BYTES = 256;
+
+    private final boolean[] keyBytes;
+    private final boolean[] valueSplitBytes;
+    private final boolean[] normalValueBytes;
+    private final boolean[] spaceBytes;
+    private final boolean includeBrackets;
+
+    private KeyValueScanner(boolean[] keyBytes, boolean[] valueSplitBytes, boolean[] normalValueBytes, boolean[] spaceBytes, boolean includeBrackets) {
+        this.keyBytes = keyBytes;
+        this.valueSplitBytes = valueSplitBytes;
+        this.normalValueBytes = normalValueBytes;
+        this.spaceBytes = spaceBytes;
+        this.includeBrackets = includeBrackets;
+    }
+
+    /**
+     * @return a scanner matching like the pattern built of the splits, null if the splits are not plain character class contents
+     * or a value split is also a space, where the regex backtracking would differ from the scan
+     */
+    static KeyValueScanner create(String fieldSplit, String valueSplit, boolean includeBrackets) {
+        if (fieldSplit.indexOf(']') >= 0 || valueSplit.indexOf(']') >= 0) {
+            return null;
+        }
+
+        boolean[] keyBytes = characterClass("[^" + fieldSplit + valueSplit + "]");
+        boolean[] valueSplitBytes = characterClass("[" + valueSplit + "]");
+        boolean[] normalValueBytes = characterClass("[^" + fieldSplit + "]");
+        boolean[] spaceBytes = characterClass("\\s");
+        if (keyBytes == null || valueSplitBytes == null || normalValueBytes == null || spaceBytes == null) {
+            return null;
+        }
+        for (int b = 0; b < BYTES; b++) {
+            if (valueSplitBytes[b] && spaceBytes[b]) {
+                return null;
+            }
+        }
+
+        return new KeyValueScanner(keyBytes, valueSplitBytes, normalValueBytes, spaceBytes, includeBrackets);
+    }
+
+    /**
+     * Compiles the class the way the processor compiles its pattern, then matches it against every byte
+     */
+    private static boolean[] characterClass(String characterClass) {
+        byte[] pattern = characterClass.getBytes();
+        Regex regex;
+        try {
+            regex = new Regex(pattern, 0, pattern.length, Option.MULTILINE);
+        } catch (JOniException e) {
+            return null;
+        }
+
+        boolean[] matches = new boolean[BYTES];
+        byte[] singleByte = new byte[1];
+        for (int b = 0; b < BYTES; b++) {
+            singleByte[0] = (byte) b;
+            matches[b] = regex.matcher(singleByte).match(0, 1, Option.NONE) == 1;
+        }
+        return matches;
+    }
+
+    /**
+     * Finds the first pair starting at or after the position
+     *
+     * @return whether a pair was found, its bounds are set on the pair
+     */
+    boolean find(byte[] message, int from, Pair pair) {
+        int start = from;
+        while (start < message.length) {
+            int keyEnd = keyEnd(message, start);
+            if (keyEnd == start) {
+                start++;
+                continue;
+            }
+
+            if (matchValue(message, keyEnd, pair)) {
+                pair.keyStart = start;
+                pair.keyEnd = keyEnd;
+                return true;
+            }
+            start = keyEnd;
+        }
+        return false;
+    }
+
+    /**
+     * @return the end of the longest run of key units, an escaped space or a key byte, the start if there is none
+     */
+    private int keyEnd(byte[] message, int start) {
+        int position = start;
+        while (position < message.length) {
+            if (isEscapedSpace(message, position)) {
+                position += 2;
+            } else if (keyBytes[message[position] & 0xff]) {
+                position++;
+            } else {
+                break;
+            }
+        }
+        return position;
+    }
+
+    private boolean matchValue(byte[] message, int keyEnd, Pair pair) {
+        int valueSplit = skipSpaces(message, keyEnd);
+        if (valueSplit == message.length || !valueSplitBytes[message[valueSplit] & 0xff]) {
+            return false;
+        }
+
+        int afterValueSplit = valueSplit + 1;
+        for (int valueStart = skipSpaces(message, afterValueSplit); valueStart >= afterValueSplit; valueStart--) {
+            if (matchValueAt(message, valueStart, pair)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean matchValueAt(byte[] message, int position, Pair pair) {
+        if (position == message.length) {
+            return false;
+        }
+
+        switch (message[position]) {
+            case '"':
+                if (matchEnclosed(message, position, '"', pair)) return true;
+                break;
+            case '\'':
+                if (matchEnclosed(message, position, '\'', pair)) return true;
+                break;
+            case '(':
+                if (includeBrackets && matchEnclosed(message, position, ')', pair)) return true;
+                break;
+            case '[':
+                if (includeBrackets && matchEnclosed(message, position, ']', pair)) return true;
+                break;
+            case '<':
+                if (includeBrackets && matchEnclosed(message, position, '>', pair)) return true;
+                break;
+            default:
+                break;
+        }
+
+        int end = position;
+        while (end < message.length) {
+            if (isEscapedSpace(message, end)) {
+                end += 2;
+            } else if (normalValueBytes[message[end] & 0xff]) {
+                end++;
+            } else {
+                break;
+            }
+        }
+        if (end == position) {
+            return false;
+        }
+
+        pair.set(position, end, end);
+        return true;
+    }
+
+    /**
+     * Matches at least one byte other than the closing byte, up to the closing byte
+     */
+    private boolean matchEnclosed(byte[] message, int opening, char closing, Pair pair) {
+        int valueStart = opening + 1;
+        int close = valueStart;
+        while (close < message.length && message[close] != closing) {
+            close++;
+        }
+        if (close == message.length || close == valueStart) {
+            return false;
+        }
+
+        pair.set(valueStart, close, close + 1);
+        return true;
+    }
+
+    private int skipSpaces(byte[] message, int position) {
+        while (position < message.length && spaceBytes[message[position] & 0xff]) {
+            position++;
+        }
+        return position;
+    }
+
+    private static boolean isEscapedSpace(byte[] message, int position) {
+        return message[position] == '\\' && position + 1 < message.length && message[position + 1] == ' ';
+    }
+
+    /**
+     * Bounds of a found pair, reused from one search to the next
+     */
+    static final class Pair {
+        int keyStart;
+        int keyEnd;
+        int valueStart;
+        int valueEnd;
+        int end;
+
+        private void set(int valueStart, int valueEnd, int end) {
+            this.valueStart = valueStart;
+            this.valueEnd = valueEnd;
+            this.end = end;
+        }
+
+        String key(byte[] message) {
+            return new String(message, keyStart, keyEnd - keyStart, StandardCharsets.UTF_8);
+        }
+
+        String value(byte[] message) {
+            return new String(message, valueStart, valueEnd - valueStart, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package io.logz.sawmill.processors;
 
 import io.logz.sawmill.Doc;
+import io.logz.sawmill.FieldPath;
 import io.logz.sawmill.ProcessResult;
 import io.logz.sawmill.Processor;
 import io.logz.sawmill.annotations.ProcessorProvider;
@@ -12,24 +13,29 @@ import static java.util.Objects.requireNonNull;
 
 @ProcessorProvider(type = "lowerCase", factory = LowerCaseProcessor.Factory.class)
 public class LowerCaseProcessor implements Processor {
-    private final String field;
+    private final FieldPath field;
 
     public LowerCaseProcessor(String path) {
-        this.field = requireNonNull(path, "field cannot be null");
+        this.field = FieldPath.of(requireNonNull(path, "field cannot be null"));
     }
 
     @Override
     public ProcessResult process(Doc doc) {
-        if (!doc.hasField(field, String.class)) {
+        Object value = doc.getFieldOrNull(field);
+        if (!(value instanceof String)) {
             return ProcessResult.failure(String.format("failed to lowercase field in path [%s], field is missing or not instance of [%s]", field, String.class));
         }
 
-        String value = doc.getField(field);
-        doc.addField(field, value.toLowerCase());
+        doc.addField(field, ((String) value).toLowerCase());
 
         return ProcessResult.success();
     }
 
+    @Override
+    public boolean isFusible() {
+        return true;
+    }
+
     public static class Factory implements Processor.Factory {
         public Factory() {
         }
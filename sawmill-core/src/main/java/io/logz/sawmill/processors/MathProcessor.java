@@ -1,69 +1,71 @@
 package io.logz.sawmill.processors;
 
 import io.logz.sawmill.Doc;
+import io.logz.sawmill.FieldPath;
 import io.logz.sawmill.ProcessResult;
 import io.logz.sawmill.Processor;
 import io.logz.sawmill.annotations.ProcessorProvider;
 import io.logz.sawmill.exceptions.ProcessorConfigurationException;
 import io.logz.sawmill.utilities.JsonUtils;
 import io.logz.sawmill.utilities.MathExpressionProvider;
+import net.objecthunter.exp4j.Expression;
 
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 import static io.logz.sawmill.FieldType.DOUBLE;
 import static java.util.Objects.requireNonNull;
 
 @ProcessorProvider(type = "math", factory = MathProcessor.Factory.class)
 public class MathProcessor implements Processor {
-    private final String targetField;
+    private final FieldPath targetField;
     private final MathExpressionProvider mathExpressionProvider;
-    private final Set<String> variables;
+    private final Map<String, FieldPath> variables;
 
     public MathProcessor(String targetField, MathExpressionProvider mathExpressionProvider, Set<String> variables) {
-        this.targetField = requireNonNull(targetField, "target field cannot be null");
+        this.targetField = FieldPath.of(requireNonNull(targetField, "target field cannot be null"));
         this.mathExpressionProvider = requireNonNull(mathExpressionProvider, "expression cannot be null");
-        this.variables = variables;
+        this.variables = variables.stream().collect(Collectors.toMap(Function.identity(), FieldPath::of));
     }
 
     @Override
     public ProcessResult process(Doc doc) {
         Map<String, Double> variablesMap = new HashMap<>();
 
-        for (String variable : variables) {
-            if (!doc.hasField(variable)) {
+        for (Map.Entry<String, FieldPath> variable : variables.entrySet()) {
+            Object fieldValue = doc.getFieldOrNull(variable.getValue());
+            if (fieldValue == null) {
                 return ProcessResult.failure("field [%s] is missing");
             }
 
-            Double value = resolveVariable(doc, variable);
+            Double value = (Double) DOUBLE.convertFrom(fieldValue);
 
             if (value == null) {
                 return ProcessResult.failure("field [%s] is not a number");
             }
 
-            variablesMap.put(variable, value);
+            variablesMap.put(variable.getKey(), value);
         }
 
-        mathExpressionProvider.provide().setVariables(variablesMap);
-
+        Expression expression = mathExpressionProvider.provide();
         try {
-            doc.addField(targetField,  mathExpressionProvider.provide().evaluate());
+            expression.setVariables(variablesMap);
+            doc.addField(targetField, expression.evaluate());
         } catch (ArithmeticException e) {
             return ProcessResult.failure("Division by zero!");
+        } finally {
+            mathExpressionProvider.release(expression);
         }
 
         return ProcessResult.success();
     }
 
-    private Double resolveVariable(Doc doc, String variable) {
-        Object fieldValue = doc.getField(variable);
-        return (Double) DOUBLE.convertFrom(fieldValue);
-    }
-
     public static class Factory implements Processor.Factory {
         private final Pattern mustachePattern = Pattern.compile("\\{\\{(.+?)\\}\\}");
 
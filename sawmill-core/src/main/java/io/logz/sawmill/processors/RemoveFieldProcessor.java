@@ -1,6 +1,7 @@
 package io.logz.sawmill.processors;
 
 import io.logz.sawmill.Doc;
+import io.logz.sawmill.FieldPath;
 import io.logz.sawmill.ProcessResult;
 import io.logz.sawmill.Processor;
 import io.logz.sawmill.Template;
@@ -28,11 +29,18 @@ public class RemoveFieldProcessor implements Processor {
 
     @Override
     public ProcessResult process(Doc doc) {
-        fields.stream().map(field -> field.render(doc)).forEach(doc::removeField);
+        for (Template field : fields) {
+            doc.removeField(field.renderFieldPath(doc));
+        }
 
         return ProcessResult.success();
     }
 
+    @Override
+    public boolean isFusible() {
+        return true;
+    }
+
     public static class Factory implements Processor.Factory {
         private final TemplateService templateService;
 
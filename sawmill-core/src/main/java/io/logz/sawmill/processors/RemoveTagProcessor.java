@@ -1,6 +1,7 @@
 package io.logz.sawmill.processors;
 
 import io.logz.sawmill.Doc;
+import io.logz.sawmill.FieldPath;
 import io.logz.sawmill.ProcessResult;
 import io.logz.sawmill.Processor;
 import io.logz.sawmill.Template;
@@ -18,6 +19,8 @@ import static com.google.common.base.Preconditions.checkState;
 
 @ProcessorProvider(type = "removeTag", factory = RemoveTagProcessor.Factory.class)
 public class RemoveTagProcessor implements Processor {
+    private static final FieldPath TAGS = FieldPath.of("tags");
+
     private final List<Template> tags;
 
     public RemoveTagProcessor(List<Template> tags) {
@@ -28,7 +31,7 @@ public class RemoveTagProcessor implements Processor {
     @Override
     public ProcessResult process(Doc doc) {
         List<String> renderedTags = tags.stream().map(tag -> tag.render(doc)).collect(Collectors.toList());
-        doc.removeFromList("tags", renderedTags);
+        doc.removeFromList(TAGS, renderedTags);
         return ProcessResult.success();
     }
 
@@ -1,6 +1,7 @@
 package io.logz.sawmill.processors;
 
 import io.logz.sawmill.Doc;
+import io.logz.sawmill.FieldPath;
 import io.logz.sawmill.ProcessResult;
 import io.logz.sawmill.Processor;
 import io.logz.sawmill.Template;
@@ -29,16 +30,16 @@ public class RenameFieldProcessor implements Processor {
 
     @Override
     public ProcessResult process(Doc doc) {
-        List<String> missingFields = new ArrayList<>();
+        List<FieldPath> missingFields = new ArrayList<>();
         for (Map.Entry<Template, Template> rename : renames.entrySet()) {
-            String renderedFrom = rename.getKey().render(doc);
-            if (!doc.hasField(renderedFrom)) {
+            FieldPath renderedFrom = rename.getKey().renderFieldPath(doc);
+            // the target is rendered while the source is still in the doc, since it may refer to it
+            FieldPath renderedTo = rename.getValue().renderFieldPath(doc);
+            Object fieldValue = doc.removeAndGetField(renderedFrom);
+            if (fieldValue == null) {
                 missingFields.add(renderedFrom);
                 continue;
             }
-            String renderedTo = rename.getValue().render(doc);
-            Object fieldValue = doc.getField(renderedFrom);
-            doc.removeField(renderedFrom);
             doc.addField(renderedTo, fieldValue);
         }
 
@@ -49,6 +50,11 @@ public class RenameFieldProcessor implements Processor {
         return ProcessResult.success();
     }
 
+    @Override
+    public boolean isFusible() {
+        return true;
+    }
+
     public static class Factory implements Processor.Factory {
 
         private final TemplateService templateService;
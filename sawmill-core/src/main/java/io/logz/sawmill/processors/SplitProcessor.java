@@ -1,6 +1,7 @@
 package io.logz.sawmill.processors;
 
 import io.logz.sawmill.Doc;
+import io.logz.sawmill.FieldPath;
 import io.logz.sawmill.ProcessResult;
 import io.logz.sawmill.Processor;
 import io.logz.sawmill.annotations.ProcessorProvider;
@@ -13,22 +14,22 @@ import static java.util.Objects.requireNonNull;
 
 @ProcessorProvider(type = "split", factory = SplitProcessor.Factory.class)
 public class SplitProcessor implements Processor {
-    private final String field;
+    private final FieldPath field;
     private final String separator;
 
     public SplitProcessor(String path, String separator) {
-        this.field = requireNonNull(path, "field cannot be null");
+        this.field = FieldPath.of(requireNonNull(path, "field cannot be null"));
         this.separator = requireNonNull(separator, "separator cannot be null");
     }
 
     @Override
     public ProcessResult process(Doc doc) {
-        if (!doc.hasField(field, String.class)) {
+        Object value = doc.getFieldOrNull(field);
+        if (!(value instanceof String)) {
             return ProcessResult.failure(String.format("failed to split field in path [%s], field is missing or not instance of String", field));
         }
 
-        String value = doc.getField(field);
-        String[] split = value.split(separator);
+        String[] split = ((String) value).split(separator);
         if (split.length > 1) {
             doc.addField(field, Arrays.asList(split));
         }
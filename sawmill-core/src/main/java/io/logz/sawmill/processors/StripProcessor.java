@@ -1,6 +1,7 @@
 package io.logz.sawmill.processors;
 
 import io.logz.sawmill.Doc;
+import io.logz.sawmill.FieldPath;
 import io.logz.sawmill.ProcessResult;
 import io.logz.sawmill.Processor;
 import io.logz.sawmill.annotations.ProcessorProvider;
@@ -10,29 +11,30 @@ import org.apache.commons.collections4.CollectionUtils;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkState;
 
 @ProcessorProvider(type = "strip", factory = StripProcessor.Factory.class)
 public class StripProcessor implements Processor {
-    private final List<String> fields;
+    private final List<FieldPath> fields;
 
     public StripProcessor(List<String> fields) {
         checkState(CollectionUtils.isNotEmpty(fields), "fields cannot be empty");
-        this.fields = fields;
+        this.fields = fields.stream().map(FieldPath::of).collect(Collectors.toList());
     }
 
     @Override
     public ProcessResult process(Doc doc) {
-        List<String> failedFields = new ArrayList<>();
-        for (String field : fields) {
-            if (!doc.hasField(field, String.class)) {
+        List<FieldPath> failedFields = new ArrayList<>();
+        for (FieldPath field : fields) {
+            Object value = doc.getFieldOrNull(field);
+            if (!(value instanceof String)) {
                 failedFields.add(field);
                 continue;
             }
 
-            String value = doc.getField(field);
-            doc.addField(field, value.trim());
+            doc.addField(field, ((String) value).trim());
 
         }
 
@@ -43,6 +45,11 @@ public class StripProcessor implements Processor {
         return ProcessResult.success();
     }
 
+    @Override
+    public boolean isFusible() {
+        return true;
+    }
+
     public static class Factory implements Processor.Factory {
         public Factory() {
         }
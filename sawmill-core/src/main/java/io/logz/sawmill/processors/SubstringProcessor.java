@@ -1,6 +1,7 @@
 package io.logz.sawmill.processors;
 
 import io.logz.sawmill.Doc;
+import io.logz.sawmill.FieldPath;
 import io.logz.sawmill.ProcessResult;
 import io.logz.sawmill.Processor;
 import io.logz.sawmill.annotations.ProcessorProvider;
@@ -12,23 +13,24 @@ import static java.util.Objects.requireNonNull;
 
 @ProcessorProvider(type = "substring", factory = SubstringProcessor.Factory.class)
 public class SubstringProcessor implements Processor {
-    private final String field;
+    private final FieldPath field;
     private final Integer begin;
     private final Integer end;
 
     public SubstringProcessor(String field, Integer begin, Integer end) {
-        this.field = requireNonNull(field);
+        this.field = FieldPath.of(requireNonNull(field));
         this.begin = requireNonNull(begin);
         this.end = end;
     }
 
     @Override
     public ProcessResult process(Doc doc) {
-        if (!doc.hasField(field, String.class)) {
+        Object fieldValue = doc.getFieldOrNull(field);
+        if (!(fieldValue instanceof String)) {
             return ProcessResult.failure(String.format("failed to substring field [%s], field is missing or not instance of String", field));
         }
 
-        String value = doc.getField(field);
+        String value = (String) fieldValue;
 
         if (value.length() <= begin) {
             return ProcessResult.failure(String.format("failed to substring field [%s], value [%s] is shorter than beginIndex [%s]", field, value, begin));
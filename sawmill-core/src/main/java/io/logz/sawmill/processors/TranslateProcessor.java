@@ -1,6 +1,7 @@
 package io.logz.sawmill.processors;
 
 import io.logz.sawmill.Doc;
+import io.logz.sawmill.FieldPath;
 import io.logz.sawmill.ProcessResult;
 import io.logz.sawmill.Processor;
 import io.logz.sawmill.Template;
@@ -16,26 +17,25 @@ import static java.util.Objects.requireNonNull;
 
 @ProcessorProvider(type = "translate", factory = TranslateProcessor.Factory.class)
 public class TranslateProcessor implements Processor {
-    private final String field;
-    private final String targetField;
+    private final FieldPath field;
+    private final FieldPath targetField;
     private final Map<String, String> dictionary;
     private final Template fallback;
 
     public TranslateProcessor(String field, String targetField, Map<String, String> dictionary, Template fallback) {
-        this.field = requireNonNull(field, "field cannot be null");
-        this.targetField = requireNonNull(targetField, "targetField cannot be null");
+        this.field = FieldPath.of(requireNonNull(field, "field cannot be null"));
+        this.targetField = FieldPath.of(requireNonNull(targetField, "targetField cannot be null"));
         this.dictionary = requireNonNull(dictionary, "dictionary cannot be null");
         this.fallback = fallback;
     }
 
     @Override
     public ProcessResult process(Doc doc) {
-        if (!doc.hasField(field, String.class)) {
+        Object value = doc.getFieldOrNull(field);
+        if (!(value instanceof String)) {
             return ProcessResult.failure(String.format("failed to translate field in path [%s], field is missing or not instance of String", field));
         }
 
-        String value = doc.getField(this.field);
-
         String translation = dictionary.get(value);
 
         if (translation == null) {
@@ -1,6 +1,7 @@
 package io.logz.sawmill.processors;
 
 import io.logz.sawmill.Doc;
+import io.logz.sawmill.FieldPath;
 import io.logz.sawmill.ProcessResult;
 import io.logz.sawmill.Processor;
 import io.logz.sawmill.annotations.ProcessorProvider;
@@ -11,28 +12,29 @@ import org.apache.commons.collections4.CollectionUtils;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import static java.util.Objects.requireNonNull;
 
 @ProcessorProvider(type = "upperCase", factory = UpperCaseProcessor.Factory.class)
 public class UpperCaseProcessor implements Processor {
-    private final List<String> fields;
+    private final List<FieldPath> fields;
 
     public UpperCaseProcessor(List<String> fields) {
-        this.fields = requireNonNull(fields, "fields cannot be null");
+        this.fields = requireNonNull(fields, "fields cannot be null").stream().map(FieldPath::of).collect(Collectors.toList());
     }
 
     @Override
     public ProcessResult process(Doc doc) {
-        List<String> missingFields = new ArrayList<>();
-        for (String field : fields) {
-            if (!doc.hasField(field, String.class)) {
+        List<FieldPath> missingFields = new ArrayList<>();
+        for (FieldPath field : fields) {
+            Object value = doc.getFieldOrNull(field);
+            if (!(value instanceof String)) {
                 missingFields.add(field);
                 continue;
             }
 
-            String value = doc.getField(field);
-            doc.addField(field, value.toUpperCase());
+            doc.addField(field, ((String) value).toUpperCase());
         }
 
         if (!missingFields.isEmpty()) {
@@ -42,6 +44,11 @@ public class UpperCaseProcessor implements Processor {
         return ProcessResult.success();
     }
 
+    @Override
+    public boolean isFusible() {
+        return true;
+    }
+
     public static class Factory implements Processor.Factory {
         public Factory() {
         }
@@ -1,6 +1,7 @@
 package io.logz.sawmill.processors;
 
 import io.logz.sawmill.Doc;
+import io.logz.sawmill.FieldPath;
 import io.logz.sawmill.ProcessResult;
 import io.logz.sawmill.Processor;
 import io.logz.sawmill.annotations.ProcessorProvider;
@@ -17,12 +18,12 @@ public class UrlDecodeProcessor implements Processor {
 
     private boolean allFields;
     private String charSet;
-    private String field;
+    private FieldPath field;
 
     public UrlDecodeProcessor(Boolean allFields, String charSet, String field) {
         this.allFields = allFields;
         this.charSet = charSet;
-        this.field = field;
+        this.field = field != null ? FieldPath.of(field) : null;
     }
 
     @Override
@@ -30,10 +31,12 @@ public class UrlDecodeProcessor implements Processor {
         Map<String,Object> map = doc.getSource();
         if(allFields) {
             urlDecodeMap(map);
-        }else if(doc.hasField(field)){
-            doc.replaceFieldValue(field,decodeUrl(doc.getField(field)));
         }else{
-            return ProcessResult.failure(String.format("failed to decode field [%s], field is missing", field));
+            Object value = field != null ? doc.getFieldOrNull(field) : null;
+            if (value == null) {
+                return ProcessResult.failure(String.format("failed to decode field [%s], field is missing", field));
+            }
+            doc.replaceFieldValue(field, decodeUrl((String) value));
         }
         return ProcessResult.success();
     }
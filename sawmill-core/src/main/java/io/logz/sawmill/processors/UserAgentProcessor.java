@@ -1,6 +1,7 @@
 package io.logz.sawmill.processors;
 
 import io.logz.sawmill.Doc;
+import io.logz.sawmill.FieldPath;
 import io.logz.sawmill.ProcessResult;
 import io.logz.sawmill.Processor;
 import io.logz.sawmill.Template;
@@ -11,6 +12,7 @@ import io.logz.sawmill.utilities.UserAgentParserProvider;
 import org.apache.commons.lang3.StringUtils;
 import ua_parser.Client;
 import ua_parser.OS;
+import ua_parser.Parser;
 import ua_parser.UserAgent;
 
 import javax.inject.Inject;
@@ -23,7 +25,9 @@ import static java.util.Objects.requireNonNull;
 
 @ProcessorProvider(type = "userAgent", factory = UserAgentProcessor.Factory.class)
 public class UserAgentProcessor implements Processor {
-    private final String field;
+    private static final FieldPath TAGS = FieldPath.of("tags");
+
+    private final FieldPath field;
     private final Template targetField;
     private final String prefix;
     private final int truncatedInputLength;
@@ -31,7 +35,7 @@ public class UserAgentProcessor implements Processor {
     private final UserAgentParserProvider uaParserProvider;
 
     public UserAgentProcessor(String field, Template targetField, String prefix, int truncatedInputLength, List<String> tagOnTruncated, UserAgentParserProvider userAgentParserProvider) {
-        this.field = requireNonNull(field, "field cannot be null");
+        this.field = FieldPath.of(requireNonNull(field, "field cannot be null"));
         this.targetField = targetField;
         this.prefix = prefix != null ? prefix : "";
         this.uaParserProvider = requireNonNull(userAgentParserProvider);
@@ -41,18 +45,25 @@ public class UserAgentProcessor implements Processor {
 
     @Override
     public ProcessResult process(Doc doc) {
-        if (!doc.hasField(field, String.class)) {
+        Object value = doc.getFieldOrNull(field);
+        if (!(value instanceof String)) {
             return ProcessResult.failure(String.format("failed to parse user agent, couldn't find field [%s] or not instance of [%s]", field, String.class));
         }
 
-        String uaString = doc.getField(field);
+        String uaString = (String) value;
 
         if (uaString.length() > truncatedInputLength) {
             uaString = uaString.substring(0, truncatedInputLength);
-            doc.appendList("tags", tagOnTruncated);
+            doc.appendList(TAGS, tagOnTruncated);
         }
 
-        Client client = uaParserProvider.provide().parse(uaString);
+        Parser parser = uaParserProvider.provide();
+        Client client;
+        try {
+            client = parser.parse(uaString);
+        } finally {
+            uaParserProvider.release(parser);
+        }
 
         Map<String, String> userAgent = new HashMap<>();
         if (client.userAgent != null) {
@@ -75,7 +86,7 @@ public class UserAgentProcessor implements Processor {
         }
 
         if (targetField != null) {
-            doc.addField(targetField.render(doc), userAgent);
+            doc.addField(targetField.renderFieldPath(doc), userAgent);
         } else {
             userAgent.entrySet().forEach(property -> {
                 doc.addField(prefix + property.getKey(), property.getValue());
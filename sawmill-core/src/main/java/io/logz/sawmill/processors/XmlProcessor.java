@@ -1,6 +1,7 @@
 package io.logz.sawmill.processors;
 
 import io.logz.sawmill.Doc;
+import io.logz.sawmill.FieldPath;
 import io.logz.sawmill.ProcessResult;
 import io.logz.sawmill.Processor;
 import io.logz.sawmill.annotations.ProcessorProvider;
@@ -16,7 +17,9 @@ import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
 
+import javax.xml.parsers.DocumentBuilder;
 import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
@@ -25,6 +28,7 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -36,40 +40,46 @@ public class XmlProcessor implements Processor {
     private static final Logger logger = LoggerFactory.getLogger(XmlProcessor.class);
 
     private final DocumentBuilderProvider documentBuilderProvider;
-    private final String field;
-    private final String targetField;
-    private final Map<XPathExpressionProvider, String> xpath;
+    private final FieldPath field;
+    private final FieldPath targetField;
+    private final Map<XPathExpressionProvider, FieldPath> xpath;
     private final boolean storeXml;
 
     public XmlProcessor(DocumentBuilderProvider documentBuilderProvider, String field, String targetField, Map<XPathExpressionProvider, String> xpath, boolean storeXml) {
         this.documentBuilderProvider = requireNonNull(documentBuilderProvider);
-        this.field = requireNonNull(field);
-        this.targetField = targetField;
-        this.xpath = xpath;
+        this.field = FieldPath.of(requireNonNull(field));
+        this.targetField = StringUtils.isNotEmpty(targetField) ? FieldPath.of(targetField) : null;
+        this.xpath = compilePaths(xpath);
         this.storeXml = storeXml;
     }
 
     @Override
     public ProcessResult process(Doc doc) {
-        if (!doc.hasField(field, String.class)) {
+        Object fieldValue = doc.getFieldOrNull(field);
+        if (!(fieldValue instanceof String)) {
             return ProcessResult.failure("failed to parse xml in path [" + field + "], field is missing or not instance of String");
         }
 
-        String value = doc.getField(this.field);
+        String value = (String) fieldValue;
         Document parsed;
 
+        DocumentBuilder documentBuilder = documentBuilderProvider.provide();
         try {
             InputStream inputStream = new ByteArrayInputStream(value.getBytes(StandardCharsets.UTF_8));
-            parsed = documentBuilderProvider.provide().parse(inputStream);
+            parsed = documentBuilder.parse(inputStream);
         } catch (SAXException | IOException e) {
             return ProcessResult.failure("failed to parse xml in path [" + field + "] with value [" + value + "], errorMsg=[" + e.getMessage() + "]");
+        } finally {
+            documentBuilderProvider.release(documentBuilder);
         }
 
         if (MapUtils.isNotEmpty(xpath)) {
-            for (Map.Entry<XPathExpressionProvider, String> item : xpath.entrySet()) {
+            for (Map.Entry<XPathExpressionProvider, FieldPath> item : xpath.entrySet()) {
+                XPathExpressionProvider xPathExpressionProvider = item.getKey();
+                XPathExpression xPathExpression = xPathExpressionProvider.provide();
                 try {
                     Object evaluate;
-                    NodeList nodeList = (NodeList) item.getKey().provide().evaluate(parsed, XPathConstants.NODESET);
+                    NodeList nodeList = (NodeList) xPathExpression.evaluate(parsed, XPathConstants.NODESET);
                     if (nodeList.getLength() == 0) continue;
                     if (nodeList.getLength() == 1) {
                         evaluate = nodeList.item(0).getTextContent();
@@ -80,25 +90,25 @@ public class XmlProcessor implements Processor {
                         }
                     }
 
-                    String path = item.getValue();
-                    if (doc.hasField(path)) {
+                    FieldPath path = item.getValue();
+                    if (!doc.addFieldIfAbsent(path, evaluate)) {
                         if (evaluate instanceof List) {
                             ((List)evaluate).forEach(val -> doc.appendList(path, val));
                         } else {
                             doc.appendList(path, evaluate);
                         }
-                    } else {
-                        doc.addField(path, evaluate);
                     }
                 } catch (XPathExpressionException e) {
                     logger.trace("xpath evaluation failed", e);
+                } finally {
+                    xPathExpressionProvider.release(xPathExpression);
                 }
             }
         }
 
         if (storeXml) {
             Map<String, Object> xmlNodes = extractNodes(parsed);
-            if (StringUtils.isNotEmpty(targetField)) {
+            if (targetField != null) {
                 doc.addField(targetField, xmlNodes);
             } else {
                 xmlNodes.forEach(doc::addField);
@@ -107,6 +117,16 @@ public class XmlProcessor implements Processor {
         return ProcessResult.success();
     }
 
+    private static Map<XPathExpressionProvider, FieldPath> compilePaths(Map<XPathExpressionProvider, String> xpath) {
+        if (xpath == null) {
+            return null;
+        }
+
+        Map<XPathExpressionProvider, FieldPath> compiled = new LinkedHashMap<>();
+        xpath.forEach((expression, path) -> compiled.put(expression, FieldPath.of(path)));
+        return compiled;
+    }
+
     private Map<String, Object> extractNodes(Node parent) {
         Map<String, Object> xmlNodes = new HashMap<>();
         NodeList nodes = parent.getChildNodes();
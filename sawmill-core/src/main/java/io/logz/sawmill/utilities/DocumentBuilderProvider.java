@@ -7,10 +7,10 @@ import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 
 public class DocumentBuilderProvider {
-    private final ThreadLocal<DocumentBuilder> localDocumentBuilder;
+    private final ThreadLocalResource<DocumentBuilder> localDocumentBuilder;
 
     public DocumentBuilderProvider() {
-        localDocumentBuilder = ThreadLocal.withInitial(() -> {
+        localDocumentBuilder = new ThreadLocalResource<>(() -> {
             try {
                 return DocumentBuilderFactory.newInstance().newDocumentBuilder();
             } catch (ParserConfigurationException e) {
@@ -19,7 +19,14 @@ public class DocumentBuilderProvider {
         });
     }
 
+    /**
+     * The provided instance is not thread safe, give it back with {@link #release} when done with it
+     */
     public DocumentBuilder provide() {
-        return localDocumentBuilder.get();
+        return localDocumentBuilder.acquire();
+    }
+
+    public void release(DocumentBuilder documentBuilder) {
+        localDocumentBuilder.release(documentBuilder);
     }
 }
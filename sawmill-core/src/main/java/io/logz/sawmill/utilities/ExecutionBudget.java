@@ -0,0 +1,219 @@
+package io.logz.sawmill.utilities;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Limits how long a processor may spend evaluating regexes on a doc, so a pathological text fails the processor
+ * instead of holding the thread until the {@link io.logz.sawmill.PipelineExecutionTimeWatchdog} expires the whole doc.
+ *
+ * joni only stops on the interrupt flag of its thread, so while a budgeted evaluation runs its thread is registered with
+ * a shared timer that interrupts it once the budget is exceeded. The interrupt is confined to the evaluation:
+ * the timer never interrupts a thread outside one, and {@link Evaluation#end()} clears an interrupt the timer delivered.
+ * Matchers reading a {@link CharSequence}, such as {@link java.util.regex.Pattern}, check the budget themselves instead,
+ * see {@link #guard(CharSequence)}.
+ */
+public final class ExecutionBudget {
+    public static final ExecutionBudget UNLIMITED = new ExecutionBudget(0);
+    public static final String EXCEEDED_TAG = "_budget_exceeded";
+
+    private static final long CHECK_PERIOD_MS = 1;
+    private static final int GUARD_CHECK_EVERY = 4096;
+
+    private final long budgetNs;
+
+    private ExecutionBudget(long budgetNs) {
+        this.budgetNs = budgetNs;
+    }
+
+    /**
+     * @param budgetMs the time an evaluation may take, 0 for no budget
+     */
+    public static ExecutionBudget ofMillis(long budgetMs) {
+        checkArgument(budgetMs >= 0, "budget cannot be negative");
+        return budgetMs == 0 ? UNLIMITED : new ExecutionBudget(TimeUnit.MILLISECONDS.toNanos(budgetMs));
+    }
+
+    public boolean isUnlimited() {
+        return budgetNs == 0;
+    }
+
+    public long getBudgetMs() {
+        return TimeUnit.NANOSECONDS.toMillis(budgetNs);
+    }
+
+    /**
+     * Starts a budgeted evaluation on the current thread, it must be ended in a finally block
+     */
+    public Evaluation start() {
+        if (isUnlimited()) {
+            return Evaluation.UNLIMITED;
+        }
+
+        Evaluation evaluation = Timer.EVALUATIONS.acquire();
+        if (evaluation.inUse) {
+            // a budgeted evaluation nested in another on the same thread
+            evaluation = Timer.newEvaluation();
+        }
+        evaluation.start(System.nanoTime() + budgetNs);
+        return evaluation;
+    }
+
+    /**
+     * @return the text, reading it throws {@link ExceededException} once the budget is exceeded
+     */
+    public CharSequence guard(CharSequence text) {
+        return isUnlimited() ? text : new GuardedCharSequence(text, System.nanoTime() + budgetNs);
+    }
+
+    /**
+     * A budgeted evaluation of the current thread, reused by the evaluations of the thread one after the other
+     */
+    public static final class Evaluation {
+        private static final Evaluation UNLIMITED = new Evaluation();
+
+        private static final int IDLE = 0;
+        private static final int RUNNING = 1;
+        private static final int INTERRUPTING = 2;
+        private static final int INTERRUPTED = 3;
+
+        private final AtomicInteger state = new AtomicInteger(IDLE);
+        private volatile long deadlineNs;
+        private volatile Thread thread;
+        private boolean inUse;
+        private boolean exceeded;
+
+        private Evaluation() {
+        }
+
+        private void start(long deadlineNs) {
+            this.inUse = true;
+            this.exceeded = false;
+            this.deadlineNs = deadlineNs;
+            this.thread = Thread.currentThread();
+            state.set(RUNNING);
+        }
+
+        /**
+         * Ends the evaluation, clearing the interrupt flag if the timer interrupted the thread. Ending it again has no effect.
+         *
+         * @return whether the evaluation exceeded its budget
+         */
+        public boolean end() {
+            if (!inUse) {
+                return exceeded;
+            }
+            inUse = false;
+
+            if (!state.compareAndSet(RUNNING, IDLE)) {
+                while (state.get() == INTERRUPTING) {
+                    Thread.yield();
+                }
+                Thread.interrupted();
+                exceeded = true;
+                state.set(IDLE);
+            }
+            thread = null;
+            Timer.EVALUATIONS.release(this);
+            return exceeded;
+        }
+
+        private void interruptIfExceeded(long now) {
+            if (state.get() != RUNNING || now - deadlineNs <= 0 || !state.compareAndSet(RUNNING, INTERRUPTING)) {
+                return;
+            }
+
+            thread.interrupt();
+            state.set(INTERRUPTED);
+        }
+    }
+
+    /**
+     * Thrown by a guarded text read after the budget is exceeded
+     */
+    public static class ExceededException extends RuntimeException {
+        public ExceededException() {
+            super("execution budget exceeded", null, false, false);
+        }
+    }
+
+    private static final class GuardedCharSequence implements CharSequence {
+        private final CharSequence text;
+        private final long deadlineNs;
+        private int reads;
+
+        private GuardedCharSequence(CharSequence text, long deadlineNs) {
+            this.text = text;
+            this.deadlineNs = deadlineNs;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (++reads == GUARD_CHECK_EVERY) {
+                reads = 0;
+                if (System.nanoTime() - deadlineNs > 0) {
+                    throw new ExceededException();
+                }
+            }
+            return text.charAt(index);
+        }
+
+        @Override
+        public int length() {
+            return text.length();
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return text.subSequence(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return text.toString();
+        }
+    }
+
+    /**
+     * Started on first use, so pipelines without budgets do not run it
+     */
+    private static final class Timer {
+        private static final Set<Evaluation> ALL_EVALUATIONS = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+        private static final ThreadLocalResource<Evaluation> EVALUATIONS = new ThreadLocalResource<>(Timer::newEvaluation);
+        private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("sawmill-budget-timer-%d").setDaemon(true).build());
+
+        static {
+            TIMER.scheduleAtFixedRate(Timer::interruptExceeded, CHECK_PERIOD_MS, CHECK_PERIOD_MS, TimeUnit.MILLISECONDS);
+        }
+
+        private static Evaluation newEvaluation() {
+            Evaluation evaluation = new Evaluation();
+            ALL_EVALUATIONS.add(evaluation);
+            return evaluation;
+        }
+
+        private static void interruptExceeded() {
+            List<Evaluation> evaluations;
+            synchronized (ALL_EVALUATIONS) {
+                evaluations = new ArrayList<>(ALL_EVALUATIONS);
+            }
+
+            long now = System.nanoTime();
+            for (Evaluation evaluation : evaluations) {
+                evaluation.interruptIfExceeded(now);
+            }
+        }
+    }
+}
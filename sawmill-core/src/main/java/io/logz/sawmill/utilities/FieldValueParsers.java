@@ -0,0 +1,230 @@
+package io.logz.sawmill.utilities;
+
+import com.google.common.primitives.Doubles;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Parses field values from strings or UTF-8 bytes without regexes or intermediate strings.
+ * Accepts the same texts as {@link com.google.common.primitives.Longs#tryParse(String)},
+ * {@link Doubles#tryParse(String)} and the boolean words of {@link io.logz.sawmill.FieldType#BOOLEAN},
+ * returning null for anything else.
+ */
+public final class FieldValueParsers {
+
+    /**
+     * Decimals with up to this many significant digits are exact longs converted exactly to doubles
+     */
+    private static final int MAX_EXACT_DIGITS = 15;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private FieldValueParsers() {
+    }
+
+    public static Long parseLong(String text) {
+        int length = text.length();
+        if (length == 0) {
+            return null;
+        }
+
+        boolean negative = text.charAt(0) == '-';
+        int index = negative ? 1 : 0;
+        if (index == length) {
+            return null;
+        }
+
+        long accumulator = 0;
+        for (; index < length; index++) {
+            int digit = text.charAt(index) - '0';
+            accumulator = accumulateNegated(accumulator, digit);
+            if (accumulator > 0) {
+                return null;
+            }
+        }
+        return negate(accumulator, negative);
+    }
+
+    public static Long parseLong(byte[] utf8, int start, int end) {
+        if (start == end) {
+            return null;
+        }
+
+        boolean negative = utf8[start] == '-';
+        int index = negative ? start + 1 : start;
+        if (index == end) {
+            return null;
+        }
+
+        long accumulator = 0;
+        for (; index < end; index++) {
+            int digit = utf8[index] - '0';
+            accumulator = accumulateNegated(accumulator, digit);
+            if (accumulator > 0) {
+                return null;
+            }
+        }
+        return negate(accumulator, negative);
+    }
+
+    /**
+     * Accumulates negated, as the range of negative longs is the larger one
+     *
+     * @return the accumulated value, positive if the digit is invalid or the value overflows
+     */
+    private static long accumulateNegated(long accumulator, int digit) {
+        if (digit < 0 || digit > 9 || accumulator < Long.MIN_VALUE / 10) {
+            return 1;
+        }
+        long multiplied = accumulator * 10;
+        if (multiplied < Long.MIN_VALUE + digit) {
+            return 1;
+        }
+        return multiplied - digit;
+    }
+
+    private static Long negate(long negatedValue, boolean negative) {
+        if (negative) {
+            return negatedValue;
+        }
+        if (negatedValue == Long.MIN_VALUE) {
+            return null;
+        }
+        return -negatedValue;
+    }
+
+    public static Double parseDouble(String text) {
+        int length = text.length();
+        int index = 0;
+        boolean negative = false;
+        if (length > 0 && (text.charAt(0) == '-' || text.charAt(0) == '+')) {
+            negative = text.charAt(0) == '-';
+            index++;
+        }
+
+        long mantissa = 0;
+        int significantDigits = 0;
+        int fractionDigits = 0;
+        int digits = 0;
+        boolean fraction = false;
+        for (; index < length; index++) {
+            char c = text.charAt(index);
+            if (c == '.' && !fraction) {
+                fraction = true;
+            } else if (c >= '0' && c <= '9') {
+                digits++;
+                if (fraction) {
+                    fractionDigits++;
+                }
+                if (significantDigits > 0 || c != '0') {
+                    significantDigits++;
+                    mantissa = mantissa * 10 + (c - '0');
+                }
+            } else {
+                break;
+            }
+        }
+
+        if (index == length && digits > 0 && significantDigits <= MAX_EXACT_DIGITS && fractionDigits < POWERS_OF_TEN.length) {
+            double value = mantissa / POWERS_OF_TEN[fractionDigits];
+            return negative ? -value : value;
+        }
+        return Doubles.tryParse(text);
+    }
+
+    public static Double parseDouble(byte[] utf8, int start, int end) {
+        int index = start;
+        boolean negative = false;
+        if (start < end && (utf8[start] == '-' || utf8[start] == '+')) {
+            negative = utf8[start] == '-';
+            index++;
+        }
+
+        long mantissa = 0;
+        int significantDigits = 0;
+        int fractionDigits = 0;
+        int digits = 0;
+        boolean fraction = false;
+        for (; index < end; index++) {
+            byte b = utf8[index];
+            if (b == '.' && !fraction) {
+                fraction = true;
+            } else if (b >= '0' && b <= '9') {
+                digits++;
+                if (fraction) {
+                    fractionDigits++;
+                }
+                if (significantDigits > 0 || b != '0') {
+                    significantDigits++;
+                    mantissa = mantissa * 10 + (b - '0');
+                }
+            } else {
+                break;
+            }
+        }
+
+        if (index == end && digits > 0 && significantDigits <= MAX_EXACT_DIGITS && fractionDigits < POWERS_OF_TEN.length) {
+            double value = mantissa / POWERS_OF_TEN[fractionDigits];
+            return negative ? -value : value;
+        }
+        return Doubles.tryParse(new String(utf8, start, end - start, StandardCharsets.UTF_8));
+    }
+
+    public static Boolean parseBoolean(String text) {
+        switch (text) {
+            case "t":
+            case "true":
+            case "yes":
+            case "y":
+            case "1":
+                return Boolean.TRUE;
+            case "f":
+            case "false":
+            case "no":
+            case "n":
+            case "0":
+                return Boolean.FALSE;
+            default:
+                return null;
+        }
+    }
+
+    public static Boolean parseBoolean(byte[] utf8, int start, int end) {
+        switch (end - start) {
+            case 1:
+                switch (utf8[start]) {
+                    case 't':
+                    case 'y':
+                    case '1':
+                        return Boolean.TRUE;
+                    case 'f':
+                    case 'n':
+                    case '0':
+                        return Boolean.FALSE;
+                    default:
+                        return null;
+                }
+            case 2:
+                return equalsAscii(utf8, start, "no") ? Boolean.FALSE : null;
+            case 3:
+                return equalsAscii(utf8, start, "yes") ? Boolean.TRUE : null;
+            case 4:
+                return equalsAscii(utf8, start, "true") ? Boolean.TRUE : null;
+            case 5:
+                return equalsAscii(utf8, start, "false") ? Boolean.FALSE : null;
+            default:
+                return null;
+        }
+    }
+
+    private static boolean equalsAscii(byte[] utf8, int start, String word) {
+        for (int i = 0; i < word.length(); i++) {
+            if (utf8[start + i] != word.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,5 +1,6 @@
 package io.logz.sawmill.utilities;
 
+import io.logz.sawmill.FieldPath;
 import io.logz.sawmill.FieldType;
 import org.apache.commons.lang3.StringUtils;
 import org.joni.Matcher;
@@ -11,9 +12,12 @@ import org.joni.exception.ValueException;
 
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import static io.logz.sawmill.FieldType.STRING;
@@ -33,6 +37,9 @@ public final class Grok {
     private final Map<String, String> patternBank;
     private final boolean namedOnly;
     private final Regex compiledExpression;
+    private final List<String> requiredLiterals;
+    private final CaptureGroup[] captureGroups;
+    private boolean definesPatterns;
 
     public Grok(Map<String, String> patternBank, String grokPattern) {
         this(patternBank, grokPattern, true);
@@ -41,14 +48,106 @@ public final class Grok {
     public Grok(Map<String, String> patternBank, String grokPattern, boolean namedOnly) {
         this.patternBank = patternBank;
         this.namedOnly = namedOnly;
-        this.compiledExpression = compilePattern(grokPattern);
+        String expandedPattern = namedOnly ? expandCached(grokPattern) : parsePattern(grokPattern);
+        this.compiledExpression = GrokRegexCache.intern(expandedPattern);
+        this.requiredLiterals = GrokLiterals.extract(expandedPattern);
+        this.captureGroups = compileCaptureGroups();
     }
 
-    private Regex compilePattern(String grokPattern) {
-        byte[] bytes = parsePattern(grokPattern).getBytes();
-        return new Regex(bytes, 0, bytes.length, Option.MULTILINE);
+    Regex getCompiledExpression() {
+        return compiledExpression;
     }
 
+    /**
+     * @return substrings any text matching the expression contains, see {@link GrokPrefilter}
+     */
+    List<String> getRequiredLiterals() {
+        return requiredLiterals;
+    }
+
+    /**
+     * Expansions that define patterns inline are not cached, a cached expansion would skip adding the patterns to the bank
+     */
+    private String expandCached(String grokPattern) {
+        String expandedPattern = GrokRegexCache.getExpansion(patternBank, grokPattern);
+        if (expandedPattern != null) {
+            return expandedPattern;
+        }
+
+        expandedPattern = expandPattern(grokPattern);
+        if (!definesPatterns) {
+            GrokRegexCache.putExpansion(patternBank, grokPattern, expandedPattern);
+        }
+        return expandedPattern;
+    }
+
+    /**
+     * Expands the pattern references left to right, expanding the definition of every referenced pattern once
+     */
+    private String expandPattern(String grokPattern) {
+        return expandPattern(grokPattern, grokPattern, new HashMap<>(), new HashSet<>());
+    }
+
+    private String expandPattern(String grokPattern, String expression, Map<String, String> expandedDefinitions, Set<String> expanding) {
+        byte[] grokPatternBytes = grokPattern.getBytes(StandardCharsets.UTF_8);
+        Matcher matcher = GROK_PATTERN_REGEX.matcher(grokPatternBytes);
+
+        StringBuilder expandedPattern = new StringBuilder(grokPattern.length());
+        int position = 0;
+        int result;
+        while ((result = matcher.search(position, grokPatternBytes.length, Option.NONE)) != -1) {
+            Region region = matcher.getEagerRegion();
+            String patternName = matchPatternValue(PATTERN_GROUP, region, grokPatternBytes);
+            String subName = matchPatternValue(SUBNAME_GROUP, region, grokPatternBytes);
+            String definition = matchPatternValue(DEFINITION_GROUP, region, grokPatternBytes);
+
+            if (isNotEmpty(definition)) {
+                addPattern(patternName, definition);
+                expandedDefinitions.clear();
+            }
+
+            String pattern = expandDefinition(patternName, expression, expandedDefinitions, expanding);
+
+            expandedPattern.append(extractString(grokPatternBytes, position, result));
+            if (isNotEmpty(subName)) {
+                expandedPattern.append("(?<").append(subName).append('>').append(pattern).append(')');
+            } else {
+                expandedPattern.append("(?:").append(pattern).append(')');
+            }
+            position = region.end[0];
+        }
+
+        if (position == 0) {
+            return grokPattern;
+        }
+        expandedPattern.append(extractString(grokPatternBytes, position, grokPatternBytes.length));
+        return expandedPattern.toString();
+    }
+
+    private String expandDefinition(String patternName, String expression, Map<String, String> expandedDefinitions, Set<String> expanding) {
+        String expandedDefinition = expandedDefinitions.get(patternName);
+        if (expandedDefinition != null) {
+            return expandedDefinition;
+        }
+
+        String pattern = patternBank.get(patternName);
+        if (pattern == null) {
+            throw new RuntimeException(String.format("failed to create grok, unknown " + Grok.PATTERN_GROUP + " [%s]", expression));
+        }
+        if (!expanding.add(patternName)) {
+            throw new RuntimeException(String.format("failed to create grok, " + Grok.PATTERN_GROUP + " [%s] references itself in [%s]", patternName, expression));
+        }
+
+        expandedDefinition = expandPattern(pattern, expression, expandedDefinitions, expanding);
+        expanding.remove(patternName);
+        expandedDefinitions.put(patternName, expandedDefinition);
+        return expandedDefinition;
+    }
+
+    /**
+     * Names every reference after the pattern and its offset in the pattern left to expand,
+     * so unlike {@link #expandPattern(String)} it expands one reference at a time
+     */
     private String parsePattern(String grokPattern) {
         byte[] grokPatternBytes = grokPattern.getBytes(StandardCharsets.UTF_8);
         Matcher matcher = GROK_PATTERN_REGEX.matcher(grokPatternBytes);
@@ -60,9 +159,8 @@ public final class Grok {
         }
 
         Region region = matcher.getEagerRegion();
-        String patternName = matchPatternValue(PATTERN_GROUP, region, grokPattern);
-        String subName = matchPatternValue(SUBNAME_GROUP, region, grokPattern);
-        String definition = matchPatternValue(DEFINITION_GROUP, region, grokPattern);
+        String patternName = matchPatternValue(PATTERN_GROUP, region, grokPatternBytes);
+        String definition = matchPatternValue(DEFINITION_GROUP, region, grokPatternBytes);
 
         if (isNotEmpty(definition)) {
             addPattern(patternName, definition);
@@ -74,14 +172,7 @@ public final class Grok {
             throw new RuntimeException(String.format("failed to create grok, unknown " + Grok.PATTERN_GROUP + " [%s]", grokPattern));
         }
 
-        String grokPart;
-        if (namedOnly && isNotEmpty(subName)) {
-            grokPart = String.format("(?<%s>%s)", subName, pattern);
-        } else if (!namedOnly) {
-            grokPart = String.format("(?<%s>%s)", patternName + String.valueOf(result), pattern);
-        } else {
-            grokPart = String.format("(?:%s)", pattern);
-        }
+        String grokPart = String.format("(?<%s>%s)", patternName + String.valueOf(result), pattern);
 
         String start = extractString(grokPatternBytes, 0, result);
         String rest = extractString(grokPatternBytes, region.end[0], grokPatternBytes.length);
@@ -89,14 +180,40 @@ public final class Grok {
     }
 
     private void addPattern(String patternName, String definition) {
-        patternBank.put(patternName, definition);
+        definesPatterns = true;
+        if (!definition.equals(patternBank.put(patternName, definition))) {
+            GrokRegexCache.invalidateExpansions(patternBank);
+        }
     }
 
+    /**
+     * Matches the text, converting it to UTF-8 bytes. Unlike {@link #match(byte[], int, int)}, the matches keep the offsets of their values.
+     *
+     * @return a match per named group, null if the text doesn't match
+     */
     public List<Match> matches(String text) throws InterruptedException {
-        List<Match> matches = new ArrayList<>();
         byte[] textAsBytes = text.getBytes(StandardCharsets.UTF_8);
-        Matcher matcher = compiledExpression.matcher(textAsBytes);
-        int result = matcher.search(0, textAsBytes.length, Option.MULTILINE);
+        Captures captures = match(textAsBytes, 0, textAsBytes.length);
+        if (captures == null) {
+            return null;
+        }
+
+        List<Match> matches = new ArrayList<>(captureGroups.length);
+        for (CaptureGroup group : captureGroups) {
+            matches.add(new Match(group.fieldName, getMatchValue(textAsBytes, captures.region, group)));
+        }
+        return matches;
+    }
+
+    /**
+     * Matches UTF-8 bytes, such as a reused buffer or bytes a doc already holds, without copying them.
+     * The captures read the bytes lazily, so they must be consumed before the bytes change.
+     *
+     * @return the captures, null if the text doesn't match
+     */
+    public Captures match(byte[] text, int offset, int length) throws InterruptedException {
+        Matcher matcher = compiledExpression.matcher(text, offset, offset + length);
+        int result = matcher.search(offset, offset + length, Option.MULTILINE);
         boolean matchNotFound = result == -1;
         if (matchNotFound) {
             return null;
@@ -104,77 +221,65 @@ public final class Grok {
         if (result == INTERRUPTED) {
             throw new InterruptedException();
         }
-        if (compiledExpression.numberOfNames() == 0) {
-            return matches;
-        }
 
-        Region region = matcher.getEagerRegion();
-        for (Iterator<NameEntry> iterator = compiledExpression.namedBackrefIterator(); iterator.hasNext();) {
-            NameEntry entry = iterator.next();
-            String groupName = extractString(entry.name, entry.nameP, entry.nameEnd);
-            int[] matchNumbers = entry.getBackRefs();
-
-            matches.add(match(groupName, region, textAsBytes, matchNumbers));
-        }
-
-        return matches;
+        return new Captures(text, offset, captureGroups.length == 0 ? null : matcher.getEagerRegion());
     }
 
-    private String matchPatternValue(String groupName, Region region, String pattern) {
+    private String matchPatternValue(String groupName, Region region, byte[] pattern) {
         try {
             int matchNumber = GROK_PATTERN_REGEX.nameToBackrefNumber(groupName.getBytes(StandardCharsets.UTF_8), 0,
                     groupName.getBytes(StandardCharsets.UTF_8).length, region);
-            Match match = match(groupName, region, pattern.getBytes(), matchNumber);
-            List<Object> values = match.getValues();
-            return values.size() == 0 ? null : (String) values.get(0);
+            int start = region.beg[matchNumber];
+            if (start < 0) {
+                return null;
+            }
+            String value = extractString(pattern, start, region.end[matchNumber]);
+            return StringUtils.isEmpty(value) ? null : value;
         } catch (ValueException e) {
             return null;
         }
     }
 
-    private Match match(String groupName, Region region, byte[] textAsBytes, int... matchNumbers) {
-        String[] parts = groupName.split(":");
-        String fieldName = parts[0];
-        FieldType type = parts.length == 2 ? FieldType.tryParseOrDefault(parts[1]) : STRING;
-
-        List<Offset> offsets = getOffsets(region.beg, region.end, matchNumbers);
-        List<MatchValue> values = getMatchValue(textAsBytes, offsets, type);
-
-        return new Match(fieldName, values);
-    }
+    private CaptureGroup[] compileCaptureGroups() {
+        if (compiledExpression.numberOfNames() == 0) {
+            return new CaptureGroup[0];
+        }
 
-    private List<Offset> getOffsets(int[] beg, int[] end, int[] matchNumbers) {
-        List<Offset> offsets = new ArrayList<>();
-        for (int matchNumber : matchNumbers) {
-            offsets.add(new Offset(beg[matchNumber], end[matchNumber]));
+        List<CaptureGroup> groups = new ArrayList<>(compiledExpression.numberOfNames());
+        for (Iterator<NameEntry> iterator = compiledExpression.namedBackrefIterator(); iterator.hasNext();) {
+            NameEntry entry = iterator.next();
+            String groupName = extractString(entry.name, entry.nameP, entry.nameEnd);
+            groups.add(new CaptureGroup(groupName, entry.getBackRefs()));
         }
-        return offsets;
+        return groups.toArray(new CaptureGroup[0]);
     }
 
-    private List<MatchValue> getMatchValue(byte[] textAsBytes, List<Offset> offsets, FieldType type) {
+    private List<MatchValue> getMatchValue(byte[] textAsBytes, Region region, CaptureGroup group) {
         List<MatchValue> matchValues = new ArrayList<>();
-        for (Offset offset : offsets) {
-            if (offset.getStart() >= 0) {
-                String rawValue = extractString(textAsBytes, offset.getStart(), offset.getEnd());
-                if (!StringUtils.isEmpty(rawValue)) {
-                    Object convertedValue = convertValue(rawValue, type);
-                    matchValues.add(new MatchValue(convertedValue, offset));
-                }
+        for (int backRef : group.backRefs) {
+            int start = region.beg[backRef];
+            int end = region.end[backRef];
+            if (start >= 0 && end > start) {
+                Object convertedValue = convertValue(textAsBytes, start, end, group.type);
+                matchValues.add(new MatchValue(convertedValue, new Offset(start, end)));
             }
         }
         return matchValues;
     }
 
-    private Object convertValue(String value, FieldType type) {
-        Object valueAfterConvert = type.convertFrom(value, 0L);
-        if (valueAfterConvert == null) {
-            return value;
+    /**
+     * Converts typed captures straight from the matched bytes, a capture that doesn't convert becomes 0
+     */
+    private static Object convertValue(byte[] text, int start, int end, FieldType type) {
+        if (type == STRING) {
+            return extractString(text, start, end);
         }
 
-        return valueAfterConvert;
+        Object valueAfterConvert = type.convertFrom(text, start, end);
+        return valueAfterConvert != null ? valueAfterConvert : 0L;
     }
 
-    private String extractString(byte[] original, int start, int end) {
+    private static String extractString(byte[] original, int start, int end) {
         try {
             return new String(original, start, end - start, StandardCharsets.UTF_8);
         } catch (StringIndexOutOfBoundsException e) {
@@ -182,6 +287,97 @@ public final class Grok {
         }
     }
 
+    /**
+     * Receives the values of the named groups that captured anything, a list when a name captured several values
+     */
+    @FunctionalInterface
+    public interface CaptureConsumer {
+        void accept(String name, FieldPath path, Object value);
+    }
+
+    public final class Captures {
+        private final byte[] text;
+        private final int offset;
+        private final Region region;
+
+        /**
+         * @param offset the offset the matched text starts at, the region is relative to it
+         */
+        private Captures(byte[] text, int offset, Region region) {
+            this.text = text;
+            this.offset = offset;
+            this.region = region;
+        }
+
+        /**
+         * @return whether the expression has no named groups
+         */
+        public boolean isEmpty() {
+            return captureGroups.length == 0;
+        }
+
+        public void forEach(CaptureConsumer consumer) {
+            for (CaptureGroup group : captureGroups) {
+                Object value = group.value(text, offset, region);
+                if (value != null) {
+                    consumer.accept(group.fieldName, group.fieldPath, value);
+                }
+            }
+        }
+    }
+
+    /**
+     * A named group with its field and type parsed from the name, and the numbers of the groups sharing the name
+     */
+    private static final class CaptureGroup {
+        private final String fieldName;
+        private final FieldPath fieldPath;
+        private final FieldType type;
+        private final int[] backRefs;
+
+        private CaptureGroup(String groupName, int[] backRefs) {
+            String[] parts = groupName.split(":");
+            this.fieldName = parts[0];
+            this.fieldPath = FieldPath.of(fieldName);
+            this.type = parts.length == 2 ? FieldType.tryParseOrDefault(parts[1]) : STRING;
+            this.backRefs = backRefs;
+        }
+
+        private Object value(byte[] text, int offset, Region region) {
+            if (backRefs.length == 1) {
+                return value(text, offset, region, backRefs[0]);
+            }
+
+            List<Object> values = null;
+            Object firstValue = null;
+            for (int backRef : backRefs) {
+                Object value = value(text, offset, region, backRef);
+                if (value == null) {
+                    continue;
+                }
+                if (firstValue == null) {
+                    firstValue = value;
+                } else {
+                    if (values == null) {
+                        values = new ArrayList<>(backRefs.length);
+                        values.add(firstValue);
+                    }
+                    values.add(value);
+                }
+            }
+            return values != null ? values : firstValue;
+        }
+
+        private Object value(byte[] text, int offset, Region region, int backRef) {
+            int start = region.beg[backRef];
+            int end = region.end[backRef];
+            if (start < 0 || end <= start) {
+                return null;
+            }
+            return convertValue(text, offset + start, offset + end, type);
+        }
+    }
+
     public final class Match {
         private final String name;
         private final List<MatchValue> values;
@@ -0,0 +1,267 @@
+package io.logz.sawmill.utilities;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Extracts literal substrings that every match of an expanded grok pattern contains.
+ * The extraction is conservative, it skips whatever it does not fully understand:
+ * alternatives, optional and lookaround groups, character classes and escapes other than escaped punctuation.
+ * Patterns with case insensitive or extended options have no literals.
+ */
+final class GrokLiterals {
+    static final int MIN_LITERAL_LENGTH = 3;
+
+    private final String pattern;
+    private final Set<String> literals = new LinkedHashSet<>();
+    private boolean unsupported;
+
+    private GrokLiterals(String pattern) {
+        this.pattern = pattern;
+    }
+
+    static List<String> extract(String pattern) {
+        GrokLiterals grokLiterals = new GrokLiterals(pattern);
+        grokLiterals.extractGroup(0, pattern.length());
+        if (grokLiterals.unsupported) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(new ArrayList<>(grokLiterals.literals));
+    }
+
+    private void extractGroup(int start, int end) {
+        if (!hasAlternatives(start, end)) {
+            extractSequence(start, end);
+        }
+    }
+
+    private void extractSequence(int start, int end) {
+        StringBuilder literal = new StringBuilder();
+        int position = start;
+        while (position < end && !unsupported) {
+            char c = pattern.charAt(position);
+            int atomEnd;
+            boolean literalChar = false;
+            boolean group = false;
+
+            if (c == '\\') {
+                if (position + 1 == end) {
+                    break;
+                }
+                char escaped = pattern.charAt(position + 1);
+                if (escaped == 'Q') {
+                    unsupported = true;
+                    break;
+                }
+                literalChar = escaped < 128 && !Character.isLetterOrDigit(escaped);
+                atomEnd = literalChar ? position + 2 : skipEscapeSequence(position + 2, end);
+            } else if (c == '[') {
+                atomEnd = skipCharClass(position, end);
+            } else if (c == '(') {
+                atomEnd = skipGroup(position, end);
+                group = true;
+            } else {
+                literalChar = c < 128 && ".^$|*+?".indexOf(c) == -1;
+                atomEnd = position + 1;
+            }
+
+            int quantifierEnd = skipQuantifier(atomEnd, end);
+            boolean optional = quantifierEnd > atomEnd && isOptionalQuantifier(atomEnd);
+            boolean repeated = quantifierEnd > atomEnd && !optional;
+
+            if (literalChar && !optional) {
+                literal.append(pattern.charAt(atomEnd - 1));
+            }
+            if (!literalChar || optional || repeated) {
+                addLiteral(literal);
+            }
+            if (group && !optional) {
+                extractGroupContent(position, atomEnd - 1);
+            }
+            position = quantifierEnd;
+        }
+        addLiteral(literal);
+    }
+
+    private void extractGroupContent(int open, int close) {
+        int contentStart = open + 1;
+        if (contentStart < close && pattern.charAt(contentStart) == '?') {
+            contentStart = skipGroupPrefix(contentStart + 1, close);
+            if (contentStart < 0) {
+                return;
+            }
+        }
+        extractGroup(contentStart, close);
+    }
+
+    /**
+     * @return where the content of the group starts, or -1 if its content is not required to match
+     */
+    private int skipGroupPrefix(int position, int close) {
+        char c = pattern.charAt(position);
+        if (c == ':' || c == '>') {
+            return position + 1;
+        }
+        if (c == '<' || c == '\'') {
+            char next = position + 1 < close ? pattern.charAt(position + 1) : 0;
+            if (c == '<' && (next == '=' || next == '!')) {
+                return -1;
+            }
+            int nameEnd = pattern.indexOf(c == '<' ? '>' : '\'', position + 1);
+            return nameEnd < 0 || nameEnd > close ? -1 : nameEnd + 1;
+        }
+        if (c == '=' || c == '!' || c == '#') {
+            return -1;
+        }
+
+        int optionsEnd = position;
+        while (optionsEnd < close && (Character.isLetter(pattern.charAt(optionsEnd)) || pattern.charAt(optionsEnd) == '-')) {
+            char option = pattern.charAt(optionsEnd);
+            if (option == 'i' || option == 'x') {
+                unsupported = true;
+                return -1;
+            }
+            optionsEnd++;
+        }
+        return optionsEnd < close && pattern.charAt(optionsEnd) == ':' ? optionsEnd + 1 : -1;
+    }
+
+    private void addLiteral(StringBuilder literal) {
+        if (literal.length() >= MIN_LITERAL_LENGTH) {
+            literals.add(literal.toString());
+        }
+        literal.setLength(0);
+    }
+
+    private boolean hasAlternatives(int start, int end) {
+        int position = start;
+        while (position < end) {
+            char c = pattern.charAt(position);
+            if (c == '|') {
+                return true;
+            }
+            if (c == '\\') {
+                position += 2;
+            } else if (c == '[') {
+                position = skipCharClass(position, end);
+            } else if (c == '(') {
+                position = skipGroup(position, end);
+            } else {
+                position++;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Skips the rest of an escape sequence such as \x41, \p{Alpha} or \k<name>,
+     * possibly skipping literal chars following it, which only leaves fewer literals
+     */
+    private int skipEscapeSequence(int position, int end) {
+        while (position < end && Character.digit(pattern.charAt(position), 16) >= 0) {
+            position++;
+        }
+        if (position < end) {
+            char c = pattern.charAt(position);
+            int close = c == '{' ? pattern.indexOf('}', position) : c == '<' ? pattern.indexOf('>', position) : -1;
+            if (close >= 0 && close < end) {
+                return close + 1;
+            }
+        }
+        return position;
+    }
+
+    private int skipCharClass(int open, int end) {
+        int position = open + 1;
+        if (position < end && pattern.charAt(position) == '^') {
+            position++;
+        }
+        if (position < end && pattern.charAt(position) == ']') {
+            position++;
+        }
+        while (position < end) {
+            char c = pattern.charAt(position);
+            if (c == '\\') {
+                position += 2;
+            } else if (c == '[') {
+                position = skipCharClass(position, end);
+            } else if (c == ']') {
+                return position + 1;
+            } else {
+                position++;
+            }
+        }
+        unsupported = true;
+        return end;
+    }
+
+    private int skipGroup(int open, int end) {
+        int position = open + 1;
+        while (position < end) {
+            char c = pattern.charAt(position);
+            if (c == '\\') {
+                position += 2;
+            } else if (c == '[') {
+                position = skipCharClass(position, end);
+            } else if (c == '(') {
+                position = skipGroup(position, end);
+            } else if (c == ')') {
+                return position + 1;
+            } else {
+                position++;
+            }
+        }
+        unsupported = true;
+        return end;
+    }
+
+    private int skipQuantifier(int position, int end) {
+        if (position >= end) {
+            return position;
+        }
+
+        int quantifierEnd;
+        char c = pattern.charAt(position);
+        if (c == '?' || c == '*' || c == '+') {
+            quantifierEnd = position + 1;
+        } else if (c == '{' && isInterval(position, end)) {
+            quantifierEnd = pattern.indexOf('}', position) + 1;
+        } else {
+            return position;
+        }
+
+        if (quantifierEnd < end && (pattern.charAt(quantifierEnd) == '?' || pattern.charAt(quantifierEnd) == '+')) {
+            quantifierEnd++;
+        }
+        return quantifierEnd;
+    }
+
+    private boolean isInterval(int open, int end) {
+        int close = pattern.indexOf('}', open);
+        if (close < 0 || close >= end || close == open + 1) {
+            return false;
+        }
+        for (int position = open + 1; position < close; position++) {
+            char c = pattern.charAt(position);
+            if (!Character.isDigit(c) && c != ',') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isOptionalQuantifier(int position) {
+        char c = pattern.charAt(position);
+        if (c == '?' || c == '*') {
+            return true;
+        }
+        if (c == '{') {
+            char min = pattern.charAt(position + 1);
+            return min == ',' || min == '0' && !Character.isDigit(pattern.charAt(position + 2));
+        }
+        return false;
+    }
+}
@@ -0,0 +1,66 @@
+package io.logz.sawmill.utilities;
+
+import org.ahocorasick.trie.Trie;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rules out the groks that cannot match a text before running any of their regexes,
+ * by looking for the literals every grok requires in a single Aho-Corasick pass over the text.
+ * Groks without required literals are never ruled out.
+ */
+public final class GrokPrefilter {
+    private final int groksCount;
+    private final Map<String, Integer> literalIndexes;
+    private final int[][] requiredLiteralIndexes;
+    private final Trie trie;
+
+    public GrokPrefilter(List<Grok> groks) {
+        this.groksCount = groks.size();
+        this.literalIndexes = new HashMap<>();
+        this.requiredLiteralIndexes = new int[groksCount][];
+
+        for (int i = 0; i < groksCount; i++) {
+            List<String> requiredLiterals = groks.get(i).getRequiredLiterals();
+            requiredLiteralIndexes[i] = requiredLiterals.stream()
+                    .mapToInt(literal -> literalIndexes.computeIfAbsent(literal, k -> literalIndexes.size()))
+                    .toArray();
+        }
+
+        this.trie = literalIndexes.isEmpty() ? null : Trie.builder().addKeywords(literalIndexes.keySet()).build();
+    }
+
+    /**
+     * @return whether each grok, by its index, may match the text
+     */
+    public boolean[] mayMatch(String text) {
+        boolean[] mayMatch = new boolean[groksCount];
+        if (trie == null) {
+            Arrays.fill(mayMatch, true);
+            return mayMatch;
+        }
+
+        boolean[] found = new boolean[literalIndexes.size()];
+        trie.parseText(text, emit -> {
+            found[literalIndexes.get(emit.getKeyword())] = true;
+            return true;
+        });
+
+        for (int i = 0; i < groksCount; i++) {
+            mayMatch[i] = allFound(requiredLiteralIndexes[i], found);
+        }
+        return mayMatch;
+    }
+
+    private static boolean allFound(int[] literalIndexes, boolean[] found) {
+        for (int literalIndex : literalIndexes) {
+            if (!found[literalIndex]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,68 @@
+package io.logz.sawmill.utilities;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.joni.Option;
+import org.joni.Regex;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Interns the expansions of grok expressions and the regexes compiled for them across all processors and pipelines.
+ * An expression is expanded once per pattern bank, banks are held by identity as the grok factories load them once.
+ * A grok defining patterns inline changes its bank, so its expansion is not cached and a bank's expansions are dropped
+ * whenever a definition changes it. A bank's expansions are released together with the bank.
+ * A compiled {@link Regex} is immutable and is only read by the matchers created from it, so groks with the same
+ * expanded pattern share one. A regex is released once no grok holds it.
+ */
+final class GrokRegexCache {
+    private static final int MAX_EXPANSIONS_PER_BANK = 10_000;
+
+    private static final Cache<Map<String, String>, Cache<String, String>> EXPANSIONS = CacheBuilder.newBuilder().weakKeys().build();
+    private static final Cache<String, Regex> REGEXES = CacheBuilder.newBuilder().weakValues().build();
+
+    private GrokRegexCache() {}
+
+    /**
+     * @return the cached expansion of the expression by the pattern bank, null if there is none
+     */
+    static String getExpansion(Map<String, String> patternBank, String expression) {
+        Cache<String, String> expansions = EXPANSIONS.getIfPresent(patternBank);
+        return expansions != null ? expansions.getIfPresent(expression) : null;
+    }
+
+    static void putExpansion(Map<String, String> patternBank, String expression, String expandedPattern) {
+        get(EXPANSIONS, patternBank, () -> CacheBuilder.newBuilder().maximumSize(MAX_EXPANSIONS_PER_BANK).build())
+                .put(expression, expandedPattern);
+    }
+
+    /**
+     * Drops the cached expansions by the pattern bank, as it changed
+     */
+    static void invalidateExpansions(Map<String, String> patternBank) {
+        EXPANSIONS.invalidate(patternBank);
+    }
+
+    static Regex intern(String expandedPattern) {
+        return get(REGEXES, expandedPattern, () -> compile(expandedPattern));
+    }
+
+    private static <K, V> V get(Cache<K, V> cache, K key, Callable<V> loader) {
+        try {
+            return cache.get(key, loader);
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            Throwables.throwIfUnchecked(e.getCause());
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private static Regex compile(String expandedPattern) {
+        byte[] bytes = expandedPattern.getBytes(StandardCharsets.UTF_8);
+        return new Regex(bytes, 0, bytes.length, Option.MULTILINE);
+    }
+}
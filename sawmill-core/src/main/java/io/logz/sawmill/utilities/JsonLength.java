@@ -0,0 +1,152 @@
+package io.logz.sawmill.utilities;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingOutputStream;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Counts the UTF-8 length of the json {@link JsonUtils#toJsonString(Object)} writes for a value by walking it,
+ * without writing anything. Values of types other than the ones json deserializes to are counted by serializing them.
+ */
+public final class JsonLength {
+
+    /**
+     * The written length of each ascii char, escaped ones included
+     */
+    private static final int[] ASCII_LENGTHS = new int[0x80];
+
+    static {
+        for (char c = 0; c < 0x80; c++) {
+            ASCII_LENGTHS[c] = asciiLength(c);
+        }
+    }
+
+    private JsonLength() {
+    }
+
+    public static long of(Object value) {
+        // classes are checked before interfaces, which are slower to check, and failing ones even more
+        if (value == null) {
+            return 4;
+        }
+        if (value instanceof String) {
+            return ofString((String) value);
+        }
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            return ofLong(((Number) value).longValue());
+        }
+        if (value instanceof Double) {
+            double doubleValue = (Double) value;
+            // non finite numbers are written quoted
+            return Double.toString(doubleValue).length() + (Double.isFinite(doubleValue) ? 0 : 2);
+        }
+        if (value instanceof Boolean) {
+            return (Boolean) value ? 4 : 5;
+        }
+        if (value instanceof HashMap) {
+            return ofMap((Map<?, ?>) value);
+        }
+        if (value instanceof ArrayList) {
+            return ofCollection((Collection<?>) value);
+        }
+        if (value instanceof Map) {
+            return ofMap((Map<?, ?>) value);
+        }
+        if (value instanceof Collection) {
+            return ofCollection((Collection<?>) value);
+        }
+        return ofSerialized(value);
+    }
+
+    private static long ofMap(Map<?, ?> map) {
+        long length = 2;
+        boolean first = true;
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            if (entry.getValue() == null) {
+                // null map values are not written
+                continue;
+            }
+            if (!(entry.getKey() instanceof String)) {
+                return ofSerialized(map);
+            }
+            if (!first) {
+                length++;
+            }
+            first = false;
+            length += ofString((String) entry.getKey()) + 1 + of(entry.getValue());
+        }
+        return length;
+    }
+
+    private static long ofCollection(Collection<?> collection) {
+        long length = 2 + Math.max(collection.size() - 1, 0);
+        for (Object element : collection) {
+            length += of(element);
+        }
+        return length;
+    }
+
+    private static long ofString(String value) {
+        long length = 2;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length += ASCII_LENGTHS[c];
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isSurrogate(c)) {
+                // written escaped
+                length += 6;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private static int asciiLength(char c) {
+        if (c == '"' || c == '\\') {
+            return 2;
+        }
+        if (c >= 0x20) {
+            return 1;
+        }
+        switch (c) {
+            case '\b':
+            case '\t':
+            case '\n':
+            case '\f':
+            case '\r':
+                return 2;
+            default:
+                return 6;
+        }
+    }
+
+    private static long ofLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            return 20;
+        }
+        long length = value < 0 ? 2 : 1;
+        for (long remaining = Math.abs(value); remaining >= 10; remaining /= 10) {
+            length++;
+        }
+        return length;
+    }
+
+    private static long ofSerialized(Object value) {
+        CountingOutputStream stream = new CountingOutputStream(ByteStreams.nullOutputStream());
+        try {
+            JsonUtils.writeJson(stream, value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return stream.getCount();
+    }
+}
@@ -0,0 +1,176 @@
+package io.logz.sawmill.utilities;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Reads a JSON object straight from the parser tokens into the map it results in, with the same values as
+ * {@link JsonUtils#fromJsonString(Class, String)} would deserialize.
+ * Key filters and limits are applied while reading, so the subtrees they drop are skipped by the parser without being built.
+ */
+public final class JsonMapReader {
+    public static final JsonMapReader UNLIMITED = new JsonMapReader(null, null, 0, 0);
+
+    private final Set<String> includeKeys;
+    private final Set<String> excludeKeys;
+    private final int maxDepth;
+    private final int maxFields;
+
+    /**
+     * @param includeKeys the top level keys to keep, null for all
+     * @param excludeKeys the top level keys to drop, null for none
+     * @param maxDepth the nesting depth of objects and arrays to keep, the top level object being 1, deeper ones are dropped, 0 for no limit
+     * @param maxFields the number of object fields to read at all depths, the rest of the json is not read, 0 for no limit
+     */
+    public JsonMapReader(Collection<String> includeKeys, Collection<String> excludeKeys, int maxDepth, int maxFields) {
+        checkArgument(maxDepth >= 0, "max depth cannot be negative");
+        checkArgument(maxFields >= 0, "max fields cannot be negative");
+        this.includeKeys = includeKeys != null ? new HashSet<>(includeKeys) : null;
+        this.excludeKeys = excludeKeys != null ? new HashSet<>(excludeKeys) : null;
+        this.maxDepth = maxDepth;
+        this.maxFields = maxFields;
+    }
+
+    /**
+     * @return the object, null if the json is not an object or is malformed
+     */
+    public Map<String, Object> read(String json) {
+        if (!startsAsObject(json)) {
+            return null;
+        }
+
+        try (JsonParser parser = JsonUtils.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            return new Reading(parser).readObject(1);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads a single value of any type, such as one field of a larger json, key filters apply if it is an object
+     *
+     * @return the value, null if it is null or malformed
+     */
+    public Object readValue(byte[] json, int offset, int length) {
+        try (JsonParser parser = JsonUtils.createParser(json, offset, length)) {
+            return new Reading(parser).readValue(parser.nextToken(), 0);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Rejects most texts that are not json, such as plain log lines, without starting the parser
+     */
+    private static boolean startsAsObject(String json) {
+        if (json == null) {
+            return false;
+        }
+        for (int i = 0; i < json.length(); i++) {
+            char c = json.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                return c == '{';
+            }
+        }
+        return false;
+    }
+
+    private boolean isKeyIncluded(String key) {
+        return (includeKeys == null || includeKeys.contains(key)) && (excludeKeys == null || !excludeKeys.contains(key));
+    }
+
+    private boolean isTooDeep(JsonToken token, int depth) {
+        return maxDepth > 0 && depth > maxDepth && (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY);
+    }
+
+    /**
+     * The state of reading a single json
+     */
+    private final class Reading {
+        private final JsonParser parser;
+        private int fields;
+        private boolean stopped;
+
+        private Reading(JsonParser parser) {
+            this.parser = parser;
+        }
+
+        private Map<String, Object> readObject(int depth) throws IOException {
+            Map<String, Object> map = new LinkedHashMap<>();
+            JsonToken token;
+            while (!stopped && (token = parser.nextToken()) != JsonToken.END_OBJECT) {
+                if (token != JsonToken.FIELD_NAME) {
+                    throw new IOException("expected a field name, found " + token);
+                }
+                String key = parser.getCurrentName();
+                JsonToken valueToken = parser.nextToken();
+                if ((depth == 1 && !isKeyIncluded(key)) || isTooDeep(valueToken, depth + 1)) {
+                    parser.skipChildren();
+                    continue;
+                }
+                if (maxFields > 0 && fields == maxFields) {
+                    stopped = true;
+                    break;
+                }
+
+                fields++;
+                map.put(key, readValue(valueToken, depth));
+            }
+            return map;
+        }
+
+        private List<Object> readArray(int depth) throws IOException {
+            List<Object> list = new ArrayList<>();
+            JsonToken token;
+            while (!stopped && (token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (isTooDeep(token, depth + 1)) {
+                    parser.skipChildren();
+                    continue;
+                }
+                list.add(readValue(token, depth));
+            }
+            return list;
+        }
+
+        private Object readValue(JsonToken token, int depth) throws IOException {
+            if (token == null) {
+                throw new IOException("unexpected end of json");
+            }
+            switch (token) {
+                case START_OBJECT:
+                    return readObject(depth + 1);
+                case START_ARRAY:
+                    return readArray(depth + 1);
+                case VALUE_STRING:
+                    return parser.getText();
+                case VALUE_NUMBER_INT:
+                case VALUE_NUMBER_FLOAT:
+                    return parser.getNumberValue();
+                case VALUE_TRUE:
+                    return Boolean.TRUE;
+                case VALUE_FALSE:
+                    return Boolean.FALSE;
+                case VALUE_NULL:
+                    return null;
+                case VALUE_EMBEDDED_OBJECT:
+                    return parser.getEmbeddedObject();
+                default:
+                    throw new IOException("unexpected token " + token);
+            }
+        }
+    }
+}
@@ -1,13 +1,17 @@
 package io.logz.sawmill.utilities;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
 
-import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -17,6 +21,7 @@ import java.util.Set;
 public class JsonUtils {
 
     private static final ObjectMapper mapper;
+    private static final ObjectWriter writer;
 
     static {
         mapper = new ObjectMapper();
@@ -29,6 +34,8 @@ public class JsonUtils {
         mapper.configure(JsonParser.Feature.ALLOW_BACKSLASH_ESCAPING_ANY_CHARACTER, true);
         mapper.registerModule(new AfterburnerModule());
 
+        writer = mapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
     }
 
     public static <T> T fromJsonString(Class<T> type, String json) {
@@ -57,6 +64,35 @@ public class JsonUtils {
         }
     }
 
+    /**
+     * @return a parser with the same features as the deserialization of {@link #fromJsonString(Class, String)}
+     */
+    public static JsonParser createParser(String json) throws IOException {
+        return mapper.getFactory().createParser(json);
+    }
+
+    public static JsonParser createParser(byte[] json, int offset, int length) throws IOException {
+        return mapper.getFactory().createParser(json, offset, length);
+    }
+
+    /**
+     * Writes the value as {@link #toJsonString(Object)} would, leaving the stream open
+     */
+    public static void writeJson(OutputStream stream, Object value) throws IOException {
+        writer.writeValue(stream, value);
+    }
+
+    /**
+     * @return a generator writing values as {@link #toJsonString(Object)} would, with no separator between root values,
+     * closing it leaves the stream open
+     */
+    public static JsonGenerator createGenerator(OutputStream stream) throws IOException {
+        JsonGenerator generator = mapper.getFactory().createGenerator(stream);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null);
+        return generator;
+    }
+
     public static <T> T fromJsonMap(Class<T> type, Map json) {
         if (json == null) {
             throw new RuntimeException("json map is null");
@@ -73,10 +109,9 @@ public class JsonUtils {
     public static String toJsonString(Object jsonObject) {
         if (jsonObject == null) { return null; }
 
-        ByteArrayOutputStream stream = new ByteArrayOutputStream();
         try {
-            mapper.writeValue(stream, jsonObject);
-            return stream.toString();
+            // written as UTF-8 like every other output, the char based generator would not escape surrogate pairs
+            return new String(writer.writeValueAsBytes(jsonObject), StandardCharsets.UTF_8);
         } catch (Exception e) {
             throw new RuntimeException("failed to serialize object ="+
                     org.apache.commons.lang3.StringUtils.abbreviate(jsonObject.toString(), 100)
@@ -84,6 +119,19 @@ public class JsonUtils {
         }
     }
 
+    /**
+     * @return the UTF-8 json of the value, written into recycled buffers and copied once
+     */
+    public static byte[] toJsonBytes(Object value) {
+        try {
+            return writer.writeValueAsBytes(value);
+        } catch (Exception e) {
+            throw new RuntimeException("failed to serialize object ="+
+                    org.apache.commons.lang3.StringUtils.abbreviate(String.valueOf(value), 100)
+                    +" to json. Error = "+e.getMessage(), e);
+        }
+    }
+
     public static String createJson(Map<String, Object> map) {
         return toJsonString(map);
     }
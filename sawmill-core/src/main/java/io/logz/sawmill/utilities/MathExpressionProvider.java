@@ -7,10 +7,10 @@ import net.objecthunter.exp4j.ExpressionBuilder;
 import java.util.Set;
 
 public class MathExpressionProvider {
-    private final ThreadLocal<Expression> localExpression;
+    private final ThreadLocalResource<Expression> localExpression;
 
     public MathExpressionProvider(String expression, Set<String> variables) {
-        localExpression = ThreadLocal.withInitial(() -> {
+        localExpression = new ThreadLocalResource<>(() -> {
             try {
                 return new ExpressionBuilder(expression)
                         .variables(variables)
@@ -21,7 +21,14 @@ public class MathExpressionProvider {
         });
     }
 
+    /**
+     * The provided instance is not thread safe, give it back with {@link #release} when done with it
+     */
     public Expression provide() {
-        return localExpression.get();
+        return localExpression.acquire();
+    }
+
+    public void release(Expression expression) {
+        localExpression.release(expression);
     }
 }
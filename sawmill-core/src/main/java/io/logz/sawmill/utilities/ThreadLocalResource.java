@@ -0,0 +1,40 @@
+package io.logz.sawmill.utilities;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Holds a non thread safe resource per thread.
+ * Platform threads keep their resource in a {@link ThreadLocal}, as they live long enough to reuse it.
+ * Virtual threads are usually created per task, so they borrow a resource from a shared pool instead
+ * and must give it back with {@link #release(Object)}, otherwise every task would create its own.
+ */
+public class ThreadLocalResource<T> {
+    private final Supplier<T> factory;
+    private final ThreadLocal<T> localResource;
+    private final Queue<T> virtualThreadsPool;
+
+    public ThreadLocalResource(Supplier<T> factory) {
+        this.factory = requireNonNull(factory);
+        this.localResource = ThreadLocal.withInitial(factory);
+        this.virtualThreadsPool = new ConcurrentLinkedQueue<>();
+    }
+
+    public T acquire() {
+        if (!VirtualThreads.isVirtual(Thread.currentThread())) {
+            return localResource.get();
+        }
+
+        T resource = virtualThreadsPool.poll();
+        return resource != null ? resource : factory.get();
+    }
+
+    public void release(T resource) {
+        if (resource != null && VirtualThreads.isVirtual(Thread.currentThread())) {
+            virtualThreadsPool.offer(resource);
+        }
+    }
+}
@@ -9,7 +9,7 @@ import java.io.IOException;
 
 public class UserAgentParserProvider {
 
-    private final ThreadLocal<Parser> localParser = ThreadLocal.withInitial(() -> {
+    private final ThreadLocalResource<Parser> localParser = new ThreadLocalResource<>(() -> {
         try {
             return new CachingParser(Resources.getResource("regexes.yaml").openStream());
         } catch (IOException e) {
@@ -19,7 +19,14 @@ public class UserAgentParserProvider {
 
     public UserAgentParserProvider() {}
 
+    /**
+     * The provided instance is not thread safe, give it back with {@link #release} when done with it
+     */
     public Parser provide() {
-        return localParser.get();
+        return localParser.acquire();
+    }
+
+    public void release(Parser parser) {
+        localParser.release(parser);
     }
 }
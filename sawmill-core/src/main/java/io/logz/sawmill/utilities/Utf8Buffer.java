@@ -0,0 +1,67 @@
+package io.logz.sawmill.utilities;
+
+/**
+ * Reusable buffer holding a string encoded in UTF-8, meant to be held per thread with {@link ThreadLocalResource}.
+ * Encodes like {@link String#getBytes(java.nio.charset.Charset)}, unpaired surrogates are encoded as '?'.
+ */
+public final class Utf8Buffer {
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MAX_RETAINED_CAPACITY = 1024 * 1024;
+
+    private byte[] bytes = new byte[INITIAL_CAPACITY];
+    private byte[] currentBytes = bytes;
+    private int length;
+
+    /**
+     * Encodes the text into the buffer, replacing its previous content.
+     * A text longer than the retained capacity is encoded into an array of its own, so the buffer does not keep it.
+     */
+    public void encode(String text) {
+        int maxLength = text.length() * 3;
+        byte[] target = bytes;
+        if (maxLength > target.length) {
+            target = new byte[maxLength];
+            if (maxLength <= MAX_RETAINED_CAPACITY) {
+                bytes = target;
+            }
+        }
+
+        int position = 0;
+        int textLength = text.length();
+        for (int i = 0; i < textLength; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                target[position++] = (byte) c;
+            } else if (c < 0x800) {
+                target[position++] = (byte) (0xc0 | c >> 6);
+                target[position++] = (byte) (0x80 | c & 0x3f);
+            } else if (Character.isHighSurrogate(c) && i + 1 < textLength && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                target[position++] = (byte) (0xf0 | codePoint >> 18);
+                target[position++] = (byte) (0x80 | codePoint >> 12 & 0x3f);
+                target[position++] = (byte) (0x80 | codePoint >> 6 & 0x3f);
+                target[position++] = (byte) (0x80 | codePoint & 0x3f);
+            } else if (Character.isSurrogate(c)) {
+                target[position++] = '?';
+            } else {
+                target[position++] = (byte) (0xe0 | c >> 12);
+                target[position++] = (byte) (0x80 | c >> 6 & 0x3f);
+                target[position++] = (byte) (0x80 | c & 0x3f);
+            }
+        }
+
+        this.currentBytes = target;
+        this.length = position;
+    }
+
+    /**
+     * @return the array holding the encoded text from index 0 to {@link #getLength()}, valid until the next encode
+     */
+    public byte[] getBytes() {
+        return currentBytes;
+    }
+
+    public int getLength() {
+        return length;
+    }
+}
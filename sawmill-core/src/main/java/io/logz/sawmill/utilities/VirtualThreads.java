@@ -0,0 +1,65 @@
+package io.logz.sawmill.utilities;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Access to virtual threads without requiring a JVM that supports them.
+ * On JVMs without virtual threads {@link #isSupported()} returns {@code false} and no thread is considered virtual.
+ */
+public class VirtualThreads {
+    private static final MethodHandle IS_VIRTUAL = findHandle(Thread.class, "isVirtual", MethodType.methodType(boolean.class));
+    private static final MethodHandle NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR = findStaticHandle(Executors.class, "newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class));
+
+    private VirtualThreads() {}
+
+    public static boolean isSupported() {
+        return IS_VIRTUAL != null && NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR != null;
+    }
+
+    public static boolean isVirtual(Thread thread) {
+        if (IS_VIRTUAL == null) {
+            return false;
+        }
+
+        try {
+            return (boolean) IS_VIRTUAL.invokeExact(thread);
+        } catch (Throwable t) {
+            throw new IllegalStateException("failed to check if thread is virtual", t);
+        }
+    }
+
+    /**
+     * @throws UnsupportedOperationException if the JVM does not support virtual threads
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor() {
+        if (!isSupported()) {
+            throw new UnsupportedOperationException("virtual threads are not supported by this JVM");
+        }
+
+        try {
+            return (ExecutorService) NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR.invokeExact();
+        } catch (Throwable t) {
+            throw new IllegalStateException("failed to create virtual thread executor", t);
+        }
+    }
+
+    private static MethodHandle findHandle(Class<?> type, String name, MethodType methodType) {
+        try {
+            return MethodHandles.publicLookup().findVirtual(type, name, methodType);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    private static MethodHandle findStaticHandle(Class<?> type, String name, MethodType methodType) {
+        try {
+            return MethodHandles.publicLookup().findStatic(type, name, methodType);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+}
@@ -7,10 +7,10 @@ import javax.xml.xpath.XPathExpressionException;
 import javax.xml.xpath.XPathFactory;
 
 public class XPathExpressionProvider {
-    private final ThreadLocal<XPathExpression> localXPathExpression;
+    private final ThreadLocalResource<XPathExpression> localXPathExpression;
 
     public XPathExpressionProvider(String expression) {
-        localXPathExpression = ThreadLocal.withInitial(() -> {
+        localXPathExpression = new ThreadLocalResource<>(() -> {
             try {
                 return XPathFactory.newInstance().newXPath().compile(expression);
             } catch (XPathExpressionException e) {
@@ -19,7 +19,14 @@ public class XPathExpressionProvider {
         });
     }
 
+    /**
+     * The provided instance is not thread safe, give it back with {@link #release} when done with it
+     */
     public XPathExpression provide() {
-        return localXPathExpression.get();
+        return localXPathExpression.acquire();
+    }
+
+    public void release(XPathExpression xPathExpression) {
+        localXPathExpression.release(xPathExpression);
     }
 }
@@ -0,0 +1,88 @@
+package io.logz.sawmill;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static io.logz.sawmill.utils.DocUtils.createDoc;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs all the executor tests against pipelines compiled by {@link PipelineCompiler}
+ */
+public class CompiledPipelineExecutorTest extends PipelineExecutorTest {
+
+    @Override
+    protected Pipeline createPipeline(boolean stopOnFailure, ExecutionStep... steps) {
+        return new Pipeline("abc", Arrays.asList(steps), stopOnFailure, true);
+    }
+
+    @Test
+    public void testPipelineIsCompiled() {
+        ExecutionStep[] steps = new ExecutionStep[PipelineCompiler.MAX_COMPILED_STEPS];
+        for (int i = 0; i < steps.length; i++) {
+            steps[i] = new ProcessorExecutionStep("fail" + i, (Doc doc) -> ProcessResult.failure("failed"));
+        }
+        Pipeline pipeline = createPipeline(false, steps);
+
+        assertThat(pipeline.isCompiled()).isTrue();
+        try (PipelineExecutor pipelineExecutor = new PipelineExecutor()) {
+            assertThat(pipelineExecutor.execute(pipeline, createDoc("id", "testPipelineIsCompiled")).isSucceeded()).isTrue();
+        }
+    }
+
+    @Test
+    public void testTooLargePipelineFallsBackToInterpreter() {
+        List<ExecutionStep> steps = new ArrayList<>();
+        for (int i = 0; i <= PipelineCompiler.MAX_COMPILED_STEPS; i++) {
+            String field = "field" + i;
+            steps.add(new ProcessorExecutionStep("add" + i, (Doc doc) -> {
+                doc.addField(field, "value");
+                return ProcessResult.success();
+            }));
+        }
+        Pipeline pipeline = createPipeline(false, steps.toArray(new ExecutionStep[0]));
+        Doc doc = createDoc("id", "testTooLargePipelineFallsBackToInterpreter");
+
+        assertThat(pipeline.isCompiled()).isFalse();
+        try (PipelineExecutor pipelineExecutor = new PipelineExecutor()) {
+            assertThat(pipelineExecutor.execute(pipeline, doc).isSucceeded()).isTrue();
+        }
+        assertThat(doc.hasField("field" + PipelineCompiler.MAX_COMPILED_STEPS)).isTrue();
+    }
+
+    @Test
+    public void testClassLoaderDefinedPipeline() throws InterruptedException {
+        List<ExecutionStep> steps = Collections.singletonList(new ProcessorExecutionStep("add1", (Doc doc) -> {
+            doc.addField("added", "value");
+            return ProcessResult.success();
+        }));
+        CompiledPipeline compiledPipeline = PipelineCompiler.compile(steps, false);
+        Doc doc = createDoc("id", "testClassLoaderDefinedPipeline");
+        List<Integer> succeededSteps = new ArrayList<>();
+
+        ExecutionResult executionResult = compiledPipeline.execute(doc, new CompiledPipeline.StepListener() {
+            @Override
+            public void processorStarted() {}
+
+            @Override
+            public void processorSucceeded(int step) {
+                succeededSteps.add(step);
+            }
+
+            @Override
+            public ExecutionResult processorFailed(int step, ProcessResult processResult) {
+                return null;
+            }
+        });
+
+        assertThat(compiledPipeline.getClass().getClassLoader()).isNotSameAs(CompiledPipeline.class.getClassLoader());
+        assertThat(executionResult.isSucceeded()).isTrue();
+        assertThat(succeededSteps).containsExactly(0);
+        assertThat(compiledPipeline.getProcessorName(0)).isEqualTo("add1");
+        assertThat(doc.hasField("added")).isTrue();
+    }
+}
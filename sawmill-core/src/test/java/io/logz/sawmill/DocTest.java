@@ -7,6 +7,11 @@ import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -126,4 +131,107 @@ public class DocTest {
         assertThat(doc.hasField("message." + nonExistentField)).isFalse();
         assertThat(doc.hasField(nonExistentField)).isFalse();
     }
+
+    @Test
+    public void testFieldPathOperations() {
+        Doc doc = createDoc("message", "hola", "object", JsonUtils.createMap("nestedField", "nestedValue"));
+        FieldPath nestedField = FieldPath.of("object.nestedField");
+        FieldPath newField = FieldPath.of("object.newField");
+
+        assertThat((String) doc.getFieldOrNull(nestedField)).isEqualTo("nestedValue");
+        assertThat((Object) doc.getFieldOrNull(newField)).isNull();
+        assertThat((Object) doc.getFieldOrNull(FieldPath.of("message.notMap"))).isNull();
+
+        assertThat(doc.addFieldIfAbsent(nestedField, "otherValue")).isFalse();
+        assertThat((String) doc.getField(nestedField)).isEqualTo("nestedValue");
+        assertThat(doc.addFieldIfAbsent(newField, "newValue")).isTrue();
+        assertThat((String) doc.getField(newField)).isEqualTo("newValue");
+
+        assertThat(doc.replaceFieldValue(newField, "replacedValue")).isTrue();
+        assertThat((String) doc.getField(newField)).isEqualTo("replacedValue");
+        assertThat(doc.replaceFieldValue(FieldPath.of("object.notExists"), "value")).isFalse();
+        assertThat(doc.hasField("object.notExists")).isFalse();
+
+        assertThat((String) doc.removeAndGetField(nestedField)).isEqualTo("nestedValue");
+        assertThat(doc.hasField(nestedField)).isFalse();
+        assertThat((Object) doc.removeAndGetField(nestedField)).isNull();
+
+        assertThat(FieldPath.of("object.field\\.with\\.dots").getElements()).containsExactly("object", "field.with.dots");
+    }
+
+    @Test
+    public void testFromJson() {
+        String json = "{\"message\" : \"hola\", \"object\":{\"nestedField\":\"nestedValue\"},\"number\":15,\"empty\":null}";
+
+        Doc doc = Doc.fromJson(json.getBytes(StandardCharsets.UTF_8));
+
+        assertThat(doc.getSource()).isEqualTo(JsonUtils.fromJsonString(Map.class, json));
+        assertThat((String) doc.getField("object.nestedField")).isEqualTo("nestedValue");
+        assertThat((Integer) doc.getField("number")).isEqualTo(15);
+        assertThat(doc.hasField("empty")).isFalse();
+        assertThatThrownBy(() -> Doc.fromJson("[1]".getBytes(StandardCharsets.UTF_8))).isInstanceOf(RuntimeException.class);
+        assertThatThrownBy(() -> Doc.fromJson("{\"message\":".getBytes(StandardCharsets.UTF_8))).isInstanceOf(RuntimeException.class);
+    }
+
+    @Test
+    public void testFromJsonWritesUntouchedFieldsVerbatim() {
+        String json = "{\"message\" : \"hola\",\n \"object\":{\"nestedField\":\"nestedValue\"},\"list\":[1, 2],\"number\":1.50,\"empty\":null}";
+
+        Doc doc = Doc.fromJson(json.getBytes(StandardCharsets.UTF_8));
+        assertThat(new String(doc.toJson(), StandardCharsets.UTF_8))
+                .isEqualTo("{\"message\" : \"hola\",\n \"object\":{\"nestedField\":\"nestedValue\"},\"list\":[1, 2],\"number\":1.50}");
+
+        doc.addField("object.newField", "newValue");
+        doc.removeField("list");
+        doc.addField("name", "test");
+        assertThat(new String(doc.toJson(), StandardCharsets.UTF_8))
+                .isEqualTo("{\"message\" : \"hola\",\"object\":{\"nestedField\":\"nestedValue\",\"newField\":\"newValue\"},\"number\":1.50,\"name\":\"test\"}");
+    }
+
+    @Test
+    public void testJsonSourceReplacesUntouchedFieldsWithoutDeserializing() {
+        JsonSource source = JsonSource.index("{\"message\":\"hola\",\"object\":{\"nestedField\":\"nestedValue\"},\"number\":15}"
+                .getBytes(StandardCharsets.UTF_8));
+
+        assertThat(source.replaceValue("object", "replaced")).isTrue();
+        assertThat(source.delete("number")).isTrue();
+        assertThat(source.delete("missing")).isFalse();
+        assertThat(source.addIfAbsent("message", "other")).isFalse();
+        assertThat(source.put("message", "hello")).isEqualTo("hola");
+        assertThat(source.remove("message")).isEqualTo("hello");
+        assertThat(source).isEqualTo(JsonUtils.createMap("object", "replaced"));
+
+        JsonSource untouched = JsonSource.index("{\"object\":{\"nestedField\":\"nestedValue\"},\"number\":15}".getBytes(StandardCharsets.UTF_8));
+        assertThat(untouched.put("object", "replaced")).isEqualTo(JsonUtils.createMap("nestedField", "nestedValue"));
+        assertThat(untouched.remove("number")).isEqualTo(15);
+
+        Doc doc = Doc.fromJson("{\"message\":\"hola\",\"list\":[1, 2],\"empty\":null}".getBytes(StandardCharsets.UTF_8));
+        assertThat(doc.removeField("list")).isTrue();
+        assertThat(doc.removeField("empty")).isFalse();
+        assertThat(doc.replaceFieldValue("message", "hello")).isTrue();
+        assertThat(doc.addFieldIfAbsent(FieldPath.of("message"), "other")).isFalse();
+        assertThat(new String(doc.toJson(), StandardCharsets.UTF_8)).isEqualTo("{\"message\":\"hello\"}");
+    }
+
+    @Test
+    public void testWriteTo() throws IOException {
+        String json = "{\"message\":\"hola \u00e9\",\"object\":{\"nestedField\":\"nestedValue\"}}";
+        for (Doc doc : Arrays.asList(Doc.fromJson(json.getBytes(StandardCharsets.UTF_8)), new Doc(JsonUtils.fromJsonString(Map.class, json)))) {
+            ByteArrayOutputStream stream = new ByteArrayOutputStream();
+            doc.writeTo(stream);
+            assertThat(new String(stream.toByteArray(), StandardCharsets.UTF_8)).isEqualTo(json);
+            assertThat(doc.toJson()).isEqualTo(stream.toByteArray());
+
+            ByteBuffer buffer = ByteBuffer.allocate(100);
+            buffer.put((byte) '[');
+            doc.writeTo(buffer);
+            assertThat(buffer.position()).isEqualTo(1 + stream.size());
+            assertThat(new String(buffer.array(), 1, stream.size(), StandardCharsets.UTF_8)).isEqualTo(json);
+
+            ByteBuffer smallBuffer = ByteBuffer.allocate(20);
+            smallBuffer.put((byte) '[');
+            assertThatThrownBy(() -> doc.writeTo(smallBuffer)).isInstanceOf(BufferOverflowException.class);
+            assertThat(smallBuffer.position()).isEqualTo(1);
+        }
+    }
 }
@@ -0,0 +1,75 @@
+package io.logz.sawmill;
+
+import io.logz.sawmill.conditions.FieldExistsCondition;
+import io.logz.sawmill.processors.RemoveFieldProcessor;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ExecutionStepsOptimizerTest {
+
+    @Test
+    public void testFuseAdjacentFusibleSteps() {
+        ExecutionStep notFusible = new ProcessorExecutionStep("notFusible3", doc -> ProcessResult.success());
+        List<ExecutionStep> executionSteps = ExecutionStepsOptimizer.optimize(Arrays.asList(
+                createRemoveFieldExecutionStep("remove1"),
+                createRemoveFieldExecutionStep("remove2"),
+                notFusible,
+                createRemoveFieldExecutionStep("remove4")
+        ));
+
+        assertThat(executionSteps).hasSize(3);
+        assertFused(executionSteps.get(0), "remove1", "remove2");
+        assertThat(executionSteps.get(1)).isSameAs(notFusible);
+        assertThat(((ProcessorExecutionStep) executionSteps.get(2)).getProcessor()).isInstanceOf(RemoveFieldProcessor.class);
+    }
+
+    @Test
+    public void testDoNotFuseStepsWithOnFailureSteps() {
+        List<ExecutionStep> onFailure = Collections.singletonList(createRemoveFieldExecutionStep("remove3"));
+        List<ExecutionStep> executionSteps = ExecutionStepsOptimizer.optimize(Arrays.asList(
+                createRemoveFieldExecutionStep("remove1"),
+                new ProcessorExecutionStep("remove2", createRemoveFieldProcessor(), onFailure)
+        ));
+
+        assertThat(executionSteps).hasSize(2);
+        assertThat(((ProcessorExecutionStep) executionSteps.get(1)).getOnFailureExecutionSteps().get()).hasSize(1);
+    }
+
+    @Test
+    public void testFuseNestedSteps() {
+        List<ExecutionStep> executionSteps = ExecutionStepsOptimizer.optimize(Collections.singletonList(
+                new ConditionalExecutionStep(new FieldExistsCondition("message"),
+                        Arrays.asList(createRemoveFieldExecutionStep("remove1"), createRemoveFieldExecutionStep("remove2")),
+                        Collections.emptyList())
+        ));
+
+        ConditionalExecutionStep conditionalExecutionStep = (ConditionalExecutionStep) executionSteps.get(0);
+        assertThat(conditionalExecutionStep.getOnTrue()).hasSize(1);
+        assertFused(conditionalExecutionStep.getOnTrue().get(0), "remove1", "remove2");
+        assertThat(conditionalExecutionStep.getOnFalse()).isEmpty();
+    }
+
+    private void assertFused(ExecutionStep executionStep, String... processorNames) {
+        Processor processor = ((ProcessorExecutionStep) executionStep).getProcessor();
+        assertThat(processor).isInstanceOf(FusedProcessor.class);
+
+        FusedProcessor fusedProcessor = (FusedProcessor) processor;
+        assertThat(fusedProcessor.size()).isEqualTo(processorNames.length);
+        for (int i = 0; i < processorNames.length; i++) {
+            assertThat(fusedProcessor.getProcessorName(i)).isEqualTo(processorNames[i]);
+        }
+    }
+
+    private ExecutionStep createRemoveFieldExecutionStep(String name) {
+        return new ProcessorExecutionStep(name, createRemoveFieldProcessor());
+    }
+
+    private Processor createRemoveFieldProcessor() {
+        return new RemoveFieldProcessor(Collections.singletonList(new TemplateService().createTemplate("field")));
+    }
+}
@@ -4,6 +4,7 @@ import io.logz.sawmill.utilities.Grok;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.junit.Test;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -176,6 +177,29 @@ public class GrokTest {
         assertThat(captures).hasSize(0);
     }
 
+    @Test
+    public void testMatchBytesAtOffset() throws InterruptedException {
+        Map<String, String> bank = new HashMap<>();
+        bank.put("SINGLEDIGIT", "[0-9]");
+        bank.put("NOTSPACE", "\\S+");
+        Grok grok = new Grok(bank, "^%{NOTSPACE:word} %{SINGLEDIGIT:num:int}%{SINGLEDIGIT:num:int}");
+
+        byte[] text = "ignored\u00e9 caf\u00e9 12".getBytes(StandardCharsets.UTF_8);
+        int offset = "ignored\u00e9 ".getBytes(StandardCharsets.UTF_8).length;
+
+        Grok.Captures captures = grok.match(text, offset, text.length - offset);
+        assertThat(captures).isNotNull();
+
+        Map<String, Object> values = new HashMap<>();
+        captures.forEach((name, path, value) -> {
+            assertThat(path.getPath()).isEqualTo(name);
+            values.put(name, value);
+        });
+        assertThat(values).containsEntry("word", "caf\u00e9").containsEntry("num", Arrays.asList(1L, 2L));
+
+        assertThat(grok.match(text, 0, text.length)).isNull();
+    }
+
     @Test
     public void testMatchInterrupted() {
         Grok grok = new Grok(EMPTY_MAP, ".{10000,}.{100000}");
@@ -0,0 +1,86 @@
+package io.logz.sawmill;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class LatencyRecorderTest {
+    private static final long WINDOW_MS = 1000;
+
+    @Test
+    public void testPercentiles() {
+        LatencyRecorder latencyRecorder = new LatencyRecorder(10, WINDOW_MS, () -> 0L);
+        for (long i = 1; i <= 100_000; i++) {
+            latencyRecorder.recordPipeline("pipeline", i * 1000);
+        }
+
+        LatencySnapshot snapshot = latencyRecorder.getPipelineSnapshot("pipeline").get();
+        assertThat(snapshot.getCount()).isEqualTo(100_000);
+        assertThat(snapshot.getMin()).isEqualTo(1000);
+        assertThat(snapshot.getMax()).isEqualTo(100_000_000);
+        assertThat(snapshot.getMean()).isCloseTo(50_000_500, within(1.0));
+        assertThat(snapshot.getMedian()).isBetween(50_000_000L, 50_000_000L + 50_000_000L / LatencyHistogram.SUB_BUCKETS);
+        assertThat(snapshot.get99thPercentile()).isBetween(99_000_000L, 100_000_000L);
+        assertThat(snapshot.get999thPercentile()).isBetween(99_900_000L, 100_000_000L);
+    }
+
+    @Test
+    public void testBucketBoundaries() {
+        for (long value = 0; value < 1_000_000; value += 7) {
+            int bucketIndex = LatencyHistogram.bucketIndex(value);
+            long highestValue = LatencyHistogram.highestValue(bucketIndex);
+            assertThat(highestValue).isGreaterThanOrEqualTo(value);
+            assertThat(highestValue - value).isLessThanOrEqualTo(value / LatencyHistogram.SUB_BUCKETS);
+        }
+        assertThat(LatencyHistogram.bucketIndex(Long.MAX_VALUE >>> (62 - LatencyHistogram.MAX_MAGNITUDE))).isEqualTo(LatencyHistogram.BUCKETS - 1);
+    }
+
+    @Test
+    public void testPipelinesAndProcessorsAreRecordedSeparately() {
+        LatencyRecorder latencyRecorder = new LatencyRecorder(10, WINDOW_MS, () -> 0L);
+        latencyRecorder.recordProcessor("pipeline1", "[grok1]", 100);
+        latencyRecorder.recordProcessor("pipeline2", "[grok1]", 200);
+        latencyRecorder.recordProcessor("pipeline2", "[grok1]", 200);
+
+        assertThat(latencyRecorder.getProcessorSnapshot("pipeline1", "[grok1]").get().getCount()).isEqualTo(1);
+        assertThat(latencyRecorder.getProcessorSnapshot("pipeline2", "[grok1]").get().getCount()).isEqualTo(2);
+        assertThat(latencyRecorder.getProcessorSnapshot("pipeline3", "[grok1]").isPresent()).isFalse();
+        assertThat(latencyRecorder.getPipelineSnapshot("pipeline1").isPresent()).isFalse();
+    }
+
+    @Test
+    public void testRollingWindow() {
+        AtomicLong clock = new AtomicLong();
+        LatencyRecorder latencyRecorder = new LatencyRecorder(10, WINDOW_MS, clock::get);
+
+        latencyRecorder.recordPipeline("pipeline", 1000);
+        clock.set(WINDOW_MS / 2);
+        latencyRecorder.recordPipeline("pipeline", 2000);
+        assertThat(latencyRecorder.getPipelineSnapshot("pipeline").get().getCount()).isEqualTo(2);
+
+        clock.set(WINDOW_MS);
+        LatencySnapshot snapshot = latencyRecorder.getPipelineSnapshot("pipeline").get();
+        assertThat(snapshot.getCount()).isEqualTo(1);
+        assertThat(snapshot.getMin()).isEqualTo(2000);
+
+        clock.set(WINDOW_MS * 5);
+        assertThat(latencyRecorder.getPipelineSnapshot("pipeline").get().getCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void testMaxKeys() {
+        LatencyRecorder latencyRecorder = new LatencyRecorder(2, WINDOW_MS, () -> 0L);
+        latencyRecorder.recordPipeline("pipeline1", 100);
+        latencyRecorder.recordProcessor("pipeline1", "[grok1]", 100);
+        latencyRecorder.recordPipeline("pipeline2", 100);
+        latencyRecorder.recordProcessor("pipeline2", "[grok1]", 100);
+
+        assertThat(latencyRecorder.getPipelineSnapshot("pipeline1").isPresent()).isTrue();
+        assertThat(latencyRecorder.getProcessorSnapshot("pipeline1", "[grok1]").isPresent()).isTrue();
+        assertThat(latencyRecorder.getPipelineSnapshot("pipeline2").isPresent()).isFalse();
+        assertThat(latencyRecorder.getOverflowSnapshot().getCount()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,125 @@
+package io.logz.sawmill;
+
+import io.logz.sawmill.exceptions.PipelineExecutionException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static io.logz.sawmill.utils.DocUtils.createDoc;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ParallelPipelineExecutorTest {
+    private PipelineExecutionMetricsMBean pipelineExecutorMetrics;
+    private PipelineExecutor pipelineExecutor;
+
+    @Before
+    public void init() {
+        pipelineExecutorMetrics = new PipelineExecutionMetricsMBean();
+        pipelineExecutor = new PipelineExecutor(pipelineExecutorMetrics);
+    }
+
+    @After
+    public void close() {
+        pipelineExecutor.close();
+    }
+
+    @Test
+    public void testResultsKeepInputOrder() {
+        Set<String> workerThreads = ConcurrentHashMap.newKeySet();
+        Pipeline pipeline = createPipeline(new ProcessorExecutionStep("route1", (Doc doc) -> {
+            workerThreads.add(Thread.currentThread().getName());
+            doc.addField("thread", Thread.currentThread().getName());
+            int index = doc.getField("index");
+            return index % 3 == 0 ? ProcessResult.drop() : ProcessResult.success();
+        }));
+        List<Doc> docs = createDocs(1000);
+
+        List<ExecutionResult> executionResults;
+        try (ParallelPipelineExecutor parallelPipelineExecutor = new ParallelPipelineExecutor(pipelineExecutor, 4)) {
+            executionResults = parallelPipelineExecutor.executeBatch(pipeline, docs);
+        }
+
+        assertThat(executionResults).hasSize(docs.size());
+        for (int i = 0; i < docs.size(); i++) {
+            assertThat(executionResults.get(i).isDropped()).isEqualTo(i % 3 == 0);
+            assertThat(docs.get(i).hasField("thread")).isTrue();
+        }
+        assertThat(workerThreads.size()).isGreaterThan(1);
+        assertThat(pipelineExecutorMetrics.getTotalDocsDropped()).isEqualTo(334);
+        assertThat(pipelineExecutorMetrics.getTotalDocsSucceededProcessing()).isEqualTo(666);
+    }
+
+    @Test
+    public void testCallerSuppliedExecutor() {
+        Pipeline pipeline = createPipeline(new ProcessorExecutionStep("add1", (Doc doc) -> {
+            doc.addField("processed", true);
+            return ProcessResult.success();
+        }));
+        List<Doc> docs = createDocs(100);
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+
+        try (ParallelPipelineExecutor parallelPipelineExecutor = new ParallelPipelineExecutor(pipelineExecutor, executorService, 2, 10)) {
+            List<ExecutionResult> executionResults = parallelPipelineExecutor.executeBatch(pipeline, docs);
+            assertThat(executionResults).hasSize(docs.size()).allMatch(ExecutionResult::isSucceeded);
+        }
+
+        assertThat(docs).allMatch(doc -> doc.hasField("processed"));
+        assertThat(executorService.isShutdown()).isFalse();
+        executorService.shutdown();
+    }
+
+    @Test
+    public void testSmallBatchRunsOnCallingThread() {
+        String callingThread = Thread.currentThread().getName();
+        Pipeline pipeline = createPipeline(new ProcessorExecutionStep("add1", (Doc doc) -> {
+            doc.addField("thread", Thread.currentThread().getName());
+            return ProcessResult.success();
+        }));
+        List<Doc> docs = createDocs(10);
+
+        try (ParallelPipelineExecutor parallelPipelineExecutor = new ParallelPipelineExecutor(pipelineExecutor, 4)) {
+            parallelPipelineExecutor.executeBatch(pipeline, docs);
+        }
+
+        assertThat(docs.stream().map(doc -> (String) doc.getField("thread")).collect(Collectors.toSet()))
+                .isEqualTo(Collections.singleton(callingThread));
+    }
+
+    @Test
+    public void testUnexpectedFailure() {
+        Pipeline pipeline = createPipeline(new ProcessorExecutionStep("failHard1", (Doc doc) -> {
+            int index = doc.getField("index");
+            if (index == 10) throw new RuntimeException("test failure");
+            return ProcessResult.success();
+        }));
+        List<Doc> docs = createDocs(1000);
+
+        try (ParallelPipelineExecutor parallelPipelineExecutor = new ParallelPipelineExecutor(pipelineExecutor, 4)) {
+            assertThatThrownBy(() -> parallelPipelineExecutor.executeBatch(pipeline, docs)).isInstanceOf(PipelineExecutionException.class);
+        }
+        assertThat(pipelineExecutorMetrics.getTotalDocsFailedOnUnexpectedError()).isEqualTo(1);
+    }
+
+    private List<Doc> createDocs(int amount) {
+        return IntStream.range(0, amount)
+                .mapToObj(i -> createDoc("index", i, "message", "hola"))
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    private Pipeline createPipeline(ExecutionStep... steps) {
+        List<ExecutionStep> executionSteps = new ArrayList<>();
+        Collections.addAll(executionSteps, steps);
+        return new Pipeline("abc", executionSteps, false);
+    }
+}
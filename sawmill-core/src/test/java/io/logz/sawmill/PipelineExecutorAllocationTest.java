@@ -0,0 +1,60 @@
+package io.logz.sawmill;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Collections;
+
+import static io.logz.sawmill.utils.DocUtils.createDoc;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+public class PipelineExecutorAllocationTest {
+    private static final int WARMUP_EXECUTIONS = 50_000;
+    private static final int MEASURED_EXECUTIONS = 100_000;
+
+    private com.sun.management.ThreadMXBean threadMXBean;
+
+    @Before
+    public void init() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        assumeTrue(threadMXBean instanceof com.sun.management.ThreadMXBean);
+        this.threadMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+        assumeTrue(this.threadMXBean.isThreadAllocatedMemorySupported());
+        this.threadMXBean.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    @Test
+    public void testInterpretedExecutionDoesNotAllocate() {
+        assertExecutionDoesNotAllocate(false);
+    }
+
+    @Test
+    public void testCompiledExecutionDoesNotAllocate() {
+        assertExecutionDoesNotAllocate(true);
+    }
+
+    private void assertExecutionDoesNotAllocate(boolean compiled) {
+        Pipeline pipeline = new Pipeline("abc",
+                Collections.singletonList(new ProcessorExecutionStep("noop1", doc -> ProcessResult.success())), false, compiled);
+        Doc doc = createDoc("message", "hola");
+
+        try (PipelineExecutor pipelineExecutor = new PipelineExecutor()) {
+            for (int i = 0; i < WARMUP_EXECUTIONS; i++) {
+                pipelineExecutor.execute(pipeline, doc);
+            }
+
+            long threadId = Thread.currentThread().getId();
+            long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < MEASURED_EXECUTIONS; i++) {
+                pipelineExecutor.execute(pipeline, doc);
+            }
+            long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+            // a few allocations on the way are tolerated, a single object per execution is not
+            assertThat(allocated / MEASURED_EXECUTIONS).isLessThan(1);
+        }
+    }
+}
@@ -2,9 +2,11 @@ package io.logz.sawmill;
 
 import io.logz.sawmill.conditions.AndCondition;
 import io.logz.sawmill.conditions.FieldExistsCondition;
+import io.logz.sawmill.exceptions.PipelineBatchExecutionException;
 import io.logz.sawmill.exceptions.PipelineExecutionException;
 import io.logz.sawmill.exceptions.ProcessorExecutionException;
 import io.logz.sawmill.processors.GrokProcessor;
+import io.logz.sawmill.utilities.ExecutionBudget;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.junit.Before;
 import org.junit.Test;
@@ -12,11 +14,17 @@ import org.junit.Test;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static io.logz.sawmill.utils.DocUtils.createDoc;
 import static io.logz.sawmill.utils.FactoryUtils.createProcessor;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowable;
 
 public class PipelineExecutorTest {
     private static final long WARNING_THRESHOLD_TIME_MS = 500;
@@ -93,6 +101,29 @@ public class PipelineExecutorTest {
         assertThat(pipelineExecutorMetrics.getTotalDocsProcessingExpired()).isEqualTo(1);
     }
 
+    @Test
+    public void testBudgetExceededGrokFailsWithoutExpiring() {
+        Pipeline pipeline = createPipeline(
+                createAddFieldExecutionStep("newField1", "value1"),
+                createLongGrokExecutionStep(50),
+                new ProcessorExecutionStep("add2", createAddFieldProcessor("newField2", "value2"))
+        );
+        Doc doc = createDoc("id", "testBudgetExceededGrokFailsWithoutExpiring",
+                "message", RandomStringUtils.random(10000),
+                "type", "test");
+
+        ExecutionResult executionResult = pipelineExecutor.execute(pipeline, doc);
+        assertThat(executionResult.isSucceeded()).isTrue();
+        assertThat(Thread.currentThread().isInterrupted()).isFalse();
+
+        assertThat(doc.getSource().get("newField2")).isEqualTo("value2");
+        assertThat((List<String>) doc.getField("tags")).contains(ExecutionBudget.EXCEEDED_TAG);
+        assertThat(pipelineExecutorMetrics.getBudgetExceededCount("slow greedy grok")).isEqualTo(1);
+        assertThat(pipelineExecutorMetrics.getProcessingFailedCount("slow greedy grok")).isEqualTo(1);
+        assertThat(pipelineExecutorMetrics.getTotalDocsProcessingExpired()).isEqualTo(0);
+        assertThat(overtimeProcessingDocs.contains(doc)).isFalse();
+    }
+
     @Test
     public void testPipelineExecution() {
         Pipeline pipeline = createPipeline(
@@ -296,6 +327,107 @@ public class PipelineExecutorTest {
         assertThat(pipelineExecutorMetrics.getTotalDocsSucceededProcessing()).isEqualTo(1);
     }
 
+    @Test
+    public void testLatencyMetrics() {
+        Pipeline pipeline = createPipeline(
+                createAddFieldExecutionStep("newField1", "value1")
+        );
+
+        pipelineExecutor.execute(pipeline, createDoc("id", "testLatencyMetrics", "message", "hola"));
+        pipelineExecutor.execute(pipeline, createDoc("id", "testLatencyMetrics", "message", "hola"));
+
+        LatencyRecorder latencyRecorder = pipelineExecutorMetrics.getLatencyRecorder();
+        assertThat(latencyRecorder.getPipelineSnapshot(pipeline.getId()).get().getCount()).isEqualTo(2);
+        assertThat(latencyRecorder.getProcessorSnapshot(pipeline.getId(), "add1").get().getCount()).isEqualTo(2);
+        assertThat(pipelineExecutorMetrics.getPipelineLatencyPercentile(pipeline.getId(), 99))
+                .isGreaterThanOrEqualTo(pipelineExecutorMetrics.getProcessorLatencyPercentile(pipeline.getId(), "add1", 99));
+    }
+
+    @Test
+    public void testNotSampledTiming() {
+        TimingSampling notSampled = new TimingSampling() {
+            @Override
+            long sample(Pipeline pipeline) {
+                return NOT_SAMPLED;
+            }
+        };
+        Pipeline pipeline = createPipeline(
+                createAddFieldExecutionStep("newField1", "value1"),
+                createFailAlwaysExecutionStep()
+        );
+        Doc doc = createDoc("id", "testNotSampledTiming", "message", "hola");
+
+        try (PipelineExecutor notSampledExecutor = new PipelineExecutor(
+                new PipelineExecutionTimeWatchdog(WARNING_THRESHOLD_TIME_MS, EXPIRED_THRESHOLD_TIME_MS, pipelineExecutorMetrics, watchedPipeline -> {}),
+                pipelineExecutorMetrics, notSampled)) {
+            assertThat(notSampledExecutor.execute(pipeline, doc).isSucceeded()).isTrue();
+        }
+
+        assertThat(doc.getSource().get("newField1")).isEqualTo("value1");
+        assertThat(pipelineExecutorMetrics.getTotalDocsSucceededProcessing()).isEqualTo(1);
+        assertThat(pipelineExecutorMetrics.getProcessingFailedCount("fail1")).isEqualTo(1);
+        assertThat(pipelineExecutorMetrics.getLatencyRecorder().getProcessorSnapshot(pipeline.getId(), "add1").isPresent()).isFalse();
+    }
+
+    @Test
+    public void testSampledTimingIsExtrapolated() {
+        Pipeline pipeline = createPipeline(
+                createAddFieldExecutionStep("newField1", "value1")
+        );
+
+        try (PipelineExecutor sampledExecutor = new PipelineExecutor(
+                new PipelineExecutionTimeWatchdog(WARNING_THRESHOLD_TIME_MS, EXPIRED_THRESHOLD_TIME_MS, pipelineExecutorMetrics, watchedPipeline -> {}),
+                pipelineExecutorMetrics, TimingSampling.oneIn(10))) {
+            for (int i = 0; i < 10_000; i++) {
+                sampledExecutor.execute(pipeline, createDoc("id", "testSampledTimingIsExtrapolated", "message", "hola"));
+            }
+        }
+
+        assertThat(pipelineExecutorMetrics.getLatencyRecorder().getProcessorSnapshot(pipeline.getId(), "add1").get().getCount())
+                .isBetween(8_000L, 12_000L);
+    }
+
+    @Test
+    public void testFusedStepsIgnoreFailure() {
+        Pipeline pipeline = createPipeline(createFusedExecutionSteps(
+                new ProcessorExecutionStep("fusedAdd1", createFusibleProcessor(createAddFieldProcessor("newField1", "value1"))),
+                new ProcessorExecutionStep("fusedFail2", createFusibleProcessor(createFailAlwaysProcessor())),
+                new ProcessorExecutionStep("fusedAdd3", createFusibleProcessor(createAddFieldProcessor("newField2", "value2")))
+        ));
+        Doc doc = createDoc("id", "testFusedStepsIgnoreFailure", "message", "hola",
+                "type", "test");
+
+        ExecutionResult executionResult = pipelineExecutor.execute(pipeline, doc);
+        assertThat(executionResult.isSucceeded()).isTrue();
+
+        assertThat(doc.getSource().get("newField1")).isEqualTo("value1");
+        assertThat(doc.getSource().get("newField2")).isEqualTo("value2");
+        assertThat(pipelineExecutorMetrics.getProcessingFailedCount("fusedAdd1")).isEqualTo(0);
+        assertThat(pipelineExecutorMetrics.getProcessingFailedCount("fusedFail2")).isEqualTo(1);
+        assertThat(pipelineExecutorMetrics.getProcessingFailedCount("fusedAdd3")).isEqualTo(0);
+    }
+
+    @Test
+    public void testFusedStepsStopOnFailure() {
+        Pipeline pipeline = createStopOnFailurePipeline(createFusedExecutionSteps(
+                new ProcessorExecutionStep("fusedAdd1", createFusibleProcessor(createAddFieldProcessor("newField1", "value1"))),
+                new ProcessorExecutionStep("fusedFail2", createFusibleProcessor(createFailAlwaysProcessor())),
+                new ProcessorExecutionStep("fusedAdd3", createFusibleProcessor(createAddFieldProcessor("newField2", "value2")))
+        ));
+        Doc doc = createDoc("id", "testFusedStepsStopOnFailure", "message", "hola",
+                "type", "test");
+
+        ExecutionResult executionResult = pipelineExecutor.execute(pipeline, doc);
+        assertThat(executionResult.isSucceeded()).isFalse();
+        assertThat(executionResult.getError().get().getFailedProcessorName()).isEqualTo("fusedFail2");
+
+        assertThat(doc.getSource().get("newField1")).isEqualTo("value1");
+        assertThat(doc.getSource().get("newField2")).isNull();
+        assertThat(pipelineExecutorMetrics.getProcessingFailedCount("fusedAdd1")).isEqualTo(0);
+        assertThat(pipelineExecutorMetrics.getProcessingFailedCount("fusedFail2")).isEqualTo(1);
+        assertThat(pipelineExecutorMetrics.getTotalDocsFailedProcessing()).isEqualTo(1);
+    }
+
     @Test
     public void testUnexpectedFailure() {
         Pipeline pipeline = createPipeline(
@@ -348,6 +480,256 @@ public class PipelineExecutorTest {
         assertThat(pipelineExecutorMetrics.getTotalDocsSucceededProcessing()).isEqualTo(2);
     }
 
+    @Test
+    public void testDeeplyNestedExecutionSteps() {
+        int depth = 300;
+        ExecutionStep nested = new ProcessorExecutionStep("leaf1", createAddFieldProcessor("leaf", "value"),
+                createExecutionSteps(createAddFieldExecutionStep("leafFailed", "value")),
+                createExecutionSteps(createAddFieldExecutionStep("leafSucceeded", "value")));
+        for (int i = depth - 1; i >= 0; i--) {
+            boolean evaluation = i % 2 == 0;
+            List<ExecutionStep> expected = createExecutionSteps(createAddFieldExecutionStep("level" + i, "value"), nested);
+            List<ExecutionStep> unexpected = createExecutionSteps(createAddFieldExecutionStep("unexpected" + i, "value"));
+            nested = new ConditionalExecutionStep(doc -> evaluation,
+                    evaluation ? expected : unexpected,
+                    evaluation ? unexpected : expected);
+        }
+        Pipeline pipeline = createPipeline(nested, createAddFieldExecutionStep("last", "value"));
+        Doc doc = createDoc("id", "testDeeplyNestedExecutionSteps");
+
+        ExecutionResult executionResult = pipelineExecutor.execute(pipeline, doc);
+
+        assertThat(executionResult.isSucceeded()).isTrue();
+        for (int i = 0; i < depth; i++) {
+            assertThat(doc.hasField("level" + i)).isTrue();
+            assertThat(doc.hasField("unexpected" + i)).isFalse();
+        }
+        assertThat(doc.hasField("leaf")).isTrue();
+        assertThat(doc.hasField("leafSucceeded")).isTrue();
+        assertThat(doc.hasField("leafFailed")).isFalse();
+        assertThat(doc.hasField("last")).isTrue();
+    }
+
+    @Test
+    public void testBatchExecution() {
+        Pipeline pipeline = createStopOnFailurePipeline(
+                createAddFieldExecutionStep("newField1", "value1"),
+                new ProcessorExecutionStep("route1", (Doc doc) -> {
+                    if (doc.hasField("drop")) return ProcessResult.drop();
+                    if (doc.hasField("fail")) return ProcessResult.failure("test failure");
+                    return ProcessResult.success();
+                })
+        );
+        Doc succeededDoc = createDoc("id", "testBatchExecution1", "message", "hola");
+        Doc droppedDoc = createDoc("id", "testBatchExecution2", "drop", true);
+        Doc failedDoc = createDoc("id", "testBatchExecution3", "fail", true);
+        Doc anotherSucceededDoc = createDoc("id", "testBatchExecution4", "message", "hola");
+
+        List<ExecutionResult> executionResults = pipelineExecutor.executeBatch(pipeline,
+                Arrays.asList(succeededDoc, droppedDoc, failedDoc, anotherSucceededDoc));
+
+        assertThat(executionResults).hasSize(4);
+        assertThat(executionResults.get(0).isSucceeded()).isTrue();
+        assertThat(executionResults.get(1).isDropped()).isTrue();
+        assertThat(executionResults.get(2).isFailed()).isTrue();
+        assertThat(executionResults.get(2).getError().get().getFailedProcessorName()).isEqualTo("route1");
+        assertThat(executionResults.get(3).isSucceeded()).isTrue();
+
+        assertThat(succeededDoc.getSource().get("newField1")).isEqualTo("value1");
+        assertThat(anotherSucceededDoc.getSource().get("newField1")).isEqualTo("value1");
+        assertThat(pipelineExecutorMetrics.getTotalDocsSucceededProcessing()).isEqualTo(2);
+        assertThat(pipelineExecutorMetrics.getTotalDocsDropped()).isEqualTo(1);
+        assertThat(pipelineExecutorMetrics.getTotalDocsFailedProcessing()).isEqualTo(1);
+    }
+
+    @Test
+    public void testBatchExecutionUnexpectedFailureReportsExecutedDocs() {
+        Pipeline pipeline = createPipeline(
+                createAddFieldExecutionStep("newField1", "value1"),
+                new ProcessorExecutionStep("failHard1", (Doc doc) -> {
+                    if (doc.hasField("failHard")) throw new RuntimeException("test failure");
+                    return ProcessResult.success();
+                })
+        );
+        Doc succeededDoc = createDoc("id", "testBatchExecutionUnexpectedFailureReportsExecutedDocs1", "message", "hola");
+        Doc anotherSucceededDoc = createDoc("id", "testBatchExecutionUnexpectedFailureReportsExecutedDocs2", "message", "hola");
+        Doc failHardDoc = createDoc("id", "testBatchExecutionUnexpectedFailureReportsExecutedDocs3", "failHard", true);
+        Doc notExecutedDoc = createDoc("id", "testBatchExecutionUnexpectedFailureReportsExecutedDocs4", "message", "hola");
+
+        Throwable thrown = catchThrowable(() -> pipelineExecutor.executeBatch(pipeline, Arrays.asList(succeededDoc, anotherSucceededDoc, failHardDoc, notExecutedDoc)));
+
+        assertThat(thrown).isInstanceOf(PipelineBatchExecutionException.class).hasCauseInstanceOf(RuntimeException.class);
+        List<ExecutionResult> executionResults = ((PipelineBatchExecutionException) thrown).getExecutionResults();
+        assertThat(executionResults).hasSize(2);
+        assertThat(executionResults.get(0).isSucceeded()).isTrue();
+        assertThat(executionResults.get(1).isSucceeded()).isTrue();
+
+        assertThat(notExecutedDoc.getSource().get("newField1")).isNull();
+        assertThat(pipelineExecutorMetrics.getTotalDocsSucceededProcessing()).isEqualTo(2);
+        assertThat(pipelineExecutorMetrics.getTotalDocsFailedOnUnexpectedError()).isEqualTo(1);
+    }
+
+    @Test
+    public void testBatchExecutionExpiresPerDoc() {
+        Pipeline pipeline = createPipeline(
+                new ProcessorExecutionStep("sleep1", (Doc doc) -> {
+                    if (doc.hasField("slow")) Thread.sleep(EXPIRED_THRESHOLD_TIME_MS + 300);
+                    return ProcessResult.success();
+                })
+        );
+        Doc slowDoc = createDoc("id", "testBatchExecutionExpiresPerDoc1", "slow", true);
+        Doc fastDoc = createDoc("id", "testBatchExecutionExpiresPerDoc2", "message", "hola");
+
+        List<ExecutionResult> executionResults = pipelineExecutor.executeBatch(pipeline, Arrays.asList(slowDoc, fastDoc));
+
+        assertThat(executionResults.get(0).isExpired()).isTrue();
+        assertThat(executionResults.get(1).isSucceeded()).isTrue();
+        assertThat(executionResults.get(1).isOvertime()).isFalse();
+        assertThat(Thread.currentThread().isInterrupted()).isFalse();
+        assertThat(pipelineExecutorMetrics.getTotalDocsProcessingExpired()).isEqualTo(1);
+    }
+
+    @Test
+    public void testExecutionStartedDuringSlowOvertimeOpIsNotOvertime() throws Exception {
+        CountDownLatch overtimeOpStarted = new CountDownLatch(1);
+        CountDownLatch overtimeOpFinished = new CountDownLatch(1);
+        long overtimeOpTimeMs = 500;
+
+        try (PipelineExecutionTimeWatchdog watchdog = new PipelineExecutionTimeWatchdog(200, 10_000, pipelineExecutorMetrics, watchedPipeline -> {
+            if (overtimeOpStarted.getCount() == 0) {
+                return;
+            }
+            overtimeOpStarted.countDown();
+            try {
+                Thread.sleep(overtimeOpTimeMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            overtimeOpFinished.countDown();
+        })) {
+            watchdog.startedExecution("slow", createDoc("message", "slow"), Thread.currentThread());
+            assertThat(overtimeOpStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // the watchdog thread is still in the overtime op while this execution starts
+            Thread.sleep(overtimeOpTimeMs - 100);
+            long executionId = watchdog.startedExecution("fast", createDoc("message", "fast"), Thread.currentThread());
+            assertThat(overtimeOpFinished.await(5, TimeUnit.SECONDS)).isTrue();
+            Thread.sleep(40);
+
+            assertThat(watchdog.isOvertime(executionId)).isFalse();
+            watchdog.removeExecution(executionId);
+        }
+    }
+
+    @Test
+    public void testConcurrentExecutionsAreWatchedSeparately() throws Exception {
+        Pipeline pipeline = createPipeline(
+                new ProcessorExecutionStep("sleep1", (Doc doc) -> {
+                    if (doc.hasField("slow")) Thread.sleep(EXPIRED_THRESHOLD_TIME_MS + 300);
+                    return ProcessResult.success();
+                })
+        );
+        Doc slowDoc = createDoc("id", "testConcurrentExecutionsAreWatchedSeparately", "slow", true);
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+
+        try {
+            CompletableFuture<ExecutionResult> slowExecution = pipelineExecutor.executeAsync(pipeline, slowDoc, executorService);
+            List<CompletableFuture<ExecutionResult>> fastExecutions = new ArrayList<>();
+            for (int i = 0; i < 10000; i++) {
+                fastExecutions.add(pipelineExecutor.executeAsync(pipeline, createDoc("message", "hola"), executorService));
+            }
+
+            for (CompletableFuture<ExecutionResult> fastExecution : fastExecutions) {
+                assertThat(fastExecution.get().isSucceeded()).isTrue();
+            }
+            assertThat(slowExecution.get().isExpired()).isTrue();
+        } finally {
+            executorService.shutdown();
+        }
+        assertThat(pipelineExecutorMetrics.getTotalDocsProcessingExpired()).isEqualTo(1);
+        assertThat(pipelineExecutorMetrics.getTotalDocsSucceededProcessing()).isEqualTo(10000);
+    }
+
+    @Test
+    public void testAsyncExecution() throws Exception {
+        Pipeline pipeline = createPipeline(createAddFieldExecutionStep("newField1", "value1"));
+        Doc doc = createDoc("id", "testAsyncExecution", "message", "hola");
+
+        ExecutionResult executionResult = pipelineExecutor.executeAsync(pipeline, doc).get();
+
+        assertThat(executionResult.isSucceeded()).isTrue();
+        assertThat(doc.getSource().get("newField1")).isEqualTo("value1");
+        assertThat(pipelineExecutorMetrics.getTotalDocsSucceededProcessing()).isEqualTo(1);
+    }
+
+    @Test
+    public void testAsyncExecutionExpires() throws Exception {
+        Pipeline pipeline = createPipeline(createSleepExecutionStep(EXPIRED_THRESHOLD_TIME_MS + 300));
+        Doc doc = createDoc("id", "testAsyncExecutionExpires", "message", "hola");
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+
+        try {
+            ExecutionResult executionResult = pipelineExecutor.executeAsync(pipeline, doc, executorService).get();
+            assertThat(executionResult.isExpired()).isTrue();
+            assertThat(executorService.submit(() -> Thread.currentThread().isInterrupted()).get()).isFalse();
+        } finally {
+            executorService.shutdown();
+        }
+        assertThat(pipelineExecutorMetrics.getTotalDocsProcessingExpired()).isEqualTo(1);
+    }
+
+    @Test
+    public void testAsyncExecutionUnexpectedFailure() {
+        Pipeline pipeline = createPipeline(new ProcessorExecutionStep("failHard1", (Doc doc) -> {
+            throw new RuntimeException("test failure");
+        }));
+        Doc doc = createDoc("id", "testAsyncExecutionUnexpectedFailure", "message", "hola");
+
+        CompletableFuture<ExecutionResult> executionResult = pipelineExecutor.executeAsync(pipeline, doc);
+
+        assertThatThrownBy(executionResult::join).hasCauseInstanceOf(PipelineExecutionException.class);
+        assertThat(pipelineExecutorMetrics.getTotalDocsFailedOnUnexpectedError()).isEqualTo(1);
+    }
+
+    @Test
+    public void testReportExpressionsStatistics() {
+        Processor grokProcessor = createProcessor(GrokProcessor.class,
+                "field", "message",
+                "patterns", Arrays.asList("%{NUMBER:number}", "%{WORD:word}"));
+        Pipeline pipeline = createPipeline(new ConditionalExecutionStep(doc -> true,
+                createExecutionSteps(new ProcessorExecutionStep("grok1", grokProcessor)), null));
+
+        pipelineExecutor.execute(pipeline, createDoc("message", "hola"));
+        pipelineExecutor.execute(pipeline, createDoc("message", "80"));
+        assertThat(pipelineExecutorMetrics.getExpressionsStatistics(pipeline.getId(), "grok1")).isEmpty();
+
+        pipelineExecutor.reportExpressionsStatistics(pipeline);
+
+        List<ExpressionStatistics> statistics = pipelineExecutorMetrics.getExpressionsStatistics(pipeline.getId(), "grok1");
+        assertThat(statistics).extracting(ExpressionStatistics::getExpression).containsExactly("%{NUMBER:number}", "%{WORD:word}");
+        assertThat(statistics).extracting(ExpressionStatistics::getAttempts).containsExactly(2L, 1L);
+        assertThat(statistics).extracting(ExpressionStatistics::getMatches).containsExactly(1L, 1L);
+    }
+
+    @Test
+    public void testReportExpressionsStatisticsPerPipeline() {
+        Pipeline numberPipeline = new Pipeline("numbers", createExecutionSteps(new ProcessorExecutionStep("grok1",
+                createProcessor(GrokProcessor.class, "field", "message", "patterns", Arrays.asList("%{NUMBER:number}")))), false);
+        Pipeline wordPipeline = new Pipeline("words", createExecutionSteps(new ProcessorExecutionStep("grok1",
+                createProcessor(GrokProcessor.class, "field", "message", "patterns", Arrays.asList("%{WORD:word}")))), false);
+
+        pipelineExecutor.execute(numberPipeline, createDoc("message", "80"));
+        pipelineExecutor.execute(wordPipeline, createDoc("message", "hola"));
+        pipelineExecutor.reportExpressionsStatistics(numberPipeline);
+        pipelineExecutor.reportExpressionsStatistics(wordPipeline);
+
+        assertThat(pipelineExecutorMetrics.getExpressionsStatistics("numbers", "grok1"))
+                .extracting(ExpressionStatistics::getExpression).containsExactly("%{NUMBER:number}");
+        assertThat(pipelineExecutorMetrics.getExpressionsStatistics("words", "grok1"))
+                .extracting(ExpressionStatistics::getExpression).containsExactly("%{WORD:word}");
+        assertThat(pipelineExecutorMetrics.getExpressionsStatistics("other", "grok1")).isEmpty();
+    }
+
     private List<ExecutionStep> createExecutionSteps(ExecutionStep... steps) {
         return Arrays.asList(steps);
     }
@@ -360,11 +742,17 @@ public class PipelineExecutorTest {
         return createPipeline(true, steps);
     }
 
-    private Pipeline createPipeline(boolean stopOnFailure, ExecutionStep... steps) {
+    protected Pipeline createPipeline(boolean stopOnFailure, ExecutionStep... steps) {
         String id = "abc";
         return new Pipeline(id, Arrays.asList(steps), stopOnFailure);
     }
 
+    private ExecutionStep[] createFusedExecutionSteps(ExecutionStep... steps) {
+        List<ExecutionStep> fusedSteps = ExecutionStepsOptimizer.optimize(Arrays.asList(steps));
+        assertThat(fusedSteps).hasSize(1);
+        return fusedSteps.toArray(new ExecutionStep[0]);
+    }
+
     private ProcessorExecutionStep createSleepExecutionStep(long millis) {
         return new ProcessorExecutionStep("sleep1", (Doc doc) -> {
 
@@ -375,10 +763,15 @@ public class PipelineExecutorTest {
     }
 
     private ExecutionStep createLongGrokExecutionStep() {
+        return createLongGrokExecutionStep(0);
+    }
+
+    private ExecutionStep createLongGrokExecutionStep(long budgetMs) {
         return new ProcessorExecutionStep("slow greedy grok",
                 createProcessor(GrokProcessor.class,
                         "field", "message",
-                        "patterns", Arrays.asList(".{10000,}.{100000}")));
+                        "patterns", Arrays.asList(".{10000,}.{100000}"),
+                        "budgetMs", budgetMs));
     }
 
     private ProcessorExecutionStep createAddFieldExecutionStep(String k, String v) {
@@ -434,6 +827,20 @@ public class PipelineExecutorTest {
         return (Doc doc) -> ProcessResult.failure("test failure", e);
     }
 
+    private Processor createFusibleProcessor(Processor processor) {
+        return new Processor() {
+            @Override
+            public ProcessResult process(Doc doc) throws InterruptedException {
+                return processor.process(doc);
+            }
+
+            @Override
+            public boolean isFusible() {
+                return true;
+            }
+        };
+    }
+
     private ConditionalExecutionStep createConditionalExecutionStep(Condition condition, List<ExecutionStep> onTrue, List<ExecutionStep> onFalse) {
         return new ConditionalExecutionStep(condition, onTrue, onFalse);
     }
@@ -0,0 +1,108 @@
+package io.logz.sawmill;
+
+import com.google.common.base.Ticker;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class PipelineRegistryTest {
+    private static final String CONFIG = "steps: [{ addField: { config: { path: field1, value: value1 } } }]";
+    private static final String EQUIVALENT_CONFIG = "{\"steps\": [{\"addField\": {\"config\": {\"value\": \"value1\", \"path\": \"field1\"}}}]}";
+    private static final String OTHER_CONFIG = "steps: [{ addField: { config: { path: field2, value: value2 } } }]";
+
+    private PipelineRegistry pipelineRegistry;
+
+    @Before
+    public void init() {
+        pipelineRegistry = new PipelineRegistry(new Pipeline.Factory());
+    }
+
+    @Test
+    public void testEquivalentConfigsShareSteps() {
+        Pipeline pipeline1 = pipelineRegistry.register("tenant1", CONFIG);
+        Pipeline pipeline2 = pipelineRegistry.register("tenant2", EQUIVALENT_CONFIG);
+        Pipeline pipeline3 = pipelineRegistry.register("tenant3", OTHER_CONFIG);
+
+        assertThat(pipeline1.getId()).isEqualTo("tenant1");
+        assertThat(pipeline2.getId()).isEqualTo("tenant2");
+        assertThat(pipeline2.getExecutionSteps()).isSameAs(pipeline1.getExecutionSteps());
+        assertThat(pipeline3.getExecutionSteps()).isNotSameAs(pipeline1.getExecutionSteps());
+        assertThat(pipelineRegistry.size()).isEqualTo(3);
+        assertThat(pipelineRegistry.distinctSize()).isEqualTo(2);
+        assertThat(pipelineRegistry.get("tenant2")).containsSame(pipeline2);
+    }
+
+    @Test
+    public void testReplaceIncrementsVersion() {
+        Pipeline pipeline = pipelineRegistry.register("tenant1", CONFIG);
+        assertThat(pipelineRegistry.getVersion("tenant1")).hasValue(1);
+
+        assertThat(pipelineRegistry.register("tenant1", CONFIG)).isSameAs(pipeline);
+        assertThat(pipelineRegistry.getVersion("tenant1")).hasValue(2);
+
+        Pipeline replaced = pipelineRegistry.register("tenant1", OTHER_CONFIG);
+        assertThat(replaced).isNotSameAs(pipeline);
+        assertThat(pipelineRegistry.get("tenant1")).containsSame(replaced);
+        assertThat(pipelineRegistry.getVersion("tenant1")).hasValue(3);
+    }
+
+    @Test
+    public void testStaleVersionIsIgnored() {
+        Pipeline pipeline = pipelineRegistry.register("tenant1", CONFIG, 5);
+
+        assertThat(pipelineRegistry.register("tenant1", OTHER_CONFIG, 4)).isSameAs(pipeline);
+        assertThat(pipelineRegistry.register("tenant1", OTHER_CONFIG, 5)).isSameAs(pipeline);
+        assertThat(pipelineRegistry.getVersion("tenant1")).hasValue(5);
+
+        Pipeline replaced = pipelineRegistry.register("tenant1", OTHER_CONFIG, 6);
+        assertThat(replaced).isNotSameAs(pipeline);
+        assertThat(pipelineRegistry.getVersion("tenant1")).hasValue(6);
+    }
+
+    @Test
+    public void testInvalidConfigKeepsCurrentPipeline() {
+        Pipeline pipeline = pipelineRegistry.register("tenant1", CONFIG);
+
+        assertThatThrownBy(() -> pipelineRegistry.register("tenant1", "steps: [{ addField: { config: {} } }]"))
+                .isInstanceOf(NullPointerException.class);
+        assertThat(pipelineRegistry.get("tenant1")).containsSame(pipeline);
+    }
+
+    @Test
+    public void testRemove() {
+        pipelineRegistry.register("tenant1", CONFIG);
+        pipelineRegistry.remove("tenant1");
+
+        assertThat(pipelineRegistry.get("tenant1")).isEmpty();
+        assertThat(pipelineRegistry.getVersion("tenant1")).isEmpty();
+        assertThat(pipelineRegistry.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void testIdleIdsAreRemoved() {
+        AtomicLong nanos = new AtomicLong();
+        Ticker ticker = new Ticker() {
+            @Override
+            public long read() {
+                return nanos.get();
+            }
+        };
+        pipelineRegistry = new PipelineRegistry(new Pipeline.Factory(), Duration.ofMinutes(10), ticker);
+
+        pipelineRegistry.register("tenant1", CONFIG);
+        pipelineRegistry.register("tenant2", CONFIG);
+
+        nanos.addAndGet(TimeUnit.MINUTES.toNanos(6));
+        assertThat(pipelineRegistry.get("tenant1")).isPresent();
+
+        nanos.addAndGet(TimeUnit.MINUTES.toNanos(6));
+        assertThat(pipelineRegistry.get("tenant1")).isPresent();
+        assertThat(pipelineRegistry.get("tenant2")).isEmpty();
+    }
+}
@@ -73,6 +73,24 @@ public class PipelineTest {
         assertThat(executionStep.getOnFailureExecutionSteps().get().size()).isEqualTo(1);
     }
 
+    @Test
+    public void testFactoryCreationKeepsFusibleSteps() {
+        String configJson = createJson(createMap(
+                "steps", createList(
+                        createMap("removeField", createMap("name", "remove1", "config", createMap("path", "field1"))),
+                        createMap("removeField", createMap("name", "remove2", "config", createMap("path", "field2")))
+                )
+        ));
+
+        Pipeline pipeline = factory.create(configJson);
+
+        assertThat(pipeline.getExecutionSteps().size()).isEqualTo(2);
+        assertThat(((ProcessorExecutionStep) pipeline.getExecutionSteps().get(0)).getProcessorName()).isEqualTo("[removeField1]remove1");
+        assertThat(((ProcessorExecutionStep) pipeline.getExecutionSteps().get(1)).getProcessorName()).isEqualTo("[removeField2]remove2");
+        assertThat(pipeline.getExecutionPlan().getInstructions().length).isEqualTo(1);
+        assertThat(pipeline.getExecutionPlan().getInstructions()[0].processor).isInstanceOf(FusedProcessor.class);
+    }
+
     @Test
     public void testFactoryCreationHoconWithoutId() {
         String configHocon =
@@ -135,6 +153,14 @@ public class PipelineTest {
         assertThat(conditionalExecutionStep.getOnFalse().size()).isEqualTo(0);
     }
 
+    @Test
+    public void testCompiledFactory() {
+        String configHocon = "steps: [{ test: { config.value: message } }]";
+
+        assertThat(factory.create("abc", configHocon).isCompiled()).isFalse();
+        assertThat(factory.compiled().create("abc", configHocon).isCompiled()).isTrue();
+    }
+
     @Test
     public void testConditionalElse() {
         String pipelineString = "{" +
@@ -0,0 +1,85 @@
+package io.logz.sawmill;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static io.logz.sawmill.TimingSampling.NOT_SAMPLED;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TimingSamplingTest {
+    private final Pipeline pipeline = new Pipeline("abc",
+            Collections.singletonList(new ProcessorExecutionStep("success1", doc -> ProcessResult.success())), false);
+
+    @Test
+    public void testAll() {
+        TimingSampling timingSampling = TimingSampling.all();
+        for (int i = 0; i < 100; i++) {
+            assertThat(timingSampling.sample(pipeline)).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void testOneIn() {
+        TimingSampling timingSampling = TimingSampling.oneIn(4);
+
+        long executions = 0;
+        for (int i = 0; i < 100_000; i++) {
+            long weight = timingSampling.sample(pipeline);
+            assertThat(weight).isIn(NOT_SAMPLED, 4L);
+            executions += weight;
+        }
+        assertThat(executions).isBetween(90_000L, 110_000L);
+    }
+
+    @Test
+    public void testPerSecond() {
+        AtomicLong clock = new AtomicLong();
+        TimingSampling timingSampling = TimingSampling.perSecond(2, clock::get);
+
+        assertWeights(timingSampling, 1, 1, NOT_SAMPLED, NOT_SAMPLED, NOT_SAMPLED, NOT_SAMPLED);
+
+        clock.set(1000);
+        assertWeights(timingSampling, 3, 3, NOT_SAMPLED, NOT_SAMPLED, NOT_SAMPLED);
+
+        clock.set(2000);
+        assertWeights(timingSampling, 3, 2, NOT_SAMPLED);
+
+        clock.set(4000);
+        assertWeights(timingSampling, 1, 1, NOT_SAMPLED);
+    }
+
+    @Test
+    public void testPerSecondWeightsAddUpToExecutions() {
+        AtomicLong clock = new AtomicLong();
+        TimingSampling timingSampling = TimingSampling.perSecond(100, clock::get);
+        for (int i = 0; i < 199; i++) {
+            timingSampling.sample(pipeline);
+        }
+
+        clock.set(1000);
+        long executions = 0;
+        for (int i = 0; i < 199; i++) {
+            executions += timingSampling.sample(pipeline);
+        }
+        assertThat(executions).isEqualTo(199);
+    }
+
+    @Test
+    public void testPerSecondIsPerPipeline() {
+        TimingSampling timingSampling = TimingSampling.perSecond(1, () -> 0L);
+        Pipeline otherPipeline = new Pipeline("def",
+                Collections.singletonList(new ProcessorExecutionStep("success1", doc -> ProcessResult.success())), false);
+
+        assertThat(timingSampling.sample(pipeline)).isEqualTo(1);
+        assertThat(timingSampling.sample(pipeline)).isEqualTo(NOT_SAMPLED);
+        assertThat(timingSampling.sample(otherPipeline)).isEqualTo(1);
+    }
+
+    private void assertWeights(TimingSampling timingSampling, long... weights) {
+        for (long weight : weights) {
+            assertThat(timingSampling.sample(pipeline)).isEqualTo(weight);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package io.logz.sawmill.conditions;
+
+import io.logz.sawmill.Condition;
+import io.logz.sawmill.Doc;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static io.logz.sawmill.utils.DocUtils.createDoc;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AdaptiveConditionsTest {
+    private static final int REORDER_PERIOD = 100;
+
+    @Test
+    public void testCheapConditionMovesFirst() {
+        Condition expensive = createSlowCondition(true);
+        Condition cheap = doc -> false;
+        AdaptiveConditions conditions = new AdaptiveConditions(Arrays.asList(expensive, cheap), false, 1, REORDER_PERIOD);
+
+        Doc doc = createDoc("field1", "value1");
+        for (int i = 0; i < REORDER_PERIOD; i++) {
+            assertThat(conditions.anyDecisive(doc)).isTrue();
+        }
+
+        assertThat(conditions.getConditions()).containsExactly(cheap, expensive);
+        assertThat(conditions.anyDecisive(doc)).isTrue();
+    }
+
+    @Test
+    public void testDecisiveConditionMovesFirst() {
+        Condition rarelyTrue = doc -> doc.hasField("rare");
+        Condition usuallyTrue = doc -> doc.hasField("field1");
+        AdaptiveConditions conditions = new AdaptiveConditions(Arrays.asList(rarelyTrue, usuallyTrue), true, 1, REORDER_PERIOD);
+
+        Doc doc = createDoc("field1", "value1");
+        for (int i = 0; i < REORDER_PERIOD; i++) {
+            assertThat(conditions.anyDecisive(doc)).isTrue();
+        }
+
+        assertThat(conditions.getConditions()).containsExactly(usuallyTrue, rarelyTrue);
+    }
+
+    @Test
+    public void testOptimalDeclarationOrderIsKept() {
+        Condition usuallyFalse = doc -> doc.hasField("rare");
+        Condition expensive = createSlowCondition(true);
+        AdaptiveConditions conditions = new AdaptiveConditions(Arrays.asList(usuallyFalse, expensive), false, 1, REORDER_PERIOD);
+
+        Doc doc = createDoc("field1", "value1");
+        for (int period = 0; period < 20; period++) {
+            for (int i = 0; i < REORDER_PERIOD; i++) {
+                assertThat(conditions.anyDecisive(doc)).isTrue();
+            }
+            assertThat(conditions.getConditions()).containsExactly(usuallyFalse, expensive);
+        }
+    }
+
+    @Test
+    public void testKeepDeclarationOrderUntilReorderPeriod() {
+        Condition expensive = createSlowCondition(true);
+        Condition cheap = doc -> false;
+        AdaptiveConditions conditions = new AdaptiveConditions(Arrays.asList(expensive, cheap), false, 1, REORDER_PERIOD);
+
+        Doc doc = createDoc("field1", "value1");
+        for (int i = 0; i < REORDER_PERIOD - 1; i++) {
+            conditions.anyDecisive(doc);
+        }
+
+        assertThat(conditions.getConditions()).containsExactly(expensive, cheap);
+    }
+
+    @Test
+    public void testReorderedAndConditionResult() {
+        AndCondition andCondition = new AndCondition(Arrays.asList(createSlowCondition(true), doc -> doc.hasField("field2")));
+
+        for (int i = 0; i < 1000; i++) {
+            assertThat(andCondition.evaluate(createDoc("field1", "value1"))).isFalse();
+        }
+        assertThat(andCondition.evaluate(createDoc("field2", "value2"))).isTrue();
+    }
+
+    private Condition createSlowCondition(boolean result) {
+        return doc -> {
+            long deadline = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(50);
+            while (System.nanoTime() < deadline) {
+                // busy wait, conditions cannot sleep
+            }
+            return result;
+        };
+    }
+}
@@ -0,0 +1,219 @@
+package io.logz.sawmill.flow;
+
+import io.logz.sawmill.Doc;
+import io.logz.sawmill.Pipeline;
+import io.logz.sawmill.PipelineExecutor;
+import io.logz.sawmill.ProcessResult;
+import io.logz.sawmill.ProcessorExecutionStep;
+import io.logz.sawmill.exceptions.PipelineExecutionException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static io.logz.sawmill.utils.DocUtils.createDoc;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PipelineFlowProcessorTest {
+    private PipelineExecutor pipelineExecutor;
+    private ExecutorService executorService;
+
+    @Before
+    public void init() {
+        pipelineExecutor = new PipelineExecutor();
+        executorService = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void close() {
+        executorService.shutdownNow();
+        pipelineExecutor.close();
+    }
+
+    @Test
+    public void testOrderedWithDroppedDocs() throws InterruptedException {
+        Pipeline pipeline = createPipeline((Doc doc) -> {
+            int index = doc.getField("index");
+            return index % 2 == 0 ? ProcessResult.drop() : ProcessResult.success();
+        });
+        ListPublisher publisher = new ListPublisher(createDocs(200));
+        PipelineFlowProcessor flowProcessor = new PipelineFlowProcessor(pipelineExecutor, pipeline, executorService, 4, 16, true);
+        TestSubscriber subscriber = new TestSubscriber();
+
+        publisher.subscribe(flowProcessor);
+        flowProcessor.subscribe(subscriber);
+        subscriber.request(100);
+
+        assertThat(subscriber.awaitTermination()).isTrue();
+        assertThat(subscriber.error).isNull();
+        assertThat(subscriber.indexes()).isEqualTo(IntStream.range(0, 200).filter(i -> i % 2 == 1).boxed().collect(Collectors.toList()));
+        assertThat(publisher.maxOutstanding.get()).isLessThanOrEqualTo(16);
+    }
+
+    @Test
+    public void testUnordered() throws InterruptedException {
+        Pipeline pipeline = createPipeline((Doc doc) -> ProcessResult.success());
+        ListPublisher publisher = new ListPublisher(createDocs(100));
+        PipelineFlowProcessor flowProcessor = new PipelineFlowProcessor(pipelineExecutor, pipeline, executorService, 4, 8, false);
+        TestSubscriber subscriber = new TestSubscriber();
+
+        publisher.subscribe(flowProcessor);
+        flowProcessor.subscribe(subscriber);
+        subscriber.request(Long.MAX_VALUE);
+
+        assertThat(subscriber.awaitTermination()).isTrue();
+        assertThat(subscriber.indexes().stream().sorted().collect(Collectors.toList()))
+                .isEqualTo(IntStream.range(0, 100).boxed().collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testBackpressure() throws InterruptedException {
+        Pipeline pipeline = createPipeline((Doc doc) -> ProcessResult.success());
+        ListPublisher publisher = new ListPublisher(createDocs(100));
+        PipelineFlowProcessor flowProcessor = new PipelineFlowProcessor(pipelineExecutor, pipeline, executorService, 2, 8, true);
+        TestSubscriber subscriber = new TestSubscriber();
+
+        publisher.subscribe(flowProcessor);
+        flowProcessor.subscribe(subscriber);
+        subscriber.request(3);
+        Thread.sleep(200);
+
+        assertThat(subscriber.received).hasSize(3);
+        assertThat(publisher.emitted.get()).isEqualTo(11);
+
+        subscriber.request(Long.MAX_VALUE);
+        assertThat(subscriber.awaitTermination()).isTrue();
+        assertThat(subscriber.received).hasSize(100);
+    }
+
+    @Test
+    public void testUnexpectedFailureCancelsUpstream() throws InterruptedException {
+        Pipeline pipeline = createPipeline((Doc doc) -> {
+            int index = doc.getField("index");
+            if (index == 5) throw new RuntimeException("test failure");
+            return ProcessResult.success();
+        });
+        ListPublisher publisher = new ListPublisher(createDocs(100));
+        PipelineFlowProcessor flowProcessor = new PipelineFlowProcessor(pipelineExecutor, pipeline, executorService, 4);
+        TestSubscriber subscriber = new TestSubscriber();
+
+        publisher.subscribe(flowProcessor);
+        flowProcessor.subscribe(subscriber);
+        subscriber.request(Long.MAX_VALUE);
+
+        assertThat(subscriber.awaitTermination()).isTrue();
+        assertThat(subscriber.error).isInstanceOf(PipelineExecutionException.class);
+        assertThat(subscriber.indexes()).isEqualTo(IntStream.range(0, 5).boxed().collect(Collectors.toList()));
+        assertThat(publisher.cancelled).isTrue();
+    }
+
+    private List<Doc> createDocs(int amount) {
+        return IntStream.range(0, amount)
+                .mapToObj(i -> createDoc("index", i, "message", "hola"))
+                .collect(Collectors.toList());
+    }
+
+    private Pipeline createPipeline(io.logz.sawmill.Processor processor) {
+        return new Pipeline("abc", Collections.singletonList(new ProcessorExecutionStep("test1", processor)), false);
+    }
+
+    private static class ListPublisher implements Flow.Publisher<Doc> {
+        private final List<Doc> docs;
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private final AtomicInteger emitted = new AtomicInteger();
+        private final AtomicLong maxOutstanding = new AtomicLong();
+        private volatile boolean cancelled;
+
+        private ListPublisher(List<Doc> docs) {
+            this.docs = docs;
+        }
+
+        @Override
+        public void subscribe(Flow.Subscriber<? super Doc> subscriber) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                    long outstanding = requested.addAndGet(n);
+                    maxOutstanding.accumulateAndGet(outstanding, Math::max);
+                    emit(subscriber);
+                }
+
+                @Override
+                public void cancel() {
+                    cancelled = true;
+                }
+            });
+        }
+
+        private void emit(Flow.Subscriber<? super Doc> subscriber) {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+
+            int missed = 1;
+            do {
+                while (!cancelled && requested.get() > 0 && emitted.get() < docs.size()) {
+                    requested.decrementAndGet();
+                    subscriber.onNext(docs.get(emitted.getAndIncrement()));
+                }
+                if (!cancelled && emitted.get() == docs.size()) {
+                    cancelled = true;
+                    subscriber.onComplete();
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+    }
+
+    private static class TestSubscriber implements Flow.Subscriber<ProcessedDoc> {
+        private final List<ProcessedDoc> received = new CopyOnWriteArrayList<>();
+        private final CountDownLatch terminated = new CountDownLatch(1);
+        private volatile Flow.Subscription subscription;
+        private volatile Throwable error;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(ProcessedDoc item) {
+            received.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            terminated.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            terminated.countDown();
+        }
+
+        private void request(long n) {
+            subscription.request(n);
+        }
+
+        private boolean awaitTermination() throws InterruptedException {
+            return terminated.await(10, TimeUnit.SECONDS);
+        }
+
+        private List<Integer> indexes() {
+            return received.stream().map(processedDoc -> (Integer) processedDoc.getDoc().getField("index")).collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package io.logz.sawmill.processors;
+
+import io.logz.sawmill.ExpressionStatistics;
+import io.logz.sawmill.utilities.Grok;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AdaptiveGroksTest {
+    private static final int REORDER_PERIOD = 100;
+    private static final String WORD_THEN_NUMBER = "%{WORD:word} %{NUMBER:number}";
+    private static final String NUMBER_THEN_WORD = "%{NUMBER:number} %{WORD:word}";
+    private static final String ANYTHING = "%{GREEDYDATA:message}";
+    private static final Grok.CaptureConsumer NO_OP = (name, path, value) -> { };
+
+    @Test
+    public void testMatchingExpressionMovesFirst() throws InterruptedException {
+        AdaptiveGroks groks = createAdaptiveGroks(false, WORD_THEN_NUMBER, NUMBER_THEN_WORD);
+
+        for (int i = 0; i < REORDER_PERIOD; i++) {
+            assertThat(matchedNames(groks, "80 http")).containsExactly("number", "word");
+        }
+
+        assertThat(groks.getExpressions()).containsExactly(NUMBER_THEN_WORD, WORD_THEN_NUMBER);
+        assertThat(matchedNames(groks, "http 80")).containsExactly("word", "number");
+    }
+
+    @Test
+    public void testOptimalDeclarationOrderIsKept() throws InterruptedException {
+        AdaptiveGroks groks = createAdaptiveGroks(false, WORD_THEN_NUMBER, NUMBER_THEN_WORD);
+
+        for (int period = 0; period < 20; period++) {
+            for (int i = 0; i < REORDER_PERIOD; i++) {
+                assertThat(matchedNames(groks, "http 80")).containsExactly("word", "number");
+            }
+            assertThat(groks.getExpressions()).containsExactly(WORD_THEN_NUMBER, NUMBER_THEN_WORD);
+        }
+    }
+
+    @Test
+    public void testKeepDeclarationOrderWithoutReordering() throws InterruptedException {
+        List<String> expressions = Arrays.asList(WORD_THEN_NUMBER, NUMBER_THEN_WORD);
+        AdaptiveGroks groks = new AdaptiveGroks(expressions, createGroks(expressions), false, false, 1, REORDER_PERIOD);
+
+        for (int i = 0; i < REORDER_PERIOD; i++) {
+            groks.matches("80 http", NO_OP);
+        }
+
+        assertThat(groks.getExpressions()).containsExactly(WORD_THEN_NUMBER, NUMBER_THEN_WORD);
+    }
+
+    @Test
+    public void testOverlappingExpressionMovesFirst() throws InterruptedException {
+        AdaptiveGroks groks = createAdaptiveGroks(false, NUMBER_THEN_WORD, ANYTHING);
+
+        groks.matches("80 http", NO_OP);
+        for (int i = 0; i < REORDER_PERIOD; i++) {
+            groks.matches("http", NO_OP);
+        }
+
+        assertThat(groks.getExpressions()).containsExactly(ANYTHING, NUMBER_THEN_WORD);
+        assertThat(matchedNames(groks, "80 http")).containsExactly("message");
+    }
+
+    @Test
+    public void testKeepFirstMatchOfOverlappingExpressions() throws InterruptedException {
+        AdaptiveGroks groks = createAdaptiveGroks(true, NUMBER_THEN_WORD, ANYTHING);
+
+        groks.matches("80 http", NO_OP);
+        for (int i = 0; i < REORDER_PERIOD; i++) {
+            groks.matches("http", NO_OP);
+        }
+
+        assertThat(groks.getExpressions()).containsExactly(NUMBER_THEN_WORD, ANYTHING);
+        assertThat(matchedNames(groks, "80 http")).containsExactly("number", "word");
+    }
+
+    @Test
+    public void testKeepFirstMatchReordersDisjointExpressions() throws InterruptedException {
+        AdaptiveGroks groks = createAdaptiveGroks(true, WORD_THEN_NUMBER, NUMBER_THEN_WORD);
+
+        for (int i = 0; i < REORDER_PERIOD; i++) {
+            groks.matches("80 http", NO_OP);
+        }
+
+        assertThat(groks.getExpressions()).containsExactly(NUMBER_THEN_WORD, WORD_THEN_NUMBER);
+    }
+
+    @Test
+    public void testStatistics() throws InterruptedException {
+        AdaptiveGroks groks = createAdaptiveGroks(false, WORD_THEN_NUMBER, NUMBER_THEN_WORD);
+
+        groks.matches("http 80", NO_OP);
+        groks.matches("80 http", NO_OP);
+        groks.matches("http", NO_OP);
+
+        List<ExpressionStatistics> statistics = groks.getStatistics();
+        assertThat(statistics).extracting(ExpressionStatistics::getExpression).containsExactly(WORD_THEN_NUMBER, NUMBER_THEN_WORD);
+        assertThat(statistics).extracting(ExpressionStatistics::getAttempts).containsExactly(3L, 2L);
+        assertThat(statistics).extracting(ExpressionStatistics::getMatches).containsExactly(1L, 1L);
+        assertThat(statistics.get(0).getAvgMatchTimeNs()).isPositive();
+        assertThat(statistics.get(0).getAvgMissTimeNs()).isPositive();
+    }
+
+    private AdaptiveGroks createAdaptiveGroks(boolean keepFirstMatch, String... expressions) {
+        List<String> expressionsList = Arrays.asList(expressions);
+        return new AdaptiveGroks(expressionsList, createGroks(expressionsList), true, keepFirstMatch, 1, REORDER_PERIOD);
+    }
+
+    private List<Grok> createGroks(List<String> expressions) {
+        Map<String, String> bank = new HashMap<>();
+        bank.put("WORD", "\\b\\w+\\b");
+        bank.put("NUMBER", "[0-9]+");
+        bank.put("GREEDYDATA", ".*");
+        return expressions.stream().map(expression -> new Grok(bank, expression)).collect(Collectors.toList());
+    }
+
+    private List<String> matchedNames(AdaptiveGroks groks, String value) throws InterruptedException {
+        List<String> names = new ArrayList<>();
+        groks.matches(value, (name, path, matchValue) -> names.add(name));
+        return names;
+    }
+}
@@ -6,6 +6,8 @@ import io.logz.sawmill.ProcessResult;
 import io.logz.sawmill.utilities.JsonUtils;
 import org.junit.Test;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -42,16 +44,40 @@ public class DocSizeProcessorTest {
 
     @Test
     public void differentLangTest(){
-        String s = "こんにちは世界!";
+        String s = "\u3053\u3093\u306b\u3061\u306f\u4e16\u754c!";
         Doc doc = createDoc("testField", s);
-        Map<String, Object> origMap = new HashMap<>(doc.getSource());
 
         DocSizeProcessor sizeProcessor = createProcessor(DocSizeProcessor.class);
         ProcessResult processResult = sizeProcessor.process(doc);
 
         assertThat(processResult.isSucceeded()).isTrue();
         assertThat(doc.hasField("docSize")).isTrue();
+        assertThat((int) doc.getField("docSize")).isEqualTo(Utf8.encodedLength("{\"testField\":\"" + s + "\"}"));
+    }
+
+    @Test
+    public void testNestedFields(){
+        Doc doc = createDoc("testField", "value\twith \"escapes\"",
+                "object", JsonUtils.createMap("list", Arrays.asList(1, 2.5, true), "empty", null, "long", Long.MAX_VALUE));
+        Map<String, Object> origMap = new HashMap<>(doc.getSource());
+
+        DocSizeProcessor sizeProcessor = createProcessor(DocSizeProcessor.class);
+        ProcessResult processResult = sizeProcessor.process(doc);
+
+        assertThat(processResult.isSucceeded()).isTrue();
         assertThat((int) doc.getField("docSize")).isEqualTo(Utf8.encodedLength(JsonUtils.toJsonString(origMap)));
     }
 
+    @Test
+    public void testDocFromJson(){
+        String json = "{\"testField\" : \"value\", \"object\":{\"nested\":\"\u00e9\"}}";
+        Doc doc = Doc.fromJson(json.getBytes(StandardCharsets.UTF_8));
+
+        DocSizeProcessor sizeProcessor = createProcessor(DocSizeProcessor.class);
+        ProcessResult processResult = sizeProcessor.process(doc);
+
+        assertThat(processResult.isSucceeded()).isTrue();
+        assertThat((int) doc.getField("docSize")).isEqualTo(json.getBytes(StandardCharsets.UTF_8).length);
+    }
+
 }
@@ -2,6 +2,7 @@ package io.logz.sawmill.processors;
 
 import io.logz.sawmill.Doc;
 import io.logz.sawmill.ProcessResult;
+import io.logz.sawmill.exceptions.ProcessorConfigurationException;
 import io.logz.sawmill.utilities.JsonUtils;
 import org.junit.Test;
 
@@ -126,6 +127,98 @@ public class JsonProcessorTest {
         assertThat(doc.hasField(field)).isTrue();
     }
 
+    @Test
+    public void testStreaming() {
+        String field = "message";
+        String targetField = "json";
+
+        Map jsonMap = JsonUtils.fromJsonString(Map.class, VALID_JSON);
+
+        Doc doc = createDoc(field, VALID_JSON);
+
+        JsonProcessor jsonProcessor = createProcessor(JsonProcessor.class, createConfig("field", field,
+                "targetField", targetField,
+                "streaming", true));
+
+        ProcessResult processResult = jsonProcessor.process(doc);
+
+        assertThat(processResult.isSucceeded()).isTrue();
+        assertThat((Map) doc.getField(targetField)).isEqualTo(jsonMap);
+    }
+
+    @Test
+    public void testStreamingIncludeAndExcludeKeys() {
+        String field = "message";
+
+        Doc doc = createDoc(field, VALID_JSON);
+
+        JsonProcessor jsonProcessor = createProcessor(JsonProcessor.class, createConfig("field", field,
+                "streaming", true,
+                "includeKeys", Arrays.asList("field1", "map1", "list1"),
+                "excludeKeys", Arrays.asList("list1")));
+
+        ProcessResult processResult = jsonProcessor.process(doc);
+
+        assertThat(processResult.isSucceeded()).isTrue();
+        assertThat((String) doc.getField("field1")).isEqualTo("value");
+        assertThat((Integer) doc.getField("map1.field2")).isEqualTo(10);
+        assertThat(doc.hasField("list1")).isFalse();
+        assertThat(doc.hasField("field2")).isFalse();
+    }
+
+    @Test
+    public void testStreamingMaxDepth() {
+        String field = "message";
+        String targetField = "json";
+
+        Doc doc = createDoc(field, "{\"a\":1,\"b\":{\"c\":2,\"d\":{\"e\":3},\"f\":[4,[5]]}}");
+
+        JsonProcessor jsonProcessor = createProcessor(JsonProcessor.class, createConfig("field", field,
+                "targetField", targetField,
+                "streaming", true,
+                "maxDepth", 3));
+
+        ProcessResult processResult = jsonProcessor.process(doc);
+
+        assertThat(processResult.isSucceeded()).isTrue();
+        assertThat((Map) doc.getField(targetField)).isEqualTo(JsonUtils.fromJsonString(Map.class, "{\"a\":1,\"b\":{\"c\":2,\"d\":{\"e\":3},\"f\":[4]}}"));
+    }
+
+    @Test
+    public void testStreamingMaxFields() {
+        String field = "message";
+        String targetField = "json";
+
+        Doc doc = createDoc(field, "{\"a\":1,\"b\":{\"c\":2,\"d\":3},\"e\":4,\"f\": malformed after the limit");
+
+        JsonProcessor jsonProcessor = createProcessor(JsonProcessor.class, createConfig("field", field,
+                "targetField", targetField,
+                "streaming", true,
+                "maxFields", 3));
+
+        ProcessResult processResult = jsonProcessor.process(doc);
+
+        assertThat(processResult.isSucceeded()).isTrue();
+        assertThat((Map) doc.getField(targetField)).isEqualTo(JsonUtils.fromJsonString(Map.class, "{\"a\":1,\"b\":{\"c\":2}}"));
+    }
+
+    @Test
+    public void testStreamingParseFailure() {
+        String field = "message";
+
+        for (String json : Arrays.asList(INVALID_JSON, "{\"a\":1", "[1,2]", "null", "plain text")) {
+            Doc doc = createDoc(field, json);
+
+            JsonProcessor jsonProcessor = createProcessor(JsonProcessor.class, createConfig("field", field, "streaming", true));
+
+            ProcessResult processResult = jsonProcessor.process(doc);
+
+            assertThat(processResult.isSucceeded()).isFalse();
+            assertThat((List) doc.getField("tags")).isEqualTo(Arrays.asList("_jsonparsefailure"));
+            assertThat(doc.getSource()).hasSize(2);
+        }
+    }
+
     @Test
     public void testFieldNotExists() {
         String fieldNotExists = "fieldNotExists";
@@ -142,5 +235,7 @@ public class JsonProcessorTest {
     @Test
     public void testBadConfigs() {
         assertThatThrownBy(() -> createProcessor(JsonProcessor.class)).isInstanceOf(NullPointerException.class);
+        assertThatThrownBy(() -> createProcessor(JsonProcessor.class, "field", "message", "maxDepth", 2)).isInstanceOf(ProcessorConfigurationException.class);
+        assertThatThrownBy(() -> createProcessor(JsonProcessor.class, "field", "message", "streaming", true, "maxFields", -1)).isInstanceOf(ProcessorConfigurationException.class);
     }
 }
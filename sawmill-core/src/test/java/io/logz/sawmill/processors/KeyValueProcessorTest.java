@@ -251,6 +251,64 @@ public class KeyValueProcessorTest {
         assertThat(doc.hasField("complex")).isFalse();
     }
 
+    @Test
+    public void testExcludeKeysOnlyOfTopLevel() throws InterruptedException {
+        String field = "message";
+
+        Doc doc = createDoc(field, getDefaultMessage());
+
+        Map<String,Object> config = createConfig("field", field,
+                "recursive", true,
+                "excludeKeys", Arrays.asList("simple", "innerKey"));
+
+        KeyValueProcessor kvProcessor = createProcessor(KeyValueProcessor.class, config);
+
+        ProcessResult processResult = kvProcessor.process(doc);
+
+        assertThat(processResult.isSucceeded()).isTrue();
+        assertThat(doc.hasField("simple")).isFalse();
+        assertThat(doc.hasField("innerKey")).isFalse();
+        Map<String, Object> complexField = doc.getField("complex");
+        assertThat(complexField.get("innerKey")).isEqualTo("innerValue");
+    }
+
+    @Test
+    public void testEscapedSpacesAndSpacesAroundValueSplit() throws InterruptedException {
+        String field = "message";
+        Doc doc = createDoc(field, "first\\ key =  first\\ value second=\"\" third= 'quoted' =orphan");
+
+        Map<String,Object> config = createConfig("field", field);
+
+        KeyValueProcessor kvProcessor = createProcessor(KeyValueProcessor.class, config);
+
+        ProcessResult processResult = kvProcessor.process(doc);
+
+        assertThat(processResult.isSucceeded()).isTrue();
+        assertThat((String) doc.getField("first\\ key")).isEqualTo("first\\ value");
+        assertThat((String) doc.getField("second")).isEqualTo("\"\"");
+        assertThat((String) doc.getField("third")).isEqualTo("quoted");
+        assertThat(doc.getSource()).hasSize(4);
+    }
+
+    @Test
+    public void testValueSplitIncludingSpace() throws InterruptedException {
+        String field = "message";
+        Doc doc = createDoc(field, "first second,third:fourth,fifth : sixth");
+
+        Map<String,Object> config = createConfig("field", field,
+                "fieldSplit", ",",
+                "valueSplit", " :");
+
+        KeyValueProcessor kvProcessor = createProcessor(KeyValueProcessor.class, config);
+
+        ProcessResult processResult = kvProcessor.process(doc);
+
+        assertThat(processResult.isSucceeded()).isTrue();
+        assertThat((String) doc.getField("first")).isEqualTo("second");
+        assertThat((String) doc.getField("third")).isEqualTo("fourth");
+        assertThat((String) doc.getField("fifth")).isEqualTo("sixth");
+    }
+
     @Test
     public void testValueAsList() throws InterruptedException {
         String field = "message";
@@ -63,6 +63,22 @@ public class RenameFieldProcessorTest {
         assertThat((String)doc.getField("field-c")).isEqualTo("value-of-c");
     }
 
+    @Test
+    public void testRenameWithTemplateOfFromInTo() {
+        Doc doc = createDoc("field-a", "value-of-a");
+
+        Map<String, Object> config = createConfig(
+                "from", "field-a",
+                "to", "{{field-a}}_old");
+
+        RenameFieldProcessor renameFieldProcessor = createProcessor(RenameFieldProcessor.class, config);
+
+        assertThat(renameFieldProcessor.process(doc).isSucceeded()).isTrue();
+
+        assertThat((String)doc.getField("value-of-a_old")).isEqualTo("value-of-a");
+        assertThat(doc.hasField("field-a")).isFalse();
+    }
+
     @Test
     public void testRenameWithTemplateInTo() {
         Doc doc = createDoc("field-a", "field-b",
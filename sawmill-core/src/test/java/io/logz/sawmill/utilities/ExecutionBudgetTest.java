@@ -0,0 +1,69 @@
+package io.logz.sawmill.utilities;
+
+import org.junit.Test;
+import org.joni.Matcher;
+import org.joni.Option;
+import org.joni.Regex;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ExecutionBudgetTest {
+
+    @Test
+    public void testExceededJoniEvaluationIsInterrupted() {
+        byte[] pattern = "(a+)+$".getBytes(StandardCharsets.UTF_8);
+        Regex regex = new Regex(pattern, 0, pattern.length, Option.NONE);
+        byte[] text = pathologicalText().getBytes(StandardCharsets.UTF_8);
+
+        ExecutionBudget.Evaluation evaluation = ExecutionBudget.ofMillis(20).start();
+        int result;
+        try {
+            result = regex.matcher(text).search(0, text.length, Option.NONE);
+        } finally {
+            assertThat(evaluation.end()).isTrue();
+        }
+
+        assertThat(result).isEqualTo(Matcher.INTERRUPTED);
+        assertThat(Thread.currentThread().isInterrupted()).isFalse();
+    }
+
+    @Test
+    public void testInterruptDoesNotLeakOutOfEvaluation() throws InterruptedException {
+        ExecutionBudget.Evaluation evaluation = ExecutionBudget.ofMillis(5).start();
+        assertThat(evaluation.end()).isFalse();
+
+        Thread.sleep(50);
+
+        assertThat(Thread.currentThread().isInterrupted()).isFalse();
+        assertThat(evaluation.end()).isFalse();
+    }
+
+    @Test
+    public void testGuardedTextStopsJavaRegex() {
+        Pattern pattern = Pattern.compile("(.*a){12}b");
+        CharSequence guarded = ExecutionBudget.ofMillis(20).guard(pathologicalText());
+
+        assertThatThrownBy(() -> pattern.matcher(guarded).find()).isInstanceOf(ExecutionBudget.ExceededException.class);
+    }
+
+    @Test
+    public void testUnlimitedBudget() {
+        ExecutionBudget budget = ExecutionBudget.ofMillis(0);
+        String text = "text";
+
+        assertThat(budget).isSameAs(ExecutionBudget.UNLIMITED);
+        assertThat(budget.guard(text)).isSameAs(text);
+        assertThat(budget.start().end()).isFalse();
+    }
+
+    private String pathologicalText() {
+        char[] chars = new char[64];
+        Arrays.fill(chars, 'a');
+        return new String(chars) + "!";
+    }
+}
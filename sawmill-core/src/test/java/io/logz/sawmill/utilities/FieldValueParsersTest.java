@@ -0,0 +1,66 @@
+package io.logz.sawmill.utilities;
+
+import com.google.common.primitives.Doubles;
+import com.google.common.primitives.Longs;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FieldValueParsersTest {
+
+    private static final String[] NUMBERS = {
+            "", "-", "+", "0", "-0", "+1", "42", "007", "9223372036854775807", "9223372036854775808",
+            "-9223372036854775808", "-9223372036854775809", "1.", ".5", "-.5", ".", "1.5", "0.1", "1e5", "1E-5", "1e",
+            "1.5f", "2d", "NaN", "-Infinity", "0x1p3", " 1", "1 ", "1.2.3", "123456789012345", "1234567890123456",
+            "0.0000000000000000000001", "3.14159265358979", "12345.678901234567890"
+    };
+
+    @Test
+    public void testParseLongLikeGuava() {
+        for (String number : NUMBERS) {
+            assertThat(FieldValueParsers.parseLong(number)).as(number).isEqualTo(Longs.tryParse(number));
+            assertThat(parseLongFromBytes(number)).as(number).isEqualTo(Longs.tryParse(number));
+        }
+    }
+
+    @Test
+    public void testParseDoubleLikeGuava() {
+        for (String number : NUMBERS) {
+            assertThat(FieldValueParsers.parseDouble(number)).as(number).isEqualTo(Doubles.tryParse(number));
+            assertThat(parseDoubleFromBytes(number)).as(number).isEqualTo(Doubles.tryParse(number));
+        }
+    }
+
+    @Test
+    public void testParseBoolean() {
+        for (String word : new String[] {"t", "true", "yes", "y", "1"}) {
+            assertThat(FieldValueParsers.parseBoolean(word)).isTrue();
+            assertThat(parseBooleanFromBytes(word)).isTrue();
+        }
+        for (String word : new String[] {"f", "false", "no", "n", "0"}) {
+            assertThat(FieldValueParsers.parseBoolean(word)).isFalse();
+            assertThat(parseBooleanFromBytes(word)).isFalse();
+        }
+        for (String word : new String[] {"", "True", "yes ", "2", "nope", "falsy"}) {
+            assertThat(FieldValueParsers.parseBoolean(word)).isNull();
+            assertThat(parseBooleanFromBytes(word)).isNull();
+        }
+    }
+
+    private Long parseLongFromBytes(String text) {
+        byte[] bytes = ("<" + text + ">").getBytes(StandardCharsets.UTF_8);
+        return FieldValueParsers.parseLong(bytes, 1, bytes.length - 1);
+    }
+
+    private Double parseDoubleFromBytes(String text) {
+        byte[] bytes = ("<" + text + ">").getBytes(StandardCharsets.UTF_8);
+        return FieldValueParsers.parseDouble(bytes, 1, bytes.length - 1);
+    }
+
+    private Boolean parseBooleanFromBytes(String text) {
+        byte[] bytes = ("<" + text + ">").getBytes(StandardCharsets.UTF_8);
+        return FieldValueParsers.parseBoolean(bytes, 1, bytes.length - 1);
+    }
+}
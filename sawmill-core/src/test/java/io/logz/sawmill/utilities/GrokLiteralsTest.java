@@ -0,0 +1,40 @@
+package io.logz.sawmill.utilities;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GrokLiteralsTest {
+
+    @Test
+    public void testLiterals() {
+        assertThat(GrokLiterals.extract("user logged in")).containsExactly("user logged in");
+        assertThat(GrokLiterals.extract("abc\\.def\\d+ghi")).containsExactly("abc.def", "ghi");
+        assertThat(GrokLiterals.extract("[abc]{3}foo\\d{2}bar")).containsExactly("foo", "bar");
+        assertThat(GrokLiterals.extract("\\x41BCDE fgh")).containsExactly(" fgh");
+    }
+
+    @Test
+    public void testQuantifiedLiterals() {
+        assertThat(GrokLiterals.extract("abcd?efgh")).containsExactly("abc", "efgh");
+        assertThat(GrokLiterals.extract("abc+def")).containsExactly("abc", "def");
+        assertThat(GrokLiterals.extract("abcd{0,2}efgh")).containsExactly("abc", "efgh");
+        assertThat(GrokLiterals.extract("abcd{2}efgh")).containsExactly("abcd", "efgh");
+    }
+
+    @Test
+    public void testGroups() {
+        assertThat(GrokLiterals.extract("(?<name>hello) world(?:!!!)?")).containsExactly("hello", " world");
+        assertThat(GrokLiterals.extract("(?:foo|bar) bazz")).containsExactly(" bazz");
+        assertThat(GrokLiterals.extract("(?<!abc)def(?=ghi)")).containsExactly("def");
+        assertThat(GrokLiterals.extract("(?>(?:abc)+)")).containsExactly("abc");
+    }
+
+    @Test
+    public void testNoLiterals() {
+        assertThat(GrokLiterals.extract("foo|bar")).isEmpty();
+        assertThat(GrokLiterals.extract("(?i)hello")).isEmpty();
+        assertThat(GrokLiterals.extract("hello (?i:world)")).isEmpty();
+        assertThat(GrokLiterals.extract("a.b*c")).isEmpty();
+    }
+}
@@ -0,0 +1,42 @@
+package io.logz.sawmill.utilities;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GrokPrefilterTest {
+
+    @Test
+    public void testMayMatch() {
+        Map<String, String> bank = new HashMap<>();
+        bank.put("NUMBER", "[0-9]+");
+        bank.put("WORD", "\\w+");
+
+        GrokPrefilter grokPrefilter = new GrokPrefilter(Arrays.asList(
+                new Grok(bank, "action=%{WORD:action} src=%{NUMBER:src}"),
+                new Grok(bank, "DENY %{NUMBER:port}"),
+                new Grok(bank, "%{WORD:word}")
+        ));
+
+        assertThat(grokPrefilter.mayMatch("action=allow src=10")).containsExactly(true, false, true);
+        assertThat(grokPrefilter.mayMatch("DENY 80 action=deny src=10")).containsExactly(true, true, true);
+        assertThat(grokPrefilter.mayMatch("DENY 80")).containsExactly(false, true, true);
+    }
+
+    @Test
+    public void testWithoutLiterals() {
+        Map<String, String> bank = new HashMap<>();
+        bank.put("WORD", "\\w+");
+
+        GrokPrefilter grokPrefilter = new GrokPrefilter(Arrays.asList(
+                new Grok(bank, "%{WORD:first}"),
+                new Grok(bank, "%{WORD:first} %{WORD:second}")
+        ));
+
+        assertThat(grokPrefilter.mayMatch("hello")).containsExactly(true, true);
+    }
+}
@@ -0,0 +1,87 @@
+package io.logz.sawmill.utilities;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class GrokRegexCacheTest {
+
+    @Test
+    public void testGroksWithSameExpandedPatternShareRegex() {
+        Map<String, String> bank = new HashMap<>();
+        bank.put("DIGIT", "[0-9]");
+        bank.put("NUMBER", "%{DIGIT}+");
+        Map<String, String> otherBank = new HashMap<>(bank);
+        Map<String, String> expandedBank = new HashMap<>();
+        expandedBank.put("NUMBER", "(?:[0-9])+");
+
+        Grok grok = new Grok(bank, "%{NUMBER:num} %{NUMBER:num}");
+        Grok sameExpression = new Grok(otherBank, "%{NUMBER:num} %{NUMBER:num}");
+        Grok sameExpansion = new Grok(expandedBank, "%{NUMBER:num} %{NUMBER:num}");
+        Grok otherExpression = new Grok(bank, "%{NUMBER:num}");
+
+        assertThat(sameExpression.getCompiledExpression()).isSameAs(grok.getCompiledExpression());
+        assertThat(sameExpansion.getCompiledExpression()).isSameAs(grok.getCompiledExpression());
+        assertThat(otherExpression.getCompiledExpression()).isNotSameAs(grok.getCompiledExpression());
+    }
+
+    @Test
+    public void testExpressionIsExpandedOncePerBank() {
+        Map<String, String> bank = new HashMap<>();
+        bank.put("DIGIT", "[0-9]");
+        bank.put("NUMBER", "%{DIGIT}+");
+        Map<String, String> otherBank = new HashMap<>(bank);
+
+        new Grok(bank, "%{NUMBER:num}");
+
+        assertThat(GrokRegexCache.getExpansion(bank, "%{NUMBER:num}")).isEqualTo("(?<num>(?:[0-9])+)");
+        assertThat(GrokRegexCache.getExpansion(otherBank, "%{NUMBER:num}")).isNull();
+    }
+
+    @Test
+    public void testInlineRedefinitionIsNotCachedAndDropsExpansions() throws InterruptedException {
+        Map<String, String> bank = new HashMap<>();
+        bank.put("DIGIT", "[0-9]");
+        bank.put("NUMBER", "%{DIGIT}+");
+
+        assertThat(new Grok(bank, "%{NUMBER:num}").matches("12")).isNotNull();
+
+        new Grok(bank, "%{DIGIT:digit=[a-f]}");
+        assertThat(bank.get("DIGIT")).isEqualTo("[a-f]");
+        assertThat(GrokRegexCache.getExpansion(bank, "%{DIGIT:digit=[a-f]}")).isNull();
+
+        Grok redefined = new Grok(bank, "%{NUMBER:num}");
+        assertThat(redefined.matches("12")).isNull();
+        assertThat(redefined.matches("ab").get(0).getValues()).containsExactly("ab");
+
+        bank.put("DIGIT", "[0-9]");
+        new Grok(bank, "%{DIGIT:digit=[a-f]}");
+        assertThat(bank.get("DIGIT")).isEqualTo("[a-f]");
+    }
+
+    @Test
+    public void testReferencedPatternsAreExpandedOnce() throws InterruptedException {
+        Map<String, String> bank = new HashMap<>();
+        bank.put("DIGIT", "[0-9]");
+        bank.put("NUMBER", "%{DIGIT:digit}+");
+
+        Grok grok = new Grok(bank, "%{NUMBER:first}-%{NUMBER:second}");
+
+        assertThat(grok.matches("12-34")).extracting(Grok.Match::getName).containsOnly("first", "digit", "second");
+    }
+
+    @Test
+    public void testSelfReferencingPattern() {
+        Map<String, String> bank = new HashMap<>();
+        bank.put("LOOP", "a%{OTHER}");
+        bank.put("OTHER", "b%{LOOP}");
+
+        assertThatThrownBy(() -> new Grok(bank, "%{LOOP}"))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("references itself");
+    }
+}
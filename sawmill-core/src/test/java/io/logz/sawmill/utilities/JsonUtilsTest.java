@@ -0,0 +1,25 @@
+package io.logz.sawmill.utilities;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static io.logz.sawmill.utilities.JsonUtils.createMap;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class JsonUtilsTest {
+
+    @Test
+    public void testSurrogatePairIsWrittenTheSameEverywhere() {
+        Map<String, Object> map = createMap("message", "smile \uD83D\uDE00");
+
+        String json = JsonUtils.toJsonString(map);
+        byte[] jsonBytes = JsonUtils.toJsonBytes(map);
+
+        assertThat(json).isEqualTo("{\"message\":\"smile \\uD83D\\uDE00\"}");
+        assertThat(json.getBytes(StandardCharsets.UTF_8)).isEqualTo(jsonBytes);
+        assertThat(JsonLength.of(map)).isEqualTo(jsonBytes.length);
+        assertThat(JsonUtils.fromJsonString(Map.class, json)).isEqualTo(map);
+    }
+}
@@ -0,0 +1,49 @@
+package io.logz.sawmill.utilities;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class Utf8BufferTest {
+
+    @Test
+    public void testEncodeLikeString() {
+        Utf8Buffer buffer = new Utf8Buffer();
+        String[] texts = {"", "ascii", "caf\u00e9", "\u20ac10", "emoji \ud83d\ude00 end", "unpaired \ud83d end", "unpaired \ude00", "\ud83d"};
+
+        for (String text : texts) {
+            buffer.encode(text);
+
+            byte[] expected = text.getBytes(StandardCharsets.UTF_8);
+            assertThat(buffer.getLength()).isEqualTo(expected.length);
+            assertThat(Arrays.copyOf(buffer.getBytes(), buffer.getLength())).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    public void testReusesBuffer() {
+        Utf8Buffer buffer = new Utf8Buffer();
+        buffer.encode("first");
+        byte[] bytes = buffer.getBytes();
+
+        buffer.encode("second");
+        assertThat(buffer.getBytes()).isSameAs(bytes);
+    }
+
+    @Test
+    public void testDoesNotRetainLargeText() {
+        Utf8Buffer buffer = new Utf8Buffer();
+        char[] chars = new char[1024 * 1024];
+        Arrays.fill(chars, 'a');
+
+        buffer.encode(new String(chars));
+        byte[] largeBytes = buffer.getBytes();
+        assertThat(buffer.getLength()).isEqualTo(chars.length);
+
+        buffer.encode("small");
+        assertThat(buffer.getBytes()).isNotSameAs(largeBytes);
+    }
+}